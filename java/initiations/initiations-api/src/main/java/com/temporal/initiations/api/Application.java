@@ -1,7 +1,9 @@
 package com.temporal.initiations.api;
 
+import com.temporal.initiations.codec.PayloadCodecConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 /**
  * Main entry point for the Initiations API service.
@@ -14,6 +16,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * service. Actual workflow execution happens in the workers service.
  */
 @SpringBootApplication
+@Import(PayloadCodecConfiguration.class)
 public class Application {
 
     public static void main(String[] args) {
@@ -1,38 +1,126 @@
 package com.temporal.initiations.api.controller;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.temporal.initiations.api.exception.ConflictException;
+import com.temporal.initiations.api.exception.NotFoundException;
+import com.temporal.initiations.api.exception.ValidationException;
+import com.temporal.initiations.api.status.FileStatusCache;
+import com.temporal.initiations.api.upload.FileReceiver;
+import com.temporal.initiations.concurrency.BoundedFanOut;
+import com.temporal.initiations.messages.api.BulkFileSubmissionRequest;
+import com.temporal.initiations.messages.api.BulkFileSubmissionResult;
 import com.temporal.initiations.messages.api.FileSubmissionResponse;
 import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import com.temporal.initiations.messages.domain.workflows.GetFileStatusResponse;
 import com.temporal.initiations.messages.domain.workflows.InitiateFileRequest;
 import com.temporal.initiations.workflows.files.File;
+import io.temporal.api.enums.v1.WorkflowIdConflictPolicy;
 import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
 import io.temporal.client.WorkflowOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * REST controller for file workflow endpoints.
  * <p>
- * Handles PUT requests to start File workflow executions for payment file processing.
+ * Handles PUT requests to start File workflow executions for payment file processing. A request
+ * with an XML body uploads the file itself; one without names a file already on shared storage.
+ * A POST of a manifest starts many files at once, and a GET of the status URL a submission
+ * returns reports how far its workflow has got.
  */
 @RestController
 @RequestMapping("/api/v1/files")
 public class FileController {
 
+    private static final Logger logger = LoggerFactory.getLogger(FileController.class);
+    // a manifest is started a bounded number of files at a time, so this only guards against a stalled client
+    private static final Duration BULK_TIMEOUT = Duration.ofMinutes(10);
+    private static final int CONTENT_HASH_ID_LENGTH = 32;
+    // memo of a File workflow started for an upload, naming the content it processes
+    private static final String CONTENT_HASH_MEMO = "contentHash";
+
+    /**
+     * A response already given, the content hash of the file its workflow processes, and whether
+     * that workflow had already succeeded.
+     */
+    private record Submission(FileSubmissionResponse response, String contentHash, boolean isProcessed) {
+    }
+
+    /**
+     * The response to a submission, which is a repeat if it was answered from an earlier one or its
+     * workflow had already succeeded.
+     */
+    private record Submitted(FileSubmissionResponse response, boolean isRepeat) {
+    }
+
     private final WorkflowClient workflowClient;
+    private final FileReceiver fileReceiver;
+    private final FileStatusCache fileStatuses;
+    // on virtual threads nothing else caps how many starts hit the Temporal frontend at once
+    private final Semaphore startPermits;
+    private final int bulkStartConcurrency;
+    private final int maxBulkFiles;
+    private final WorkflowIdStrategy workflowIdStrategy;
+    // workflow ID -> response already given for it
+    private final Cache<String, Submission> submissions;
 
     /**
-     * Constructor injection of WorkflowClient.
+     * Constructor injection of WorkflowClient, FileReceiver and FileStatusCache.
      *
-     * @param workflowClient Temporal WorkflowClient for starting workflows
+     * @param workflowClient      Temporal WorkflowClient for starting workflows
+     * @param fileReceiver        Streams uploaded files to the incoming directory
+     * @param fileStatuses        Answers status polls without querying the workflow for each
+     * @param maxConcurrentStarts  Workflow starts in flight at once across all requests
+     * @param bulkStartConcurrency Workflow starts in flight at once for a single bulk submission
+     * @param maxBulkFiles         Most file IDs accepted in a single bulk submission
+     * @param workflowIdStrategy   How the workflow ID of a submission is chosen
+     * @param idempotencyTtl       How long a repeat submission is answered without calling Temporal
+     * @param idempotencyMaxSize   Most submissions remembered at once
      */
-    public FileController(WorkflowClient workflowClient) {
+    public FileController(WorkflowClient workflowClient,
+                          FileReceiver fileReceiver,
+                          FileStatusCache fileStatuses,
+                          @Value("${initiations.api.max-concurrent-starts:200}") int maxConcurrentStarts,
+                          @Value("${initiations.api.bulk.start-concurrency:32}") int bulkStartConcurrency,
+                          @Value("${initiations.api.bulk.max-files:1000}") int maxBulkFiles,
+                          @Value("${initiations.api.workflow-id:FILE_ID}") WorkflowIdStrategy workflowIdStrategy,
+                          @Value("${initiations.api.idempotency.ttl:10m}") Duration idempotencyTtl,
+                          @Value("${initiations.api.idempotency.max-size:100000}") long idempotencyMaxSize) {
         this.workflowClient = workflowClient;
+        this.fileReceiver = fileReceiver;
+        this.fileStatuses = fileStatuses;
+        this.startPermits = new Semaphore(maxConcurrentStarts);
+        this.bulkStartConcurrency = bulkStartConcurrency;
+        this.maxBulkFiles = maxBulkFiles;
+        this.workflowIdStrategy = workflowIdStrategy;
+        this.submissions = CacheBuilder.newBuilder()
+                .maximumSize(idempotencyMaxSize)
+                .expireAfterWrite(idempotencyTtl)
+                .build();
     }
 
     /**
@@ -50,18 +138,194 @@ public class FileController {
             @PathVariable("file_id") String fileId,
             @RequestHeader("X-Submitter-Id") String submitterId
     ) {
-        // Start workflow and get workflow ID
-        String workflowId = startFileWorkflow(fileId, submitterId);
+        return accepted(submit(new FileInfo(fileId, "/files/" + fileId), submitterId, "Workflow initiated for processing").response());
+    }
+
+    /**
+     * Uploads a payment file and initiates a File workflow for it.
+     * <p>
+     * The request body is streamed to disk rather than read into memory, and the workflow starts
+     * with the file's content hash, size and group header already known.
+     *
+     * @param fileId      File identifier from path parameter (required)
+     * @param submitterId Submitter identifier from X-Submitter-Id header (required)
+     * @param body        The PAIN.001 document
+     * @return 202 Accepted with Location header and FileSubmissionResponse
+     */
+    // not application/octet-stream, which Spring assumes for a request without a Content-Type
+    @PutMapping(value = "/{file_id}", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public ResponseEntity<FileSubmissionResponse> uploadFile(
+            @PathVariable("file_id") String fileId,
+            @RequestHeader("X-Submitter-Id") String submitterId,
+            InputStream body
+    ) throws IOException {
+        FileInfo fileInfo = fileReceiver.receive(fileId, body);
+
+        return accepted(submit(fileInfo, submitterId, "File received and workflow initiated for processing").response());
+    }
+
+    /**
+     * Initiates File workflows for a manifest of files.
+     * <p>
+     * Workflows are started concurrently, a bounded number at a time, and the result for each file
+     * is streamed back as a line of NDJSON as soon as its start completes. Each file is submitted
+     * as a single PUT of it would be, under the same workflow ID strategy and idempotency cache, so
+     * with deterministic workflow IDs resubmitting a manifest only restarts the files whose workflow failed.
+     *
+     * @param submitterId Submitter identifier from X-Submitter-Id header (required)
+     * @param request     The manifest of file IDs
+     * @return 200 OK with a BulkFileSubmissionResult per file
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> submitFiles(
+            @RequestHeader("X-Submitter-Id") String submitterId,
+            @RequestBody BulkFileSubmissionRequest request
+    ) {
+        List<String> fileIds = request.fileIds() == null ? List.of() : request.fileIds().stream().distinct().toList();
+        if (fileIds.isEmpty()) {
+            throw new ValidationException("EMPTY_MANIFEST", "Manifest has no file IDs");
+        }
+        if (fileIds.size() > maxBulkFiles) {
+            throw new ValidationException("MANIFEST_TOO_LARGE",
+                    "Manifest has " + fileIds.size() + " file IDs, at most " + maxBulkFiles + " are accepted");
+        }
+        if (fileIds.stream().anyMatch(fileId -> fileId == null || fileId.isBlank())) {
+            throw new ValidationException("INVALID_FILE_ID", "Manifest has a blank file ID");
+        }
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(BULK_TIMEOUT.toMillis());
+        Lock emitterLock = new ReentrantLock();
+        Thread.ofVirtual().name("bulk-submit-", 0).start(() -> {
+            try {
+                BoundedFanOut.run(fileIds, 0, bulkStartConcurrency, (index, fileId) -> {
+                    BulkFileSubmissionResult result = submitBulkFile(fileId, submitterId);
+                    // results are written from many threads and each line must reach the client whole
+                    emitterLock.lock();
+                    try {
+                        emitter.send(result, MediaType.APPLICATION_JSON);
+                        emitter.send("\n", MediaType.TEXT_PLAIN);
+                    } finally {
+                        emitterLock.unlock();
+                    }
+                    return result;
+                }, watermark -> {
+                });
+                emitter.complete();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.completeWithError(e);
+            } catch (RuntimeException e) {
+                // most likely the client went away; files already started stay started
+                logger.warn("Bulk submission of {} files by {} stopped early", fileIds.size(), submitterId, e);
+                emitter.completeWithError(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
+    /**
+     * Reports the status of a File workflow.
+     * <p>
+     * This is the URL in the Location header of a submission. The status is a compact projection
+     * of the workflow state, and may be up to the status TTL old.
+     *
+     * @param fileId     File identifier from path parameter (required)
+     * @param workflowId Workflow identifier from path parameter (required)
+     * @return 200 OK with GetFileStatusResponse, or 404 Not Found if the workflow is not processing the file
+     */
+    @GetMapping("/{file_id}/status/{workflow_id}")
+    public ResponseEntity<GetFileStatusResponse> getFileStatus(
+            @PathVariable("file_id") String fileId,
+            @PathVariable("workflow_id") String workflowId
+    ) {
+        GetFileStatusResponse status = fileStatuses.get(workflowId);
+        if (!fileId.equals(status.getFileId())) {
+            throw new NotFoundException("File " + fileId + " is not processed by workflow " + workflowId);
+        }
 
-        // Build response
-        FileSubmissionResponse response = new FileSubmissionResponse(
-                workflowId,
-                fileId,
-                "Workflow initiated for processing"
-        );
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(fileStatuses.getTtl()))
+                .body(status);
+    }
+
+    private BulkFileSubmissionResult submitBulkFile(String fileId, String submitterId) {
+        try {
+            Submitted submitted = submit(new FileInfo(fileId, "/files/" + fileId), submitterId, "Workflow initiated for processing");
+            if (submitted.isRepeat()) {
+                return new BulkFileSubmissionResult(fileId, submitted.response().workflowId(), "ALREADY_STARTED",
+                        "Workflow is already running or has completed for this file");
+            }
+            return new BulkFileSubmissionResult(fileId, submitted.response().workflowId(), "STARTED", submitted.response().message());
+        } catch (RuntimeException e) {
+            logger.warn("Unable to start workflow for file {}", fileId, e);
+            return new BulkFileSubmissionResult(fileId, null, "FAILED", e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts, or joins, the File workflow for a submission, whether single or from a manifest.
+     * <p>
+     * With a deterministic workflow ID, a submission that conflicts with a running workflow gets
+     * that workflow back, and a repeat seen within the idempotency TTL is answered from memory
+     * without a Temporal round trip. A workflow that has failed is started again once its entry has expired.
+     * An upload is only ever joined to a workflow processing the same content.
+     *
+     * @return The response for the submission
+     * @throws ConflictException If the workflow for the ID processes a file with different content
+     */
+    private Submitted submit(FileInfo fileInfo, String submitterId, String message) {
+        String fileId = fileInfo.getFileId();
+        if (workflowIdStrategy == WorkflowIdStrategy.RANDOM) {
+            return new Submitted(new FileSubmissionResponse(startFileWorkflow(fileInfo, submitterId), fileId, message), false);
+        }
 
+        String workflowId = workflowIdStrategy == WorkflowIdStrategy.CONTENT_HASH && fileInfo.getContentHash() != null
+                ? submitterId + "-" + fileInfo.getContentHash().substring(0, CONTENT_HASH_ID_LENGTH)
+                : fileId;
+        try {
+            // concurrent repeats of one submission wait for the first to start rather than each calling Temporal
+            boolean[] isLoaded = {false};
+            Submission submission = submissions.get(workflowId, () -> {
+                isLoaded[0] = true;
+                FileSubmissionResponse response;
+                boolean isProcessed = false;
+                try {
+                    startFileWorkflow(workflowId, fileInfo, submitterId, WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_USE_EXISTING);
+                    response = new FileSubmissionResponse(workflowId, fileId, message);
+                } catch (WorkflowExecutionAlreadyStarted e) {
+                    // the reuse policy only refuses an ID whose workflow completed successfully
+                    response = new FileSubmissionResponse(workflowId, fileId, "File has already been processed");
+                    isProcessed = true;
+                }
+                // the workflow may have been started by an earlier submission, of other content
+                return new Submission(response, fileInfo.getContentHash() == null ? null : contentHash(workflowId), isProcessed);
+            });
+            if (fileInfo.getContentHash() != null && !fileInfo.getContentHash().equals(submission.contentHash())) {
+                throw new ConflictException("File " + fileId + " was already submitted with different content;"
+                        + " resubmit it under a new file ID");
+            }
+            return new Submitted(submission.response(), !isLoaded[0] || submission.isProcessed());
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return The content hash of the file the workflow processes, or null if it was not started for an upload
+     */
+    private String contentHash(String workflowId) {
+        return workflowClient.newUntypedWorkflowStub(workflowId).describe().getMemo(CONTENT_HASH_MEMO, String.class, String.class);
+    }
+
+    private static ResponseEntity<FileSubmissionResponse> accepted(FileSubmissionResponse response) {
         // Build Location header pointing to workflow status endpoint
-        URI location = URI.create("/api/v1/files/" + fileId + "/status/" + workflowId);
+        URI location = URI.create("/api/v1/files/" + response.fileId() + "/status/" + response.workflowId());
 
         return ResponseEntity
                 .accepted()
@@ -75,32 +339,56 @@ public class FileController {
      * Generates a unique workflow ID combining the file ID and a UUID.
      * Submits the workflow to the initiations task queue for execution.
      *
-     * @param fileId      The file identifier
+     * @param fileInfo    The file to process
      * @param submitterId The submitter identifier
      * @return The generated workflow ID
      */
-    private String startFileWorkflow(String fileId, String submitterId) {
+    private String startFileWorkflow(FileInfo fileInfo, String submitterId) {
         // Generate unique workflow ID
-        String workflowId = fileId + "-" + UUID.randomUUID();
+        String workflowId = fileInfo.getFileId() + "-" + UUID.randomUUID();
 
+        startFileWorkflow(workflowId, fileInfo, submitterId, WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_FAIL);
+
+        return workflowId;
+    }
+
+    /**
+     * Starts a File workflow execution under the given workflow ID.
+     *
+     * @param workflowId     The workflow ID
+     * @param fileInfo       The file to process
+     * @param submitterId    The submitter identifier
+     * @param conflictPolicy What to do when a workflow with the ID is already running
+     * @throws WorkflowExecutionAlreadyStarted If a workflow with the ID has completed successfully, or is
+     *                                         running and the conflict policy is to fail
+     */
+    private void startFileWorkflow(String workflowId, FileInfo fileInfo, String submitterId,
+                                   WorkflowIdConflictPolicy conflictPolicy) {
         // Configure workflow options
         WorkflowOptions workflowOptions = WorkflowOptions.newBuilder()
                 .setWorkflowId(workflowId)
                 .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE_FAILED_ONLY)
+                .setWorkflowIdConflictPolicy(conflictPolicy)
                 .setTaskQueue("initiations")
+                .setMemo(fileInfo.getContentHash() == null ? null : Map.of(CONTENT_HASH_MEMO, fileInfo.getContentHash()))
                 .build();
 
         // Create workflow input POJO
         InitiateFileRequest args = new InitiateFileRequest(
                 Instant.now(Clock.systemUTC()),
-                new FileInfo(fileId, "/files/" + fileId),
+                fileInfo,
                 submitterId,
                 null);
 
         // Create typed workflow stub and start workflow
         File workflow = workflowClient.newWorkflowStub(File.class, workflowOptions);
-        WorkflowClient.start(workflow::execute, args);
-
-        return workflowId;
+        startPermits.acquireUninterruptibly();
+        try {
+            WorkflowClient.start(workflow::execute, args);
+        } finally {
+            startPermits.release();
+        }
+        // a failed workflow may just have been started again under the same ID
+        fileStatuses.invalidate(workflowId);
     }
 }
@@ -0,0 +1,24 @@
+package com.temporal.initiations.api.controller;
+
+/**
+ * How the workflow ID of a single file submission is chosen.
+ *
+ * With a deterministic ID a repeated submission joins the File workflow the
+ * first one started rather than running the whole pipeline again.
+ */
+public enum WorkflowIdStrategy {
+    /**
+     * A new ID for every submission, so every request starts its own File workflow.
+     */
+    RANDOM,
+    /**
+     * The file ID, so resubmitting a file joins the workflow already processing it.
+     */
+    FILE_ID,
+    /**
+     * The submitter and the content hash of an uploaded file, so resending the same content under
+     * any file ID joins the workflow already processing it. Files not uploaded through the API have
+     * no hash and fall back to {@link #FILE_ID}.
+     */
+    CONTENT_HASH
+}
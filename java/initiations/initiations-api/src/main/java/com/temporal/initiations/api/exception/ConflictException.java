@@ -0,0 +1,11 @@
+package com.temporal.initiations.api.exception;
+
+/**
+ * Exception thrown when a request contradicts a submission already accepted for the same file.
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.temporal.initiations.api.exception;
+
+/**
+ * Exception thrown when a request names a file or workflow that does not exist.
+ */
+public class NotFoundException extends RuntimeException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
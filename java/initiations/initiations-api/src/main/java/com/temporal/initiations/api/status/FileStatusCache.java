@@ -0,0 +1,83 @@
+package com.temporal.initiations.api.status;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.temporal.initiations.api.exception.NotFoundException;
+import com.temporal.initiations.messages.domain.workflows.GetFileStatusResponse;
+import com.temporal.initiations.workflows.files.File;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Answers status polls for File workflows from a short-lived cache of their status query.
+ * <p>
+ * Every client polling a workflow within the TTL is given the same answer, and pollers arriving
+ * while it is being fetched wait for that one query rather than each sending their own, so a
+ * thousand pollers cost the workers one query per workflow per TTL.
+ */
+@Component
+public class FileStatusCache {
+
+    private final Duration ttl;
+    // workflow ID -> its latest status
+    private final LoadingCache<String, GetFileStatusResponse> statuses;
+
+    @Autowired
+    public FileStatusCache(WorkflowClient workflowClient,
+                           @Value("${initiations.api.status.ttl:2s}") Duration ttl,
+                           @Value("${initiations.api.status.max-size:100000}") long maxSize) {
+        this(workflowClient, ttl, maxSize, Ticker.systemTicker());
+    }
+
+    FileStatusCache(WorkflowClient workflowClient, Duration ttl, long maxSize, Ticker ticker) {
+        this.ttl = ttl;
+        this.statuses = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .build(CacheLoader.from(workflowId -> workflowClient.newWorkflowStub(File.class, workflowId).getStatus()));
+    }
+
+    /**
+     * @return How long a status may be served after it was queried
+     */
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return The status of the latest run of the workflow, at most the TTL old
+     * @throws NotFoundException If there is no workflow with the ID
+     */
+    public GetFileStatusResponse get(String workflowId) {
+        try {
+            return statuses.get(workflowId);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // failures are not cached, so an unknown ID is looked up again on the next poll
+            if (e.getCause() instanceof WorkflowNotFoundException) {
+                throw new NotFoundException("No File workflow with ID " + workflowId);
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Drops the status of a workflow the API has just started a new run of, so its pollers are not
+     * shown the previous run for up to the TTL.
+     */
+    public void invalidate(String workflowId) {
+        statuses.invalidate(workflowId);
+    }
+}
@@ -0,0 +1,150 @@
+package com.temporal.initiations.api.upload;
+
+import com.temporal.initiations.api.exception.ValidationException;
+import com.temporal.initiations.api.exception.XmlParsingException;
+import com.temporal.initiations.messages.domain.payments.GroupHeader;
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import com.temporal.initiations.pain.Pain001ParseException;
+import com.temporal.initiations.pain.Pain001Reader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Receives payment files uploaded as request bodies into the incoming directory shared with the workers.
+ * <p>
+ * The body is streamed to disk through one bounded buffer, so a file of any size costs the API the
+ * same heap. The content hash and size are taken along the way, and the group header is read from
+ * a copy of the first bytes as soon as they arrive, so a body that is not a PAIN.001 document is
+ * turned away without being read to its end.
+ * <p>
+ * A received file is stored as {@code <fileId>.<hash prefix>.xml} and never replaced, so a
+ * workflow still reading an earlier upload under the same file id is not disturbed by a resend.
+ */
+@Component
+public class FileReceiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileReceiver.class);
+    private static final int BUFFER_SIZE = 256 * 1024;
+    // the group header sits at the top of the file and is a few hundred bytes long
+    private static final int HEAD_SIZE = 64 * 1024;
+    private static final int HASH_PREFIX_LENGTH = 16;
+    // the file id names files on disk, so it must not be able to leave the incoming directory
+    private static final Pattern FILE_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]{0,127}");
+
+    private final Path directory;
+    private final long maxSizeBytes;
+
+    public FileReceiver(@Value("${initiations.files.incoming-path:data/incoming}") String incomingPath,
+                        @Value("${initiations.files.max-upload-size:2GB}") DataSize maxSize) {
+        this.directory = Path.of(incomingPath);
+        this.maxSizeBytes = maxSize.toBytes();
+    }
+
+    /**
+     * Streams {@code body} to disk.
+     *
+     * @return The received file, with its hash, size and group header filled in
+     * @throws XmlParsingException If the body does not start with a PAIN.001 group header
+     * @throws ValidationException If the file id cannot name a file, or the body is empty or larger than the upload limit
+     */
+    public FileInfo receive(String fileId, InputStream body) throws IOException {
+        if (!FILE_ID.matcher(fileId).matches()) {
+            throw new ValidationException("INVALID_FILE_ID", "File id must be letters, digits, '.', '_' or '-': " + fileId);
+        }
+        Files.createDirectories(directory);
+        // uploads of the same file id running side by side each get their own part file
+        var part = directory.resolve(fileId + "." + UUID.randomUUID() + ".part");
+        var digest = newContentDigest();
+        var head = ByteBuffer.allocate(HEAD_SIZE);
+        GroupHeader groupHeader = null;
+        long size = 0;
+        long started = System.nanoTime();
+        try (var source = Channels.newChannel(body);
+             var target = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (source.read(buffer.clear()) >= 0) {
+                buffer.flip();
+                size += buffer.remaining();
+                if (size > maxSizeBytes) {
+                    throw new ValidationException("FILE_TOO_LARGE",
+                            "File exceeds the upload limit of " + maxSizeBytes + " bytes");
+                }
+                digest.update(buffer.duplicate());
+                if (groupHeader == null) {
+                    head.put(buffer.duplicate().limit(buffer.position() + Math.min(buffer.remaining(), head.remaining())));
+                    if (!head.hasRemaining()) {
+                        groupHeader = readGroupHeader(head);
+                    }
+                }
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            }
+            if (size == 0) {
+                throw new ValidationException("EMPTY_FILE", "Request body is empty");
+            }
+            if (groupHeader == null) {
+                groupHeader = readGroupHeader(head);
+            }
+            target.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        var contentHash = HexFormat.of().formatHex(digest.digest());
+        var file = directory.resolve(fileId + "." + contentHash.substring(0, HASH_PREFIX_LENGTH) + ".xml");
+        try {
+            // unlike a rename, which replaces silently, a link is only made where there is no file yet
+            Files.createLink(file, part);
+        } catch (FileAlreadyExistsException e) {
+            // the same content under the same name is already in place, and the new copy can go
+            logger.info("File {} was already received as {}", fileId, file);
+        } finally {
+            Files.delete(part);
+        }
+        logger.info("Received file {} ({} bytes, {} transactions declared) in {}ms",
+                fileId, size, groupHeader.numberOfTransactions(), (System.nanoTime() - started) / 1_000_000);
+
+        var fileInfo = new FileInfo(fileId, file.toAbsolutePath().toString());
+        fileInfo.setContentHash(contentHash);
+        fileInfo.setSizeBytes(size);
+        fileInfo.setGroupHeader(groupHeader);
+        return fileInfo;
+    }
+
+    private static GroupHeader readGroupHeader(ByteBuffer head) {
+        try {
+            return Pain001Reader.peekGroupHeader(new ByteArrayInputStream(head.array(), 0, head.position()));
+        } catch (Pain001ParseException e) {
+            throw new XmlParsingException("File does not start with a PAIN.001 group header", e.getMessage());
+        }
+    }
+
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", e);
+        }
+    }
+}
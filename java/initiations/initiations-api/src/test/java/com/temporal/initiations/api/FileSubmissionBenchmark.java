@@ -0,0 +1,206 @@
+package com.temporal.initiations.api;
+
+import com.temporal.initiations.api.controller.FileController;
+import com.temporal.initiations.api.exception.GlobalExceptionHandler;
+import com.temporal.initiations.api.status.FileStatusCache;
+import com.temporal.initiations.api.upload.FileReceiver;
+import com.temporal.initiations.messages.domain.workflows.ApproveFileRequest;
+import com.temporal.initiations.messages.domain.workflows.GetFileStateResponse;
+import com.temporal.initiations.messages.domain.workflows.GetFileStatusResponse;
+import com.temporal.initiations.messages.domain.workflows.InitiateFileRequest;
+import com.temporal.initiations.workflows.files.File;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import io.temporal.testing.TestWorkflowEnvironment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Submissions per second and latency of {@code PUT /api/v1/files/{file_id}} with requests served on
+ * Tomcat's platform thread pool and on virtual threads, against the in-process Temporal test server.
+ * <p>
+ * Each start is delayed by {@code benchmarks.start-latency} (default 20ms) to stand for the round trip to
+ * a real Temporal frontend, which is what holds a request thread. {@code benchmarks.clients} (default
+ * 1000) clients submit back to back for {@code benchmarks.duration} (default 10s) after a warmup.
+ * <p>
+ * Not part of the normal build; run it with
+ * {@code mvn test -pl initiations/initiations-api -am -Dtest=FileSubmissionBenchmark -Dbenchmarks=true
+ * -Dsurefire.failIfNoSpecifiedTests=false}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class FileSubmissionBenchmark {
+
+    private static final Duration START_LATENCY = Duration.parse("PT" + System.getProperty("benchmarks.start-latency", "0.02S"));
+    private static final int CLIENTS = Integer.getInteger("benchmarks.clients", 1000);
+    private static final Duration DURATION = Duration.parse("PT" + System.getProperty("benchmarks.duration", "10S"));
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final int MAX_SAMPLES = 1_000_000;
+
+    /**
+     * Stands in for the File workflow, completing as soon as it starts.
+     */
+    public static class CompletedFile implements File {
+        @Override
+        public void execute(InitiateFileRequest args) {
+        }
+
+        @Override
+        public void approveFile(ApproveFileRequest cmd) {
+        }
+
+        @Override
+        public GetFileStateResponse getState() {
+            return new GetFileStateResponse();
+        }
+
+        @Override
+        public GetFileStatusResponse getStatus() {
+            return new GetFileStatusResponse();
+        }
+
+        @Override
+        public void recoverFromPreviousFailure() {
+        }
+    }
+
+    /**
+     * The request path of the API, without the Temporal client auto-configuration, which would connect to a real server.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+    @Import({FileController.class, FileReceiver.class, FileStatusCache.class, GlobalExceptionHandler.class})
+    static class Api {
+    }
+
+    private record Result(long submissions, long failures, long[] latencies) {
+    }
+
+    @Test
+    void platformAndVirtualThreads() throws Exception {
+        System.out.printf("%d clients, %s start latency%n", CLIENTS, START_LATENCY);
+        System.out.printf("%-9s %12s %9s %9s %9s %9s%n", "threads", "submissions", "per sec", "p50 ms", "p99 ms", "failures");
+        for (boolean isVirtual : new boolean[] {false, true}) {
+            var result = run(isVirtual);
+            var latencies = result.latencies();
+            Arrays.sort(latencies);
+            System.out.printf("%-9s %12d %9.0f %9.1f %9.1f %9d%n", isVirtual ? "virtual" : "platform",
+                    result.submissions(), result.submissions() / (DURATION.toNanos() / 1e9),
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), result.failures());
+            assertThat(result.failures()).isZero();
+        }
+    }
+
+    private static Result run(boolean isVirtual) throws Exception {
+        try (var env = TestWorkflowEnvironment.newInstance()) {
+            env.newWorker("initiations").registerWorkflowImplementationTypes(CompletedFile.class);
+            env.start();
+            var client = WorkflowClient.newInstance(env.getWorkflowServiceStubs(), WorkflowClientOptions.newBuilder()
+                    .setNamespace(env.getNamespace())
+                    .setInterceptors(new StartLatency())
+                    .build());
+            try (var api = new SpringApplicationBuilder(Api.class)
+                    .web(WebApplicationType.SERVLET)
+                    .initializers(context -> context.getBeanFactory().registerSingleton("workflowClient", client))
+                    .properties("server.port=0",
+                            "spring.threads.virtual.enabled=" + isVirtual,
+                            "initiations.api.workflow-id=RANDOM",
+                            "logging.level.root=WARN")
+                    .run()) {
+                int port = ((ServletWebServerApplicationContext) api).getWebServer().getPort();
+                submit(port, WARMUP);
+                return submit(port, DURATION);
+            }
+        }
+    }
+
+    /**
+     * Submits from every client back to back until {@code duration} is up.
+     */
+    private static Result submit(int port, Duration duration) throws InterruptedException {
+        var http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        var latencies = new long[MAX_SAMPLES];
+        var count = new AtomicLong();
+        var failures = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int clientId = c;
+                clients.execute(() -> {
+                    for (int i = 0; System.nanoTime() < deadline; i++) {
+                        var request = HttpRequest.newBuilder(URI.create(
+                                        "http://localhost:" + port + "/api/v1/files/F" + clientId + "-" + i))
+                                .header("X-Submitter-Id", "benchmark")
+                                .PUT(HttpRequest.BodyPublishers.noBody())
+                                .build();
+                        long started = System.nanoTime();
+                        try {
+                            if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 202) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        long sample = count.getAndIncrement();
+                        if (sample < MAX_SAMPLES) {
+                            latencies[(int) sample] = System.nanoTime() - started;
+                        }
+                    }
+                });
+            }
+        }
+        http.close();
+        long submissions = count.get();
+        return new Result(submissions, failures.get(), Arrays.copyOf(latencies, (int) Math.min(submissions, MAX_SAMPLES)));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * quantile)] / 1e6;
+    }
+
+    /**
+     * Holds every workflow start for the configured latency before sending it.
+     */
+    private static final class StartLatency extends WorkflowClientInterceptorBase {
+        @Override
+        public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(WorkflowClientCallsInterceptor next) {
+            return new WorkflowClientCallsInterceptorBase(next) {
+                @Override
+                public WorkflowStartOutput start(WorkflowStartInput input) {
+                    try {
+                        Thread.sleep(START_LATENCY);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    }
+                    return super.start(input);
+                }
+            };
+        }
+    }
+}
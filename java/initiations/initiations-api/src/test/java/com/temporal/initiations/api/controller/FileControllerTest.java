@@ -0,0 +1,224 @@
+package com.temporal.initiations.api.controller;
+
+import com.temporal.initiations.api.exception.ConflictException;
+import com.temporal.initiations.api.status.FileStatusCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.temporal.initiations.api.upload.FileReceiver;
+import com.temporal.initiations.messages.api.BulkFileSubmissionRequest;
+import com.temporal.initiations.messages.api.BulkFileSubmissionResult;
+import com.temporal.initiations.messages.domain.workflows.ApproveFileRequest;
+import com.temporal.initiations.messages.domain.workflows.GetFileStateResponse;
+import com.temporal.initiations.messages.domain.workflows.GetFileStatusResponse;
+import com.temporal.initiations.messages.domain.workflows.InitiateFileRequest;
+import com.temporal.initiations.workflows.files.File;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.workflow.Workflow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class FileControllerTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Stands in for the File workflow, staying open until approved.
+     */
+    public static class WaitingFile implements File {
+        private boolean approved;
+
+        @Override
+        public void execute(InitiateFileRequest args) {
+            Workflow.await(() -> approved);
+        }
+
+        @Override
+        public void approveFile(ApproveFileRequest cmd) {
+            approved = true;
+        }
+
+        @Override
+        public GetFileStateResponse getState() {
+            return new GetFileStateResponse();
+        }
+
+        @Override
+        public GetFileStatusResponse getStatus() {
+            return new GetFileStatusResponse();
+        }
+
+        @Override
+        public void recoverFromPreviousFailure() {
+        }
+    }
+
+    @TempDir
+    Path directory;
+
+    private TestWorkflowEnvironment env;
+
+    @BeforeEach
+    void startWorker() {
+        env = TestWorkflowEnvironment.newInstance();
+        env.newWorker("initiations").registerWorkflowImplementationTypes(WaitingFile.class);
+        env.start();
+    }
+
+    @AfterEach
+    void stopWorker() {
+        env.close();
+    }
+
+    @Test
+    void repeatedUploadJoinsTheWorkflowOfTheFirst() throws IOException {
+        var controller = controller();
+        var first = controller.uploadFile("f1", "s1", document("MSG-1")).getBody();
+        var repeat = controller.uploadFile("f1", "s1", document("MSG-1")).getBody();
+        // a restarted API has no memory of the first upload
+        var afterRestart = controller().uploadFile("f1", "s1", document("MSG-1")).getBody();
+
+        assertThat(first.workflowId()).isEqualTo("f1");
+        assertThat(repeat).isEqualTo(first);
+        assertThat(afterRestart).isEqualTo(first);
+    }
+
+    @Test
+    void uploadOfOtherContentUnderTheSameFileIdIsAConflict() throws IOException {
+        var controller = controller();
+        controller.uploadFile("f1", "s1", document("MSG-1"));
+
+        assertThatThrownBy(() -> controller.uploadFile("f1", "s1", document("MSG-2")))
+                .isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> controller().uploadFile("f1", "s1", document("MSG-2")))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void manifestIsSubmittedFileByFileLikeSinglePutsAndReportsEachOutcome() throws Exception {
+        var client = WorkflowClient.newInstance(env.getWorkflowServiceStubs(), WorkflowClientOptions.newBuilder()
+                .setNamespace(env.getNamespace())
+                .setInterceptors(new FailingStarts("f3"))
+                .build());
+        var controller = controller(client, WorkflowIdStrategy.FILE_ID);
+        controller.submitFile("f1", "s1");
+
+        var results = submitManifest(controller, "f1", "f2", "f3");
+        // a restarted API has no memory of the earlier submissions, and joins their running workflows
+        var afterRestart = submitManifest(controller(client, WorkflowIdStrategy.FILE_ID), "f1", "f2");
+
+        assertThat(results).containsExactlyInAnyOrder(
+                "f1 f1 ALREADY_STARTED", "f2 f2 STARTED", "f3 null FAILED");
+        assertThat(afterRestart).containsExactlyInAnyOrder("f1 f1 STARTED", "f2 f2 STARTED");
+        assertThat(env.getWorkflowClient().newUntypedWorkflowStub("f2").describe().getStatus())
+                .isEqualTo(WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING);
+    }
+
+    @Test
+    void manifestFollowsTheConfiguredWorkflowIdStrategy() throws Exception {
+        var controller = controller(env.getWorkflowClient(), WorkflowIdStrategy.RANDOM);
+
+        var results = submitManifest(controller, "f1", "f2");
+
+        assertThat(results).hasSize(2).allMatch(line -> line.matches("(f\\d) \\1-[0-9a-f-]{36} STARTED"));
+    }
+
+    /**
+     * Posts the manifest and waits for every line of the result.
+     *
+     * @return "fileId workflowId status" per line
+     */
+    private static List<String> submitManifest(FileController controller, String... fileIds) throws Exception {
+        var mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        var started = mvc.perform(post("/api/v1/files")
+                        .header("X-Submitter-Id", "s1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(JSON.writeValueAsString(new BulkFileSubmissionRequest(List.of(fileIds)))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        var lines = new ArrayList<String>();
+        for (var line : body.split("\n")) {
+            var result = JSON.readValue(line, BulkFileSubmissionResult.class);
+            lines.add(result.fileId() + " " + result.workflowId() + " " + result.status());
+        }
+        return lines;
+    }
+
+    private FileController controller() {
+        return controller(env.getWorkflowClient(), WorkflowIdStrategy.FILE_ID);
+    }
+
+    private FileController controller(WorkflowClient client, WorkflowIdStrategy workflowIdStrategy) {
+        return new FileController(client,
+                new FileReceiver(directory.toString(), DataSize.ofMegabytes(1)), new FileStatusCache(client, Duration.ofSeconds(2), 100),
+                10, 4, 10, workflowIdStrategy, Duration.ofMinutes(10), 100);
+    }
+
+    /**
+     * Fails the start of the workflows of the given files, as an unreachable frontend would.
+     */
+    private static final class FailingStarts extends WorkflowClientInterceptorBase {
+        private final Set<String> fileIds;
+
+        FailingStarts(String... fileIds) {
+            this.fileIds = Set.of(fileIds);
+        }
+
+        @Override
+        public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(WorkflowClientCallsInterceptor next) {
+            return new WorkflowClientCallsInterceptorBase(next) {
+                @Override
+                public WorkflowStartOutput start(WorkflowStartInput input) {
+                    if (fileIds.contains(input.getWorkflowId())) {
+                        throw new IllegalStateException("Frontend unavailable");
+                    }
+                    return super.start(input);
+                }
+            };
+        }
+    }
+
+    private static ByteArrayInputStream document(String messageId) {
+        return new ByteArrayInputStream("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pain.001.001.03">
+                  <CstmrCdtTrfInitn>
+                    <GrpHdr>
+                      <MsgId>%s</MsgId>
+                      <CreDtTm>2026-10-17T09:00:00</CreDtTm>
+                      <NbOfTxs>0</NbOfTxs>
+                      <InitgPty><Nm>Initiator</Nm></InitgPty>
+                    </GrpHdr>
+                  </CstmrCdtTrfInitn>
+                </Document>
+                """.formatted(messageId).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,169 @@
+package com.temporal.initiations.api.status;
+
+import com.google.common.base.Ticker;
+import com.temporal.initiations.api.exception.NotFoundException;
+import com.temporal.initiations.messages.domain.workflows.ApproveFileRequest;
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import com.temporal.initiations.messages.domain.workflows.FilePhase;
+import com.temporal.initiations.messages.domain.workflows.GetFileStateResponse;
+import com.temporal.initiations.messages.domain.workflows.GetFileStatusResponse;
+import com.temporal.initiations.messages.domain.workflows.InitiateFileRequest;
+import com.temporal.initiations.workflows.files.File;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.workflow.Workflow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStatusCacheTest {
+
+    private static final Duration TTL = Duration.ofSeconds(2);
+
+    /**
+     * Stands in for the File workflow, stuck in its checks until told to recover.
+     */
+    public static class StuckFile implements File {
+        private String fileId;
+        private boolean recovered;
+
+        @Override
+        public void execute(InitiateFileRequest args) {
+            fileId = args.getFileInfo().getFileId();
+            Workflow.await(() -> recovered);
+        }
+
+        @Override
+        public void approveFile(ApproveFileRequest cmd) {
+        }
+
+        @Override
+        public GetFileStateResponse getState() {
+            return new GetFileStateResponse();
+        }
+
+        @Override
+        public GetFileStatusResponse getStatus() {
+            var status = new GetFileStatusResponse();
+            status.setFileId(fileId);
+            status.setPhase(recovered ? FilePhase.TRANSFORMING : FilePhase.CHECKING);
+            return status;
+        }
+
+        @Override
+        public void recoverFromPreviousFailure() {
+            recovered = true;
+        }
+    }
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+    private TestWorkflowEnvironment env;
+    private WorkflowClient client;
+    private FileStatusCache statuses;
+
+    @BeforeEach
+    void startWorker() {
+        env = TestWorkflowEnvironment.newInstance();
+        env.newWorker("initiations").registerWorkflowImplementationTypes(StuckFile.class);
+        env.start();
+        client = WorkflowClient.newInstance(env.getWorkflowServiceStubs(), WorkflowClientOptions.newBuilder()
+                .setNamespace(env.getNamespace())
+                .setInterceptors(new CountingQueries())
+                .build());
+        statuses = new FileStatusCache(client, TTL, 100, new Ticker() {
+            @Override
+            public long read() {
+                return now.get();
+            }
+        });
+    }
+
+    @AfterEach
+    void stopWorker() {
+        env.close();
+    }
+
+    @Test
+    void pollsWithinTheTtlShareOneQuery() {
+        start("f1");
+
+        var first = statuses.get("f1");
+        var second = statuses.get("f1");
+
+        assertThat(queries).hasValue(1);
+        assertThat(second).isSameAs(first);
+        assertThat(first.getFileId()).isEqualTo("f1");
+        assertThat(first.getPhase()).isEqualTo(FilePhase.CHECKING);
+    }
+
+    @Test
+    void stateChangeIsSeenOnceTheTtlIsUp() {
+        var file = start("f1");
+        statuses.get("f1");
+
+        file.recoverFromPreviousFailure();
+
+        assertThat(statuses.get("f1").getPhase()).isEqualTo(FilePhase.CHECKING);
+        now.addAndGet(TTL.toNanos());
+        assertThat(statuses.get("f1").getPhase()).isEqualTo(FilePhase.TRANSFORMING);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void invalidatedStatusIsQueriedAgainWithinTheTtl() {
+        var file = start("f1");
+        statuses.get("f1");
+
+        file.recoverFromPreviousFailure();
+        statuses.invalidate("f1");
+
+        assertThat(statuses.get("f1").getPhase()).isEqualTo(FilePhase.TRANSFORMING);
+        assertThat(queries).hasValue(2);
+    }
+
+    @Test
+    void unknownWorkflowIsNotFoundAndNotCached() {
+        assertThatThrownBy(() -> statuses.get("f1")).isInstanceOf(NotFoundException.class);
+
+        start("f1");
+
+        assertThat(statuses.get("f1").getFileId()).isEqualTo("f1");
+    }
+
+    private File start(String fileId) {
+        var file = client.newWorkflowStub(File.class,
+                WorkflowOptions.newBuilder().setWorkflowId(fileId).setTaskQueue("initiations").build());
+        WorkflowClient.start(file::execute, new InitiateFileRequest(null,
+                new FileInfo(fileId, "/files/" + fileId), "s1", null));
+        return file;
+    }
+
+    /**
+     * Counts the status queries that reach the workflows.
+     */
+    private final class CountingQueries extends WorkflowClientInterceptorBase {
+        @Override
+        public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(WorkflowClientCallsInterceptor next) {
+            return new WorkflowClientCallsInterceptorBase(next) {
+                @Override
+                public <R> QueryOutput<R> query(QueryInput<R> input) {
+                    queries.incrementAndGet();
+                    return super.query(input);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.temporal.initiations.api.upload;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileReceiverTest {
+
+    private static final String DOCUMENT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Document xmlns="urn:iso:std:iso:20022:tech:xsd:pain.001.001.03">
+              <CstmrCdtTrfInitn>
+                <GrpHdr>
+                  <MsgId>MSG-1</MsgId>
+                  <CreDtTm>2026-10-17T09:00:00</CreDtTm>
+                  <NbOfTxs>0</NbOfTxs>
+                  <InitgPty><Nm>Initiator</Nm></InitgPty>
+                </GrpHdr>
+              </CstmrCdtTrfInitn>
+            </Document>
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resendOfTheSameContentLeavesTheReceivedFileInPlace() throws IOException {
+        var receiver = new FileReceiver(directory.toString(), DataSize.ofMegabytes(1));
+        var first = receiver.receive("f1", body());
+        var received = Path.of(first.getFilePath());
+        // stands in for the file as a workflow is reading it
+        Files.writeString(received, "in use");
+
+        var second = receiver.receive("f1", body());
+
+        assertThat(second.getFilePath()).isEqualTo(first.getFilePath());
+        assertThat(second.getContentHash()).isEqualTo(first.getContentHash());
+        assertThat(Files.readString(received)).isEqualTo("in use");
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(received);
+        }
+    }
+
+    private static ByteArrayInputStream body() {
+        return new ByteArrayInputStream(DOCUMENT.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+package com.temporal.initiations.batching;
+
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import com.temporal.initiations.messages.domain.workflows.BatchSummary;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Running per-batch totals, kept as payments are assigned to batches.
+ * <p>
+ * This is the {@code GROUP BY BatchKey} of the persisted payments computed on the way in, so
+ * nothing has to be read back once the file has been written. Totals are held in arrays indexed
+ * by batch ordinal.
+ */
+public final class BatchAggregates {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private BigDecimal[] sums = new BigDecimal[INITIAL_CAPACITY];
+    private String[] minDates = new String[INITIAL_CAPACITY];
+    private String[] maxDates = new String[INITIAL_CAPACITY];
+    private long[] firstSequences = new long[INITIAL_CAPACITY];
+    private long[] lastSequences = new long[INITIAL_CAPACITY];
+    private String[] firstEndToEndIds = new String[INITIAL_CAPACITY];
+    private String[] lastEndToEndIds = new String[INITIAL_CAPACITY];
+
+    /**
+     * Rebuilds the totals from summaries taken earlier, one per batch in ordinal order.
+     */
+    public static BatchAggregates restore(List<BatchSummary> summaries) {
+        var aggregates = new BatchAggregates();
+        for (int batch = 0; batch < summaries.size(); batch++) {
+            var summary = summaries.get(batch);
+            aggregates.open(batch);
+            aggregates.counts[batch] = summary.getPaymentCount();
+            aggregates.sums[batch] = summary.getControlSum();
+            aggregates.minDates[batch] = summary.getMinExecutionDate();
+            aggregates.maxDates[batch] = summary.getMaxExecutionDate();
+            aggregates.firstSequences[batch] = summary.getFirstSequence();
+            aggregates.lastSequences[batch] = summary.getLastSequence();
+            aggregates.firstEndToEndIds[batch] = summary.getFirstEndToEndId();
+            aggregates.lastEndToEndIds[batch] = summary.getLastEndToEndId();
+        }
+        return aggregates;
+    }
+
+    /**
+     * Adds a payment to the totals of its batch.
+     *
+     * @param batch The ordinal returned by {@link BatchGrouping#assign}
+     */
+    public void add(int batch, PaymentRecord payment) {
+        if (batch >= size) {
+            open(batch);
+        }
+        var date = payment.paymentInformation().requestedExecutionDate();
+        if (counts[batch] == 0) {
+            sums[batch] = payment.instructedAmount();
+            minDates[batch] = date;
+            maxDates[batch] = date;
+            firstSequences[batch] = payment.sequence();
+            firstEndToEndIds[batch] = payment.endToEndId();
+        } else {
+            sums[batch] = sums[batch].add(payment.instructedAmount());
+            // ReqdExctnDt is an ISO date, so text order is date order
+            if (date != null && (minDates[batch] == null || date.compareTo(minDates[batch]) < 0)) {
+                minDates[batch] = date;
+            }
+            if (date != null && (maxDates[batch] == null || date.compareTo(maxDates[batch]) > 0)) {
+                maxDates[batch] = date;
+            }
+        }
+        counts[batch]++;
+        lastSequences[batch] = payment.sequence();
+        lastEndToEndIds[batch] = payment.endToEndId();
+    }
+
+    /**
+     * @return Whether the batch has a payment at or after {@code sequence}, that is whether its
+     * totals have changed since every payment before it was counted
+     */
+    public boolean hasPaymentsFrom(int batch, long sequence) {
+        return lastSequences[batch] >= sequence;
+    }
+
+    /**
+     * @return The number of batches with at least one payment
+     */
+    public int size() {
+        return size;
+    }
+
+    public BatchSummary summary(int batch, String batchId, String batchKey) {
+        var summary = new BatchSummary();
+        summary.setBatchId(batchId);
+        summary.setBatchKey(batchKey);
+        summary.setPaymentCount(counts[batch]);
+        summary.setControlSum(sums[batch]);
+        summary.setMinExecutionDate(minDates[batch]);
+        summary.setMaxExecutionDate(maxDates[batch]);
+        summary.setFirstSequence(firstSequences[batch]);
+        summary.setLastSequence(lastSequences[batch]);
+        summary.setFirstEndToEndId(firstEndToEndIds[batch]);
+        summary.setLastEndToEndId(lastEndToEndIds[batch]);
+        return summary;
+    }
+
+    private void open(int batch) {
+        if (batch >= counts.length) {
+            int capacity = Math.max(batch + 1, counts.length * 2);
+            counts = Arrays.copyOf(counts, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+            minDates = Arrays.copyOf(minDates, capacity);
+            maxDates = Arrays.copyOf(maxDates, capacity);
+            firstSequences = Arrays.copyOf(firstSequences, capacity);
+            lastSequences = Arrays.copyOf(lastSequences, capacity);
+            firstEndToEndIds = Arrays.copyOf(firstEndToEndIds, capacity);
+            lastEndToEndIds = Arrays.copyOf(lastEndToEndIds, capacity);
+        }
+        size = batch + 1;
+    }
+}
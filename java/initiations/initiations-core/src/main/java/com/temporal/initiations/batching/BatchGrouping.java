@@ -0,0 +1,109 @@
+package com.temporal.initiations.batching;
+
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns the payments of one file to batches by BatchKey as they stream past.
+ * <p>
+ * Batches are numbered from 0 in the order their first payment appears, so the same file and
+ * profile always produce the same grouping. Keys live in an open-addressing table of ints that
+ * points at the first payment of each batch, so assigning a payment allocates nothing unless it
+ * opens a new batch.
+ */
+public final class BatchGrouping {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final BatchKeyRules rules;
+    private final List<PaymentRecord> exemplars = new ArrayList<>();
+    // batch ordinal + 1 per slot, 0 for an empty slot
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int[] slotHashes = new int[INITIAL_CAPACITY];
+    private PaymentRecord lastPayment;
+    private int lastBatch = -1;
+
+    BatchGrouping(BatchKeyRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @return The ordinal of the batch the payment belongs to
+     */
+    public int assign(PaymentRecord payment) {
+        // consecutive payments nearly always share a batch, so try the previous one before hashing
+        if (lastPayment != null && rules.same(lastPayment, payment)) {
+            lastPayment = payment;
+            return lastBatch;
+        }
+        int hash = rules.hash(payment);
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0) {
+            int batch = slots[slot] - 1;
+            if (slotHashes[slot] == hash && rules.same(exemplars.get(batch), payment)) {
+                return remember(payment, batch);
+            }
+            slot = (slot + 1) & mask;
+        }
+        int batch = exemplars.size();
+        exemplars.add(payment);
+        slots[slot] = batch + 1;
+        slotHashes[slot] = hash;
+        if (exemplars.size() * 2 > slots.length) {
+            resize();
+        }
+        return remember(payment, batch);
+    }
+
+    /**
+     * @return The number of batches seen so far
+     */
+    public int size() {
+        return exemplars.size();
+    }
+
+    /**
+     * @return The first payment assigned to the batch
+     */
+    public PaymentRecord exemplar(int batch) {
+        return exemplars.get(batch);
+    }
+
+    /**
+     * @return The readable BatchKey of the batch
+     */
+    public String key(int batch) {
+        return rules.describe(exemplars.get(batch));
+    }
+
+    private int remember(PaymentRecord payment, int batch) {
+        lastPayment = payment;
+        lastBatch = batch;
+        return batch;
+    }
+
+    private void resize() {
+        var oldSlots = slots;
+        var oldHashes = slotHashes;
+        slots = new int[oldSlots.length * 2];
+        slotHashes = new int[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                slotHashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+}
@@ -0,0 +1,191 @@
+package com.temporal.initiations.batching;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import com.temporal.initiations.messages.domain.workflows.BatchingCriterion;
+import com.temporal.initiations.messages.domain.workflows.BatchingProfile;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * BatchKey rules compiled from a customer's {@link BatchingProfile}.
+ * <p>
+ * The profile is resolved once into a fixed array of field rules, so evaluating a payment is a few
+ * field reads and comparisons with no lookups, reflection or allocation. Compiled rules are
+ * immutable and cached per profile; per-file state lives in the {@link BatchGrouping} they create.
+ */
+public final class BatchKeyRules {
+
+    /**
+     * Criteria used when the customer has not configured any: one batch per debtor, method,
+     * execution date and currency.
+     */
+    public static final List<BatchingCriterion> DEFAULT_CRITERIA = List.of(
+            BatchingCriterion.PAYMENT_METHOD,
+            BatchingCriterion.DEBTOR_ACCOUNT,
+            BatchingCriterion.EXECUTION_DATE,
+            BatchingCriterion.CURRENCY);
+
+    private static final LoadingCache<BatchingProfile, BatchKeyRules> COMPILED = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build(CacheLoader.from(BatchKeyRules::new));
+
+    private interface Rule {
+        /**
+         * @return Whether the rule only reads {@code PmtInf} fields, which every payment of a block shares
+         */
+        boolean isHeaderLevel();
+
+        int hash(PaymentRecord payment);
+
+        boolean same(PaymentRecord a, PaymentRecord b);
+
+        void describe(PaymentRecord payment, StringBuilder key);
+    }
+
+    private record FieldRule(boolean isHeaderLevel, Function<PaymentRecord, String> field) implements Rule {
+        @Override
+        public int hash(PaymentRecord payment) {
+            return Objects.hashCode(field.apply(payment));
+        }
+
+        @Override
+        public boolean same(PaymentRecord a, PaymentRecord b) {
+            return Objects.equals(field.apply(a), field.apply(b));
+        }
+
+        @Override
+        public void describe(PaymentRecord payment, StringBuilder key) {
+            key.append(field.apply(payment));
+        }
+    }
+
+    private record ValueBandRule(BigDecimal[] upperBounds) implements Rule {
+        @Override
+        public boolean isHeaderLevel() {
+            return false;
+        }
+
+        @Override
+        public int hash(PaymentRecord payment) {
+            return band(payment);
+        }
+
+        @Override
+        public boolean same(PaymentRecord a, PaymentRecord b) {
+            return band(a) == band(b);
+        }
+
+        @Override
+        public void describe(PaymentRecord payment, StringBuilder key) {
+            key.append('V').append(band(payment));
+        }
+
+        private int band(PaymentRecord payment) {
+            var amount = payment.instructedAmount();
+            int low = 0;
+            int high = upperBounds.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (amount.compareTo(upperBounds[mid]) < 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final Rule[] rules;
+    private final boolean isHeaderOnly;
+
+    private BatchKeyRules(BatchingProfile profile) {
+        var criteria = profile.criteria().isEmpty() ? DEFAULT_CRITERIA : profile.criteria();
+        var compiled = new ArrayList<Rule>();
+        for (var criterion : criteria.stream().distinct().toList()) {
+            compiled.add(switch (criterion) {
+                case CURRENCY -> new FieldRule(false, PaymentRecord::currency);
+                case DEBTOR_ACCOUNT -> new FieldRule(true, p -> p.paymentInformation().debtorAccount());
+                case EXECUTION_DATE -> new FieldRule(true, p -> p.paymentInformation().requestedExecutionDate());
+                case PAYMENT_METHOD -> new FieldRule(true, p -> p.paymentInformation().paymentMethod());
+                case VALUE_BAND -> new ValueBandRule(upperBounds(profile));
+            });
+        }
+        this.rules = compiled.toArray(Rule[]::new);
+        this.isHeaderOnly = compiled.stream().allMatch(Rule::isHeaderLevel);
+    }
+
+    /**
+     * @param profile The customer's profile, or null for {@link #DEFAULT_CRITERIA}
+     */
+    public static BatchKeyRules forProfile(BatchingProfile profile) {
+        return COMPILED.getUnchecked(profile == null ? new BatchingProfile() : profile);
+    }
+
+    /**
+     * @return An empty grouping for one file
+     */
+    public BatchGrouping newGrouping() {
+        return new BatchGrouping(this);
+    }
+
+    /**
+     * Rebuilds a grouping from the exemplars of an earlier one, so batch ordinals carry on where it left off.
+     *
+     * @param exemplars The first payment of every batch, in ordinal order, as from {@link BatchGrouping#exemplar(int)}
+     */
+    public BatchGrouping newGrouping(List<PaymentRecord> exemplars) {
+        var grouping = new BatchGrouping(this);
+        for (var exemplar : exemplars) {
+            grouping.assign(exemplar);
+        }
+        return grouping;
+    }
+
+    int hash(PaymentRecord payment) {
+        int hash = 1;
+        for (var rule : rules) {
+            hash = 31 * hash + rule.hash(payment);
+        }
+        return hash;
+    }
+
+    boolean same(PaymentRecord a, PaymentRecord b) {
+        // payments of one PmtInf block share every header field, which is the common case for a stream
+        boolean sameBlock = a.paymentInformation() == b.paymentInformation();
+        if (sameBlock && isHeaderOnly) {
+            return true;
+        }
+        for (var rule : rules) {
+            if (!(sameBlock && rule.isHeaderLevel()) && !rule.same(a, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The readable BatchKey of a payment, e.g. {@code TRF|DE89370400440532013000|2026-10-19|EUR}
+     */
+    public String describe(PaymentRecord payment) {
+        var key = new StringBuilder();
+        for (int i = 0; i < rules.length; i++) {
+            if (i > 0) {
+                key.append('|');
+            }
+            rules[i].describe(payment, key);
+        }
+        return key.toString();
+    }
+
+    private static BigDecimal[] upperBounds(BatchingProfile profile) {
+        return profile.valueBandUpperBounds().stream().sorted().toArray(BigDecimal[]::new);
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Grouping of payments into batches by BatchKey.
+ *
+ * This package contains:
+ * - BatchKeyRules: a customer's batching profile compiled into allocation-free field rules
+ * - BatchGrouping: assigns a file's streaming payments to batches in first-seen order
+ * - BatchAggregates: running per-batch counts, control sums, date and payment ranges
+ */
+package com.temporal.initiations.batching;
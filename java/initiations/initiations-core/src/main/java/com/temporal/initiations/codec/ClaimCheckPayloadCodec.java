@@ -0,0 +1,190 @@
+package com.temporal.initiations.codec;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.temporal.initiations.storage.BlobStore;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PayloadCodecException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Moves large payloads out of workflow history and into a {@link BlobStore}.
+ * <p>
+ * Any payload whose serialized size reaches the threshold is compressed and stored under the
+ * SHA-256 of its serialized bytes, and history only records a small reference payload carrying
+ * the hash. Identical payloads, such as the file state returned to repeated queries,
+ * therefore share one blob. Payloads below the threshold, and payloads written before the codec
+ * was enabled, pass through unchanged.
+ * <p>
+ * Recently encoded and decoded payloads are held in an LRU cache bounded by their total size, so
+ * replays and repeated queries of a hot workflow do not go back to the store.
+ * <p>
+ * Blobs last stored before the retention period are deleted; encoding a payload stores it again,
+ * so only blobs no history has referenced for that long go. The retention must therefore cover
+ * the longest a workflow runs plus the namespace's own retention of closed histories, after which
+ * Temporal no longer serves them.
+ */
+public final class ClaimCheckPayloadCodec implements PayloadCodec {
+
+    /**
+     * Value of the {@code encoding} metadata on a reference payload.
+     */
+    public static final String ENCODING = "claim-check/sha256";
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimCheckPayloadCodec.class);
+    private static final ByteString ENCODING_NAME = ByteString.copyFromUtf8(ENCODING);
+    private static final Duration SWEEP_INTERVAL = Duration.ofHours(1);
+
+    private final BlobStore store;
+    private final int thresholdBytes;
+    private final Cache<String, Payload> cache;
+    private final Duration retention;
+    private final Clock clock;
+    private final AtomicLong lastSweepMillis;
+
+    /**
+     * @param store Where claim-checked payloads are kept; every client reading the history must see the same store
+     * @param thresholdBytes Payloads at least this large, once serialized, are claim-checked
+     * @param cacheBytes Upper bound on the serialized size of payloads held in the read cache
+     * @param retention How long a blob is kept after it was last stored
+     */
+    public ClaimCheckPayloadCodec(BlobStore store, int thresholdBytes, long cacheBytes, Duration retention, Clock clock) {
+        this.store = store;
+        this.thresholdBytes = thresholdBytes;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(cacheBytes)
+                .<String, Payload>weigher((key, payload) -> payload.getSerializedSize())
+                .build();
+        this.retention = retention;
+        this.clock = clock;
+        // the first sweep waits an interval, so a fleet restarting together does not walk the store at once
+        this.lastSweepMillis = new AtomicLong(clock.millis());
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        return payloads.stream().map(this::encode).toList();
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        return payloads.stream().map(this::decode).toList();
+    }
+
+    /**
+     * Deletes every blob last stored before the retention period.
+     *
+     * @return The number of blobs deleted
+     */
+    public int evictExpired() throws IOException {
+        var cutoff = clock.instant().minus(retention);
+        int deleted = store.deleteStoredBefore(cutoff);
+        if (deleted > 0) {
+            logger.info("Deleted {} claim-checked payloads last stored before {}", deleted, cutoff);
+        }
+        return deleted;
+    }
+
+    private Payload encode(Payload payload) {
+        if (payload.getSerializedSize() < thresholdBytes) {
+            return payload;
+        }
+        sweepIfDue();
+        var bytes = payload.toByteArray();
+        var key = Hashing.sha256().hashBytes(bytes).toString();
+        // stored again even when cached, as the new reference has to outlive the retention from now
+        try {
+            store.put(key, deflate(bytes));
+        } catch (IOException e) {
+            throw new PayloadCodecException("Unable to store claim-checked payload " + key, e);
+        }
+        cache.put(key, payload);
+        return Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING_NAME)
+                .setData(ByteString.copyFromUtf8(key))
+                .build();
+    }
+
+    private Payload decode(Payload payload) {
+        if (!ENCODING_NAME.equals(payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, ByteString.EMPTY))) {
+            return payload;
+        }
+        var key = payload.getData().toStringUtf8();
+        var cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        var loaded = load(key);
+        cache.put(key, loaded);
+        return loaded;
+    }
+
+    private Payload load(String key) {
+        byte[] bytes;
+        try {
+            var stored = store.get(key)
+                    .orElseThrow(() -> new PayloadCodecException("Claim-checked payload " + key + " is not in the blob store"));
+            bytes = inflate(stored);
+        } catch (IOException e) {
+            throw new PayloadCodecException("Unable to read claim-checked payload " + key, e);
+        }
+        if (!Hashing.sha256().hashBytes(bytes).toString().equals(key)) {
+            throw new PayloadCodecException("Claim-checked payload " + key + " does not match its hash");
+        }
+        try {
+            return Payload.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException e) {
+            throw new PayloadCodecException("Claim-checked payload " + key + " is corrupt", e);
+        }
+    }
+
+    private void sweepIfDue() {
+        long now = clock.millis();
+        long last = lastSweepMillis.get();
+        if (now - last >= SWEEP_INTERVAL.toMillis() && lastSweepMillis.compareAndSet(last, now)) {
+            try {
+                evictExpired();
+            } catch (IOException e) {
+                // the payload at hand does not depend on the sweep, and the next one retries it
+                logger.warn("Unable to delete expired claim-checked payloads", e);
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        var out = new ByteArrayOutputStream(bytes.length / 4);
+        var deflater = new Deflater(Deflater.BEST_SPEED);
+        try (var deflating = new DeflaterOutputStream(out, deflater)) {
+            deflating.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] bytes) throws IOException {
+        try (var inflating = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return inflating.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.temporal.initiations.codec;
+
+import com.temporal.initiations.storage.FileSystemBlobStore;
+import io.temporal.common.converter.CodecDataConverter;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.payload.codec.PayloadCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+
+/**
+ * Data converter shared by the workers and the API.
+ * <p>
+ * Both applications import this configuration so that everything written to history by one can
+ * be read back by the other. The Temporal Spring Boot starter picks up the
+ * {@code mainDataConverter} bean for its clients and workers. With no codec enabled it is the
+ * standard Jackson JSON converter.
+ * <p>
+ * Codecs are listed outermost first, and Temporal encodes from the end of the list. Compression
+ * therefore runs before the claim-check, which only has to store what compression could not shrink.
+ */
+@Configuration
+public class PayloadCodecConfiguration {
+
+    @Bean
+    public DataConverter mainDataConverter(
+            @Value("${initiations.payloads.claim-check.enabled:false}") boolean claimCheckEnabled,
+            @Value("${initiations.payloads.claim-check.path:data/payload-blobs}") String claimCheckPath,
+            @Value("${initiations.payloads.claim-check.threshold:64KB}") DataSize claimCheckThreshold,
+            @Value("${initiations.payloads.claim-check.cache-size:64MB}") DataSize claimCheckCacheSize,
+            @Value("${initiations.payloads.claim-check.retention:90d}") Duration claimCheckRetention,
+            @Value("${initiations.payloads.compression.enabled:false}") boolean compressionEnabled,
+            @Value("${initiations.payloads.compression.threshold:4KB}") DataSize compressionThreshold,
+            @Value("${initiations.payloads.compression.level:3}") int compressionLevel) throws IOException {
+        var codecs = new ArrayList<PayloadCodec>();
+        if (claimCheckEnabled) {
+            codecs.add(new ClaimCheckPayloadCodec(
+                    new FileSystemBlobStore(Path.of(claimCheckPath)),
+                    Math.toIntExact(claimCheckThreshold.toBytes()),
+                    claimCheckCacheSize.toBytes(),
+                    claimCheckRetention,
+                    Clock.systemUTC()));
+        }
+        if (compressionEnabled) {
+            codecs.add(new ZstdPayloadCodec(Math.toIntExact(compressionThreshold.toBytes()), compressionLevel));
+        }
+        if (codecs.isEmpty()) {
+            return DefaultDataConverter.STANDARD_INSTANCE;
+        }
+        return new CodecDataConverter(DefaultDataConverter.STANDARD_INSTANCE, codecs);
+    }
+}
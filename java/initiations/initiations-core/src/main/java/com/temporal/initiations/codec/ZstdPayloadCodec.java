@@ -0,0 +1,78 @@
+package com.temporal.initiations.codec;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PayloadCodecException;
+
+import java.util.List;
+
+/**
+ * Compresses payloads with zstd.
+ * <p>
+ * The whole serialized payload, including its original metadata, becomes the data of a new
+ * payload whose {@code encoding} metadata is {@value #ENCODING}. Payloads below the threshold,
+ * and payloads that zstd cannot make smaller, are left as they are, so small workflow arguments
+ * cost nothing and history written before compression was enabled still decodes.
+ */
+public final class ZstdPayloadCodec implements PayloadCodec {
+
+    /**
+     * Value of the {@code encoding} metadata on a compressed payload.
+     */
+    public static final String ENCODING = "binary/zstd";
+
+    private static final ByteString ENCODING_NAME = ByteString.copyFromUtf8(ENCODING);
+
+    private final int thresholdBytes;
+    private final int level;
+
+    /**
+     * @param thresholdBytes Payloads at least this large, once serialized, are compressed
+     * @param level zstd compression level; low levels favour worker CPU over history size
+     */
+    public ZstdPayloadCodec(int thresholdBytes, int level) {
+        this.thresholdBytes = thresholdBytes;
+        this.level = level;
+    }
+
+    @Override
+    public List<Payload> encode(List<Payload> payloads) {
+        return payloads.stream().map(this::encode).toList();
+    }
+
+    @Override
+    public List<Payload> decode(List<Payload> payloads) {
+        return payloads.stream().map(this::decode).toList();
+    }
+
+    private Payload encode(Payload payload) {
+        if (payload.getSerializedSize() < thresholdBytes) {
+            return payload;
+        }
+        var bytes = payload.toByteArray();
+        var compressed = Zstd.compress(bytes, level);
+        if (compressed.length >= bytes.length) {
+            return payload;
+        }
+        return Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ENCODING_NAME)
+                .setData(ByteString.copyFrom(compressed))
+                .build();
+    }
+
+    private Payload decode(Payload payload) {
+        if (!ENCODING_NAME.equals(payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, ByteString.EMPTY))) {
+            return payload;
+        }
+        try {
+            return Payload.parseFrom(Zstd.decompress(payload.getData().toByteArray()));
+        } catch (ZstdException | InvalidProtocolBufferException e) {
+            throw new PayloadCodecException("Unable to decompress zstd payload", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Temporal payload codecs.
+ *
+ * This package contains:
+ * - ClaimCheckPayloadCodec: moves large payloads out of history into a content-addressed blob store
+ * - ZstdPayloadCodec: compresses payloads above a size threshold
+ * - PayloadCodecConfiguration: the data converter used by both the workers and the API
+ */
+package com.temporal.initiations.codec;
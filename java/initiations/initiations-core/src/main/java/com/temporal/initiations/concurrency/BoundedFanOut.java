@@ -0,0 +1,100 @@
+package com.temporal.initiations.concurrency;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a blocking call for every item of a list with a fixed number of calls in flight.
+ * <p>
+ * Each call runs on its own virtual thread, so thousands of blocking gRPC round trips cost no more
+ * than the concurrency limit allows. Completion is coordinated from the calling thread, which reports
+ * a low watermark: every item before it has completed. Callers heartbeat the watermark so a retried
+ * activity can resume from it instead of starting over.
+ */
+public final class BoundedFanOut {
+
+    /**
+     * The per-item call.
+     */
+    @FunctionalInterface
+    public interface Task<T, R> {
+        R apply(int index, T item) throws Exception;
+    }
+
+    private record Completed<R>(int index, R result) {
+    }
+
+    private BoundedFanOut() {
+    }
+
+    /**
+     * Applies {@code task} to {@code items[from..]} with at most {@code concurrency} calls in flight.
+     *
+     * @param items Every item, including those already handled by an earlier attempt
+     * @param from Index to resume from; items before it are skipped
+     * @param concurrency Maximum number of calls in flight
+     * @param task The blocking call to make per item
+     * @param progress Called on the calling thread whenever the watermark advances; may throw to abort
+     * @return Results by index, with null for skipped items
+     */
+    public static <T, R> List<R> run(List<T> items,
+                                     int from,
+                                     int concurrency,
+                                     Task<T, R> task,
+                                     IntConsumer progress) throws InterruptedException {
+        var results = new ArrayList<R>(Collections.nCopies(items.size(), null));
+        var done = new BitSet(items.size());
+        int watermark = from;
+        int next = from;
+        int inFlight = 0;
+
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            var completions = new ExecutorCompletionService<Completed<R>>(executor);
+            while (inFlight > 0 || next < items.size()) {
+                while (inFlight < Math.max(1, concurrency) && next < items.size()) {
+                    int index = next++;
+                    var item = items.get(index);
+                    completions.submit(() -> new Completed<>(index, task.apply(index, item)));
+                    inFlight++;
+                }
+                var completed = take(completions);
+                inFlight--;
+                results.set(completed.index(), completed.result());
+                done.set(completed.index());
+                int advanced = done.nextClearBit(watermark);
+                if (advanced != watermark) {
+                    watermark = advanced;
+                    progress.accept(watermark);
+                }
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            // abandon whatever is still in flight, the caller is retried from the last watermark
+            executor.shutdownNow();
+            throw e;
+        } finally {
+            executor.close();
+        }
+        return results;
+    }
+
+    private static <R> Completed<R> take(ExecutorCompletionService<Completed<R>> completions) throws InterruptedException {
+        try {
+            return completions.take().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.temporal.initiations.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects concurrent requests that share a key and hands them to a handler as one group.
+ * <p>
+ * The first request for a key opens a group that stays open for a short window, or until it holds
+ * {@code maxSize} requests, whichever comes first. The handler is then called once with every
+ * request of the group, on its own virtual thread, and each caller's future completes with the
+ * result at its position. If the handler fails, every request in the group fails with it.
+ * <p>
+ * Coalescing happens within one worker process only; requests for the same key on other workers
+ * form their own groups.
+ */
+public final class Coalescer<K, T, R> implements AutoCloseable {
+
+    /**
+     * Handles a whole group at once.
+     */
+    @FunctionalInterface
+    public interface Handler<K, T, R> {
+        /**
+         * @return One result per item, in the same order as {@code items}
+         */
+        List<R> handle(K key, List<T> items) throws Exception;
+    }
+
+    private static final class Group<T, R> {
+        private final List<T> items = new ArrayList<>();
+        private final List<CompletableFuture<R>> futures = new ArrayList<>();
+    }
+
+    private final Duration window;
+    private final int maxSize;
+    private final Handler<K, T, R> handler;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // guarded by this
+    private final Map<K, Group<T, R>> open = new HashMap<>();
+
+    /**
+     * @param name Used to name the timer thread
+     * @param window How long a group stays open after its first request
+     * @param maxSize A group is handled as soon as it holds this many requests
+     * @param handler Called once per group
+     */
+    public Coalescer(String name, Duration window, int maxSize, Handler<K, T, R> handler) {
+        this.window = window;
+        this.maxSize = Math.max(1, maxSize);
+        this.handler = handler;
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name(name + "-coalescer").factory());
+    }
+
+    /**
+     * Adds {@code item} to the open group for {@code key}, opening one if there is none.
+     *
+     * @return Completes with this item's result once its group has been handled
+     */
+    public CompletableFuture<R> submit(K key, T item) {
+        var future = new CompletableFuture<R>();
+        Group<T, R> full = null;
+        synchronized (this) {
+            var group = open.get(key);
+            if (group == null) {
+                var opened = new Group<T, R>();
+                open.put(key, opened);
+                timer.schedule(() -> close(key, opened), window.toMillis(), TimeUnit.MILLISECONDS);
+                group = opened;
+            }
+            group.items.add(item);
+            group.futures.add(future);
+            if (group.items.size() >= maxSize) {
+                open.remove(key);
+                full = group;
+            }
+        }
+        if (full != null) {
+            dispatch(key, full);
+        }
+        return future;
+    }
+
+    /**
+     * Handles every open group immediately and stops accepting timers.
+     */
+    @Override
+    public void close() {
+        Map<K, Group<T, R>> remaining;
+        synchronized (this) {
+            remaining = new HashMap<>(open);
+            open.clear();
+        }
+        timer.shutdownNow();
+        remaining.forEach(this::dispatch);
+        executor.close();
+    }
+
+    private void close(K key, Group<T, R> group) {
+        synchronized (this) {
+            // the group may already have been handled because it filled up
+            if (!open.remove(key, group)) {
+                return;
+            }
+        }
+        dispatch(key, group);
+    }
+
+    private void dispatch(K key, Group<T, R> group) {
+        executor.execute(() -> {
+            try {
+                var results = handler.handle(key, group.items);
+                if (results.size() != group.items.size()) {
+                    throw new IllegalStateException("Handler returned " + results.size()
+                            + " results for " + group.items.size() + " items");
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    group.futures.get(i).complete(results.get(i));
+                }
+            } catch (Exception e) {
+                group.futures.forEach(future -> future.completeExceptionally(e));
+            }
+        });
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Concurrency helpers shared by activities.
+ *
+ * This package contains:
+ * - BoundedFanOut: bounded-concurrency blocking calls on virtual threads with a resumable watermark
+ * - Coalescer: groups concurrent requests sharing a key into one call
+ */
+package com.temporal.initiations.concurrency;
@@ -0,0 +1,125 @@
+package com.temporal.initiations.fraud;
+
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link FraudGateway} that exchanges files with GFD through a shared directory.
+ * <p>
+ * Fraud check files are dropped into {@code outbound/}, one line per batch with the batch id and the
+ * payment file path separated by a tab. GFD, or a fake standing in for it, writes each verdict to
+ * {@code inbound/<fileId>/<batchId>.result}.
+ * <p>
+ * A batch is only ever sent once. Each submitted batch leaves a marker in
+ * {@code submitted/<fileId>/}, and a retry, alone or grouped with other batches, leaves out
+ * batches already marked. A check file is named after the batches it covers, so a retry that
+ * failed after the file was written but before its batches were marked finds it in place.
+ */
+@Component
+public class FileSystemFraudGateway implements FraudGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemFraudGateway.class);
+
+    private final Path outbound;
+    private final Path inbound;
+    private final Path submitted;
+
+    public FileSystemFraudGateway(@Value("${initiations.fraud.gfd.path:data/gfd}") String root) {
+        this.outbound = Path.of(root, "outbound");
+        this.inbound = Path.of(root, "inbound");
+        this.submitted = Path.of(root, "submitted");
+    }
+
+    @Override
+    public List<String> submit(FileInfo fileInfo, List<String> batchIds) throws IOException {
+        var results = new ArrayList<String>(batchIds.size());
+        var resultDir = inbound.resolve(fileInfo.getFileId());
+        var markerDir = submitted.resolve(fileInfo.getFileId());
+        var unsent = new ArrayList<String>(batchIds.size());
+        for (var batchId : batchIds) {
+            results.add(resultDir.resolve(batchId + ".result").toString());
+            if (!Files.exists(markerDir.resolve(batchId))) {
+                unsent.add(batchId);
+            }
+        }
+        if (unsent.isEmpty()) {
+            logger.info("All {} batches of file {} were already submitted for fraud checks", batchIds.size(), fileInfo.getFileId());
+            return results;
+        }
+
+        Files.createDirectories(outbound);
+        Files.createDirectories(resultDir);
+        Files.createDirectories(markerDir);
+        var target = outbound.resolve(checkFileName(fileInfo.getFileId(), unsent));
+        if (Files.exists(target)) {
+            logger.info("Fraud check {} was already submitted", target);
+        } else {
+            var lines = new StringBuilder();
+            for (var batchId : unsent) {
+                lines.append(batchId).append('\t').append(fileInfo.getFilePath()).append('\n');
+            }
+            var temp = Files.createTempFile(outbound, fileInfo.getFileId(), ".tmp");
+            try {
+                Files.writeString(temp, lines);
+                // GFD picks up anything ending in .gfd, so only rename once it is complete
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            logger.info("Submitted fraud check {} covering {} batches of file {}", target, unsent.size(), fileInfo.getFileId());
+        }
+        for (var batchId : unsent) {
+            try {
+                Files.createFile(markerDir.resolve(batchId));
+            } catch (FileAlreadyExistsException e) {
+                // marked by a concurrent attempt that sent it in a check of its own
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Optional<String> poll(String fraudCheckFilePath) throws IOException {
+        try {
+            return Optional.of(Files.readString(Path.of(fraudCheckFilePath)).trim());
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return The file id plus a hash of the sorted batch ids, the same for the same batches in any order
+     */
+    private static String checkFileName(String fileId, List<String> batchIds) {
+        var sorted = new ArrayList<>(batchIds);
+        sorted.sort(null);
+        var digest = newDigest();
+        sorted.forEach(batchId -> digest.update((batchId + "\n").getBytes(StandardCharsets.UTF_8)));
+        return fileId + "-" + HexFormat.of().formatHex(digest.digest(), 0, 8) + ".gfd";
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", e);
+        }
+    }
+}
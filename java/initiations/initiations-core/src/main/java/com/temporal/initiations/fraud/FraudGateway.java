@@ -0,0 +1,26 @@
+package com.temporal.initiations.fraud;
+
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Connection to GFD, the fraud detection service.
+ */
+public interface FraudGateway {
+
+    /**
+     * Submits one fraud check file covering every given batch of a payment file.
+     *
+     * @return Where GFD will publish the result of each batch, in the same order as {@code batchIds}
+     */
+    List<String> submit(FileInfo fileInfo, List<String> batchIds) throws IOException;
+
+    /**
+     * @param fraudCheckFilePath A location returned by {@link #submit}
+     * @return The verdict for the batch, or empty while GFD is still checking it
+     */
+    Optional<String> poll(String fraudCheckFilePath) throws IOException;
+}
@@ -0,0 +1,56 @@
+package com.temporal.initiations.fraud;
+
+import com.temporal.initiations.concurrency.Coalescer;
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import com.temporal.initiations.messages.domain.workflows.StartFraudCheckRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Submits fraud checks to GFD one payment file at a time rather than one batch at a time.
+ * <p>
+ * Start requests from batches of the same file that arrive within the submit window are written as
+ * a single fraud check file, and each batch gets back the location of its own result.
+ */
+@Component
+public class FraudSubmitter implements AutoCloseable {
+
+    private final Coalescer<String, StartFraudCheckRequest, String> coalescer;
+
+    public FraudSubmitter(FraudGateway gateway,
+                          @Value("${initiations.fraud.submit-window:500ms}") Duration window,
+                          @Value("${initiations.fraud.submit-max-batches:1000}") int maxBatches) {
+        this.coalescer = new Coalescer<>("fraud-submit", window, maxBatches, (fileId, requests) -> {
+            FileInfo fileInfo = requests.getFirst().getFileInfo();
+            return gateway.submit(fileInfo, requests.stream().map(StartFraudCheckRequest::getBatchId).toList());
+        });
+    }
+
+    /**
+     * Blocks until the batch has been submitted as part of its file's fraud check.
+     *
+     * @return Where GFD will publish the result for this batch
+     */
+    public String submit(StartFraudCheckRequest request) throws IOException, InterruptedException {
+        try {
+            return coalescer.submit(request.getFileInfo().getFileId(), request).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        coalescer.close();
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Integration with GFD, the fraud detection service.
+ *
+ * This package contains:
+ * - FraudGateway: submits fraud check files and polls for verdicts
+ * - FileSystemFraudGateway: exchanges files with GFD through a shared directory, also usable as a local fake
+ * - FraudSubmitter: coalesces the fraud checks of all batches of a file into one submission
+ */
+package com.temporal.initiations.fraud;
@@ -0,0 +1,293 @@
+package com.temporal.initiations.gpo;
+
+import com.temporal.initiations.concurrency.Coalescer;
+import com.temporal.initiations.messages.domain.workflows.TransmitBatchRequest;
+import com.temporal.initiations.messages.domain.workflows.TransmitBatchResponse;
+import com.temporal.initiations.pain.Pain001BatchMessage;
+import com.temporal.initiations.storage.PaymentIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+
+/**
+ * Transmits approved batches to GPO as pain.001 messages streamed out of the canonical file.
+ * <p>
+ * Each message is uploaded in chunks, and an upload that was cut short carries on from what GPO
+ * acknowledged. A batch GPO already holds is never sent again.
+ * <p>
+ * With coalescing on, batches of the same file approved within the coalescing window travel
+ * together as one transmission, so hundreds of tiny batches cost a handful of round trips. Every
+ * batch still gets its own response, naming the shared transmission. The transmission a batch is
+ * put in is recorded per batch before the upload starts (see {@link TransmissionClaims}), so a
+ * retried batch resumes that transmission whatever group it is retried in.
+ */
+@Component
+public class BatchTransmitter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchTransmitter.class);
+
+    /**
+     * What one attempt at a transmission did.
+     *
+     * @param resumedFromBytes Bytes GPO already held when the attempt started
+     */
+    private record Transmission(String transmissionId,
+                                String reference,
+                                long sizeBytes,
+                                String contentHash,
+                                int chunkCount,
+                                long resumedFromBytes,
+                                long durationNanos) {
+    }
+
+    private final GpoGateway gateway;
+    private final Path canonicalDirectory;
+    private final int chunkSize;
+    private final TransmissionClaims claims;
+    private final Coalescer<String, TransmitBatchRequest, TransmitBatchResponse> coalescer;
+
+    public BatchTransmitter(GpoGateway gateway,
+                            @Value("${initiations.files.canonical-path:data/canonical}") String canonicalPath,
+                            @Value("${initiations.gpo.chunk-size:4MB}") DataSize chunkSize,
+                            @Value("${initiations.gpo.coalescing.enabled:false}") boolean isCoalescing,
+                            @Value("${initiations.gpo.coalescing.window:2s}") Duration window,
+                            @Value("${initiations.gpo.coalescing.max-batches:200}") int maxBatches) {
+        this.gateway = gateway;
+        this.canonicalDirectory = Path.of(canonicalPath);
+        this.chunkSize = Math.toIntExact(chunkSize.toBytes());
+        this.claims = new TransmissionClaims(canonicalDirectory);
+        // every batch of a file shares one group header and goes to the same GPO destination
+        this.coalescer = isCoalescing
+                ? new Coalescer<>("gpo-transmit", window, maxBatches, this::transmitGroup)
+                : null;
+    }
+
+    public boolean isCoalescing() {
+        return coalescer != null;
+    }
+
+    /**
+     * Sends one batch as a transmission of its own, named after the batch, unless a coalesced
+     * transmission already claimed it, in which case that one is resumed.
+     *
+     * @param acknowledged Bytes reported acknowledged by an earlier attempt
+     * @param onAcknowledged Told the acknowledged byte count after every chunk
+     * @throws IllegalArgumentException If the batch is not in its file's payment index
+     */
+    public TransmitBatchResponse transmit(TransmitBatchRequest request, long acknowledged, LongConsumer onAcknowledged)
+            throws IOException {
+        var previous = gateway.findTransmission(request.getBatchId());
+        if (previous.isPresent()) {
+            return alreadyTransmitted(request, previous.get());
+        }
+        var fileId = request.getFileInfo().getFileId();
+        try (var index = openIndex(fileId)) {
+            int batch = find(index, fileId, request.getBatchId());
+            Optional<TransmissionClaims.Claim> claimed;
+            try (var locked = claims.lock(fileId)) {
+                claimed = locked.find(request.getBatchId());
+            }
+            if (claimed.isPresent()) {
+                return transmitGroup(fileId, List.of(request)).getFirst();
+            }
+            var transmission = send(index, request.getBatchId(), new int[] {batch}, acknowledged, onAcknowledged);
+            return response(request.getBatchId(), index.paymentCount(batch), 1, transmission);
+        }
+    }
+
+    /**
+     * Adds the batch to the open transmission for its file.
+     *
+     * @return Completes once the shared transmission is complete
+     * @throws IllegalArgumentException If the batch is not in its file's payment index, before it joins any group
+     * @throws IllegalStateException If coalescing is off
+     */
+    public CompletableFuture<TransmitBatchResponse> submit(TransmitBatchRequest request) throws IOException {
+        if (coalescer == null) {
+            throw new IllegalStateException("Transmission coalescing is not enabled");
+        }
+        var previous = gateway.findTransmission(request.getBatchId());
+        if (previous.isPresent()) {
+            return CompletableFuture.completedFuture(alreadyTransmitted(request, previous.get()));
+        }
+        // a batch that cannot be sent fails on its own instead of failing everything it is grouped with
+        var fileId = request.getFileInfo().getFileId();
+        try (var index = openIndex(fileId)) {
+            find(index, fileId, request.getBatchId());
+        }
+        return coalescer.submit(fileId, request);
+    }
+
+    @Override
+    public void close() {
+        if (coalescer != null) {
+            coalescer.close();
+        }
+    }
+
+    private List<TransmitBatchResponse> transmitGroup(String fileId, List<TransmitBatchRequest> requests) throws IOException {
+        // a retried batch can join the group its earlier attempt is still waiting in
+        var batchIds = new LinkedHashSet<String>();
+        requests.forEach(request -> batchIds.add(request.getBatchId()));
+        var transmitted = new HashMap<String, String>();
+        var groups = new LinkedHashMap<String, TransmissionClaims.Claim>();
+        var unclaimed = new ArrayList<String>();
+        try (var index = openIndex(fileId)) {
+            // each batch is looked up on its own, so one that was already sent or claimed, possibly with
+            // other batches on another worker, goes back to that transmission rather than into a second one
+            try (var locked = claims.lock(fileId)) {
+                for (var batchId : batchIds) {
+                    var previous = gateway.findTransmission(batchId);
+                    var claimed = previous.isPresent() ? Optional.<TransmissionClaims.Claim>empty() : locked.find(batchId);
+                    if (previous.isPresent()) {
+                        transmitted.put(batchId, previous.get());
+                    } else if (claimed.isPresent()) {
+                        groups.putIfAbsent(claimed.get().transmissionId(), claimed.get());
+                    } else {
+                        unclaimed.add(batchId);
+                    }
+                }
+                if (!unclaimed.isEmpty()) {
+                    var transmissionId = unclaimed.size() == 1 ? unclaimed.getFirst() : groupId(fileId, unclaimed);
+                    var claim = new TransmissionClaims.Claim(transmissionId, List.copyOf(unclaimed));
+                    locked.claim(claim);
+                    groups.put(transmissionId, claim);
+                }
+            }
+            var sent = new HashMap<String, TransmitBatchResponse>();
+            for (var claim : groups.values()) {
+                var batches = new int[claim.batchIds().size()];
+                for (int i = 0; i < batches.length; i++) {
+                    batches[i] = find(index, fileId, claim.batchIds().get(i));
+                }
+                var transmission = send(index, claim.transmissionId(), batches, Long.MAX_VALUE, acknowledged -> {
+                });
+                logger.info("Coalesced {} batches of file {} into transmission {}", batches.length, fileId, claim.transmissionId());
+                try (var locked = claims.lock(fileId)) {
+                    locked.release(claim);
+                }
+                for (int batch : batches) {
+                    sent.put(index.batchId(batch), response(index.batchId(batch), index.paymentCount(batch), batches.length, transmission));
+                }
+            }
+            var responses = new ArrayList<TransmitBatchResponse>(requests.size());
+            for (var request : requests) {
+                var reference = transmitted.get(request.getBatchId());
+                responses.add(reference != null ? alreadyTransmitted(request, reference) : sent.get(request.getBatchId()));
+            }
+            return responses;
+        }
+    }
+
+    private Transmission send(PaymentIndex index, String transmissionId, int[] batches, long acknowledged, LongConsumer onAcknowledged)
+            throws IOException {
+        try (var message = batches.length == 1 && transmissionId.equals(index.batchId(batches[0]))
+                ? Pain001BatchMessage.open(index, batches[0])
+                : Pain001BatchMessage.open(index, transmissionId, batches)) {
+            // GPO may have lost what it acknowledged, and may hold more than the caller last heard
+            long resumeFrom = Math.min(acknowledged, gateway.acknowledged(transmissionId));
+            if (resumeFrom > 0) {
+                logger.info("Resuming transmission {} at byte {} of {}", transmissionId, resumeFrom, message.size());
+            }
+            var digest = newContentDigest();
+            var chunk = ByteBuffer.allocate(chunkSize);
+            long position = 0;
+            int chunks = 0;
+            long started = System.nanoTime();
+            // a read only comes back short at the end of the message, so every attempt cuts the same chunks
+            while (message.read(chunk.clear()) > 0) {
+                chunk.flip();
+                digest.update(chunk.duplicate());
+                // the message is rebuilt from the start on a retry, and only hashed up to what GPO holds
+                if (position + chunk.limit() > resumeFrom) {
+                    chunk.position((int) Math.max(0, resumeFrom - position));
+                    gateway.upload(transmissionId, position + chunk.position(), chunk);
+                    chunks++;
+                    onAcknowledged.accept(position + chunk.limit());
+                }
+                position += chunk.limit();
+            }
+            var contentHash = HexFormat.of().formatHex(digest.digest());
+            var batchIds = new ArrayList<String>(batches.length);
+            for (int batch : batches) {
+                batchIds.add(index.batchId(batch));
+            }
+            var reference = gateway.complete(transmissionId, batchIds, position, contentHash);
+            return new Transmission(transmissionId, reference, position, contentHash, chunks, resumeFrom,
+                    System.nanoTime() - started);
+        }
+    }
+
+    private static TransmitBatchResponse response(String batchId, int paymentCount, int batchCount, Transmission transmission) {
+        var res = new TransmitBatchResponse();
+        res.setBatchId(batchId);
+        res.setTransmissionId(transmission.transmissionId());
+        res.setReference(transmission.reference());
+        res.setBatchCount(batchCount);
+        res.setPaymentCount(paymentCount);
+        res.setSizeBytes(transmission.sizeBytes());
+        res.setContentHash(transmission.contentHash());
+        res.setChunkCount(transmission.chunkCount());
+        res.setResumedFromBytes(transmission.resumedFromBytes());
+        res.setDurationMillis(transmission.durationNanos() / 1_000_000);
+        res.setMegabytesPerSecond(transmission.durationNanos() == 0 ? 0
+                : (transmission.sizeBytes() - transmission.resumedFromBytes()) * 1000.0 / transmission.durationNanos());
+        return res;
+    }
+
+    private static TransmitBatchResponse alreadyTransmitted(TransmitBatchRequest request, String reference) {
+        logger.info("Batch {} was already transmitted in {}", request.getBatchId(), reference);
+        var res = new TransmitBatchResponse();
+        res.setBatchId(request.getBatchId());
+        res.setReference(reference);
+        return res;
+    }
+
+    private PaymentIndex openIndex(String fileId) throws IOException {
+        return PaymentIndex.open(canonicalDirectory.resolve(fileId + ".idx"), canonicalDirectory.resolve(fileId + ".xml"));
+    }
+
+    private static int find(PaymentIndex index, String fileId, String batchId) {
+        int batch = index.find(batchId);
+        if (batch < 0) {
+            throw new IllegalArgumentException("Batch " + batchId + " is not in the payment index of file " + fileId);
+        }
+        return batch;
+    }
+
+    private static String groupId(String fileId, Iterable<String> batchIds) {
+        var sorted = new ArrayList<String>();
+        batchIds.forEach(sorted::add);
+        sorted.sort(null);
+        var digest = newContentDigest();
+        sorted.forEach(batchId -> digest.update((batchId + "\n").getBytes(StandardCharsets.UTF_8)));
+        return fileId + "-" + HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", e);
+        }
+    }
+}
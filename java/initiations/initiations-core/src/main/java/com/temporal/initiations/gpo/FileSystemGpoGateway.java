@@ -0,0 +1,111 @@
+package com.temporal.initiations.gpo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link GpoGateway} that delivers transmissions into a local directory, standing in for GPO.
+ * <p>
+ * An upload in progress is {@code incoming/<transmissionId>.part}, and everything written to it
+ * and forced to disk counts as acknowledged. Completing it moves it to
+ * {@code outbound/<transmissionId>.xml}, with its content hash alongside in {@code .sha256}, and
+ * notes the transmission of each batch it carries in {@code outbound/batches/<batchId>}.
+ */
+@Component
+public class FileSystemGpoGateway implements GpoGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSystemGpoGateway.class);
+
+    private final Path incoming;
+    private final Path outbound;
+    private final Path batches;
+
+    public FileSystemGpoGateway(@Value("${initiations.gpo.path:data/gpo}") String root) {
+        this.incoming = Path.of(root, "incoming");
+        this.outbound = Path.of(root, "outbound");
+        this.batches = outbound.resolve("batches");
+    }
+
+    @Override
+    public long acknowledged(String transmissionId) throws IOException {
+        var completed = outbound.resolve(transmissionId + ".xml");
+        if (Files.exists(completed)) {
+            return Files.size(completed);
+        }
+        try {
+            return Files.size(incoming.resolve(transmissionId + ".part"));
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void upload(String transmissionId, long offset, ByteBuffer chunk) throws IOException {
+        if (Files.exists(outbound.resolve(transmissionId + ".xml"))) {
+            throw new IOException("Transmission " + transmissionId + " is already complete");
+        }
+        Files.createDirectories(incoming);
+        try (var channel = FileChannel.open(incoming.resolve(transmissionId + ".part"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (offset > channel.size()) {
+                throw new IOException("Transmission " + transmissionId + " has " + channel.size()
+                        + " bytes acknowledged, cannot upload from " + offset);
+            }
+            channel.truncate(offset);
+            long position = offset;
+            while (chunk.hasRemaining()) {
+                position += channel.write(chunk, position);
+            }
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public String complete(String transmissionId, List<String> batchIds, long sizeBytes, String contentHash) throws IOException {
+        var target = outbound.resolve(transmissionId + ".xml");
+        var hash = outbound.resolve(transmissionId + ".sha256");
+        if (!Files.exists(target)) {
+            var part = incoming.resolve(transmissionId + ".part");
+            long size = Files.size(part);
+            if (size != sizeBytes) {
+                throw new IOException("Transmission " + transmissionId + " has " + size + " bytes, expected " + sizeBytes);
+            }
+            Files.createDirectories(batches);
+            Files.writeString(hash, contentHash);
+            // only counted once the transmission itself is in place, see findTransmission
+            for (var batchId : batchIds) {
+                Files.writeString(batches.resolve(batchId), transmissionId);
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Received transmission {} of {} bytes", transmissionId, sizeBytes);
+        } else if (!Files.readString(hash).equals(contentHash) || Files.size(target) != sizeBytes) {
+            throw new IOException("Transmission " + transmissionId + " was already completed with different content");
+        }
+        return target.toString();
+    }
+
+    @Override
+    public Optional<String> findTransmission(String batchId) throws IOException {
+        String transmissionId;
+        try {
+            transmissionId = Files.readString(batches.resolve(batchId));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        var target = outbound.resolve(transmissionId + ".xml");
+        return Files.exists(target) ? Optional.of(target.toString()) : Optional.empty();
+    }
+}
@@ -0,0 +1,43 @@
+package com.temporal.initiations.gpo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Connection to GPO, the downstream payment processor batches are transmitted to.
+ * <p>
+ * A transmission carries one or more batches. It is uploaded in chunks, each acknowledged before
+ * the next is sent, and then completed. An interrupted upload is picked up again from what GPO has acknowledged.
+ */
+public interface GpoGateway {
+
+    /**
+     * @return How many bytes of the transmission GPO holds, 0 if it has never seen it
+     */
+    long acknowledged(String transmissionId) throws IOException;
+
+    /**
+     * Sends the remaining bytes of {@code chunk} and returns once GPO has acknowledged them.
+     *
+     * @param offset Where the chunk starts in the transmission; at most {@link #acknowledged}, and
+     * anything GPO holds from there on is replaced
+     */
+    void upload(String transmissionId, long offset, ByteBuffer chunk) throws IOException;
+
+    /**
+     * Hands a fully uploaded transmission over for processing. Completing it again with the same
+     * content returns the same reference.
+     *
+     * @param batchIds The batches the transmission carries
+     * @return GPO's reference for the transmission
+     * @throws IOException If GPO holds a different number of bytes or different content
+     */
+    String complete(String transmissionId, List<String> batchIds, long sizeBytes, String contentHash) throws IOException;
+
+    /**
+     * @return The reference of the completed transmission that carried the batch, or empty if none has
+     */
+    Optional<String> findTransmission(String batchId) throws IOException;
+}
@@ -0,0 +1,123 @@
+package com.temporal.initiations.gpo;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Which coalesced transmission each batch of a file was put in, kept next to the file's canonical file.
+ * <p>
+ * A batch is claimed by a transmission before its upload starts, in {@code <fileId>.gpo/<batchId>}:
+ * the transmission id on the first line and every batch it carries on the lines after. A retried
+ * batch goes back to the transmission that claimed it, resuming that upload, instead of joining a
+ * new group and being sent twice. Claims are only read and changed while holding the file's lock,
+ * which other workers sharing the canonical directory respect too.
+ */
+final class TransmissionClaims {
+
+    /**
+     * A transmission and the batches it carries.
+     */
+    record Claim(String transmissionId, List<String> batchIds) {
+    }
+
+    private final Path canonicalDirectory;
+    // a JVM may only hold one lock on a file, so threads of this worker take turns first
+    private final ReentrantLock lock = new ReentrantLock();
+
+    TransmissionClaims(Path canonicalDirectory) {
+        this.canonicalDirectory = canonicalDirectory;
+    }
+
+    /**
+     * Claims of one file, usable until closed.
+     */
+    final class Locked implements AutoCloseable {
+        private final Path directory;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        private Locked(Path directory, FileChannel channel, FileLock fileLock) {
+            this.directory = directory;
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        /**
+         * @return The transmission that claimed the batch, or empty if none has
+         */
+        Optional<Claim> find(String batchId) throws IOException {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(directory.resolve(batchId));
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            }
+            if (lines.size() < 2) {
+                throw new IOException("Claim of batch " + batchId + " is incomplete");
+            }
+            return Optional.of(new Claim(lines.getFirst(), List.copyOf(lines.subList(1, lines.size()))));
+        }
+
+        /**
+         * Claims every batch of the transmission for it.
+         */
+        void claim(Claim claim) throws IOException {
+            var lines = new ArrayList<String>(claim.batchIds().size() + 1);
+            lines.add(claim.transmissionId());
+            lines.addAll(claim.batchIds());
+            for (var batchId : claim.batchIds()) {
+                var temp = directory.resolve(batchId + ".tmp");
+                Files.write(temp, lines);
+                Files.move(temp, directory.resolve(batchId), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        /**
+         * Drops the claims of a completed transmission; GPO answers for its batches from now on.
+         */
+        void release(Claim claim) throws IOException {
+            for (var batchId : claim.batchIds()) {
+                Files.deleteIfExists(directory.resolve(batchId));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                fileLock.release();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits for the claims of the file to be free and takes them.
+     */
+    Locked lock(String fileId) throws IOException {
+        var directory = canonicalDirectory.resolve(fileId + ".gpo");
+        Files.createDirectories(directory);
+        lock.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(directory.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new Locked(directory, channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            lock.unlock();
+            throw e;
+        }
+    }
+}
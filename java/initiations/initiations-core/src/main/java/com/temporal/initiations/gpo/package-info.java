@@ -0,0 +1,9 @@
+/**
+ * Integration with GPO, the downstream payment processor.
+ *
+ * This package contains:
+ * - GpoGateway: chunked, resumable upload of batch transmissions
+ * - FileSystemGpoGateway: delivers transmissions into a local directory, standing in for GPO
+ * - BatchTransmitter: streams approved batches to GPO, optionally coalescing batches of a file into one transmission
+ */
+package com.temporal.initiations.gpo;
@@ -0,0 +1,19 @@
+package com.temporal.initiations.messages.api;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Manifest of files submitted together.
+ *
+ * Each file is started as its own File workflow, exactly as if it had been
+ * submitted on its own.
+ *
+ * @param fileIds Identifiers of the files to process, in the order they should be started
+ */
+public record BulkFileSubmissionRequest(
+    @NotEmpty(message = "File IDs cannot be empty")
+    List<String> fileIds
+) {
+}
@@ -0,0 +1,21 @@
+package com.temporal.initiations.messages.api;
+
+/**
+ * Outcome for one file of a bulk submission.
+ *
+ * Streamed back as one line of NDJSON per file, in the order the files
+ * finish starting rather than the order of the manifest.
+ *
+ * @param fileId The file identifier from the manifest
+ * @param workflowId The File workflow processing the file, or null if it could not be started
+ * @param status STARTED, ALREADY_STARTED if an earlier submission of the file was answered within the
+ *               idempotency TTL or its workflow succeeded, or FAILED
+ * @param message Status message describing the result
+ */
+public record BulkFileSubmissionResult(
+    String fileId,
+    String workflowId,
+    String status,
+    String message
+) {
+}
@@ -3,6 +3,7 @@
  *
  * This package contains message classes used by the REST API for:
  * - File initiation requests and responses
+ * - Bulk file submission manifests and per-file results
  * - Error responses and validation details
  * - Data transfer between HTTP API and workflow execution
  */
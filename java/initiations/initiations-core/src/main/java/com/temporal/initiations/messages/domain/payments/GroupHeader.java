@@ -0,0 +1,21 @@
+package com.temporal.initiations.messages.domain.payments;
+
+import java.math.BigDecimal;
+
+/**
+ * File-level metadata from the PAIN.001 {@code GrpHdr} element.
+ *
+ * @param messageId Unique identifier for the file ({@code MsgId})
+ * @param creationDateTime File creation timestamp as written by the sender ({@code CreDtTm})
+ * @param numberOfTransactions Declared total number of transactions ({@code NbOfTxs})
+ * @param controlSum Declared sum of all transaction amounts, or null when omitted ({@code CtrlSum})
+ * @param initiatingPartyName Initiating party name ({@code InitgPty/Nm})
+ */
+public record GroupHeader(
+    String messageId,
+    String creationDateTime,
+    long numberOfTransactions,
+    BigDecimal controlSum,
+    String initiatingPartyName
+) {
+}
@@ -0,0 +1,27 @@
+package com.temporal.initiations.messages.domain.payments;
+
+import java.math.BigDecimal;
+
+/**
+ * Debtor and batch-level data from a PAIN.001 {@code PmtInf} block.
+ * <p>
+ * Every {@link PaymentRecord} read from the block shares the same instance.
+ *
+ * @param paymentInformationId Payment batch identifier ({@code PmtInfId})
+ * @param paymentMethod Payment method, normally {@code TRF} ({@code PmtMtd})
+ * @param numberOfTransactions Declared number of transactions, or null when omitted ({@code NbOfTxs})
+ * @param controlSum Declared batch control sum, or null when omitted ({@code CtrlSum})
+ * @param requestedExecutionDate Requested execution date as written by the sender ({@code ReqdExctnDt})
+ * @param debtorName Debtor name ({@code Dbtr/Nm})
+ * @param debtorAccount Debtor account identifier, IBAN or other ({@code DbtrAcct/Id})
+ */
+public record PaymentInformation(
+    String paymentInformationId,
+    String paymentMethod,
+    Long numberOfTransactions,
+    BigDecimal controlSum,
+    String requestedExecutionDate,
+    String debtorName,
+    String debtorAccount
+) {
+}
@@ -0,0 +1,27 @@
+package com.temporal.initiations.messages.domain.payments;
+
+import java.math.BigDecimal;
+
+/**
+ * A single credit transfer from a PAIN.001 {@code CdtTrfTxInf} element.
+ *
+ * @param paymentInformation The enclosing {@code PmtInf} block
+ * @param sequence Zero-based position of this transaction within the file
+ * @param endToEndId Unique transaction reference ({@code PmtId/EndToEndId})
+ * @param instructedAmount Amount to transfer ({@code Amt/InstdAmt})
+ * @param currency Currency of the instructed amount ({@code Amt/InstdAmt/@Ccy})
+ * @param creditorName Creditor name ({@code Cdtr/Nm})
+ * @param creditorAccount Creditor account identifier, IBAN or other ({@code CdtrAcct/Id})
+ * @param remittanceInformation Unstructured remittance information, or null ({@code RmtInf/Ustrd})
+ */
+public record PaymentRecord(
+    PaymentInformation paymentInformation,
+    long sequence,
+    String endToEndId,
+    BigDecimal instructedAmount,
+    String currency,
+    String creditorName,
+    String creditorAccount,
+    String remittanceInformation
+) {
+}
@@ -0,0 +1,9 @@
+/**
+ * Payment record models aligned with ISO 20022 PAIN.001.001.03.
+ *
+ * These models mirror the three levels of a PAIN.001 document:
+ * - GroupHeader: file-level metadata
+ * - PaymentInformation: debtor and batch-level data
+ * - PaymentRecord: individual credit transfers
+ */
+package com.temporal.initiations.messages.domain.payments;
@@ -1,4 +1,26 @@
 package com.temporal.initiations.messages.domain.workflows;
 
+/**
+ * Approval of one batch, sent by the File workflow through the {@code approveBatch} signal.
+ * <p>
+ * Carries the batch id so the payload is never empty, which the default JSON converter refuses
+ * to serialise.
+ */
 public class ApproveBatchRequest {
+    private String batchId;
+
+    public ApproveBatchRequest() {
+    }
+
+    public ApproveBatchRequest(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
 }
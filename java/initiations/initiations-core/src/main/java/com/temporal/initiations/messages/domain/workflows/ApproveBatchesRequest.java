@@ -1,18 +1,16 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-import java.util.List;
-import java.util.Objects;
-
+/**
+ * Approves every batch of a file. The activity reads the batch ids from the file's payment index.
+ */
 public  class ApproveBatchesRequest {
     private FileInfo fileInfo;
-    private List<String> batchIds = new java.util.ArrayList<>();
 
     public ApproveBatchesRequest() {
     }
 
-    public ApproveBatchesRequest(FileInfo fileInfo, List<String> batchIds) {
+    public ApproveBatchesRequest(FileInfo fileInfo) {
         this.fileInfo = fileInfo;
-        this.batchIds = batchIds;
     }
 
     public FileInfo getFileInfo() {
@@ -22,12 +20,4 @@ public  class ApproveBatchesRequest {
     public void setFileInfo(FileInfo fileInfo) {
         this.fileInfo = fileInfo;
     }
-
-    public List<String> getBatchIds() {
-        return batchIds;
-    }
-
-    public void setBatchIds(List<String> batchIds) {
-        this.batchIds = batchIds;
-    }
 }
@@ -1,4 +1,24 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-public record ApproveBatchesResponse() {
+import java.util.List;
+
+/**
+ * Result of broadcasting a file approval to its batches.
+ *
+ * @param signalledCount Batches that received the approval, across every attempt
+ * @param alreadyCompletedCount Batches that had already finished, across every attempt
+ * @param failedCount Batches that could not be signalled, across every attempt
+ * @param resumedFromIndex The batch index this attempt resumed from after a retry, 0 on a first attempt
+ * @param durationMillis Wall-clock time of this attempt
+ * @param failures The batches that could not be signalled, across every attempt; the others are only
+ *                 counted, so the result stays small however many batches the file has
+ */
+public record ApproveBatchesResponse(
+    int signalledCount,
+    int alreadyCompletedCount,
+    int failedCount,
+    int resumedFromIndex,
+    long durationMillis,
+    List<BatchApprovalOutcome> failures
+) {
 }
@@ -1,8 +1,4 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-public final class ApproveFileRequest {
-    public ApproveFileRequest() {
-    }
-
-
+public record ApproveFileRequest() {
 }
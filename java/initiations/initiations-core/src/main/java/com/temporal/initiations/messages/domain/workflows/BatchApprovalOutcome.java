@@ -0,0 +1,24 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+/**
+ * The result of broadcasting an approval to one Batch workflow.
+ *
+ * @param batchId The Batch workflow that was signalled
+ * @param status What happened to the signal
+ * @param durationMillis How long the signal round trip took
+ * @param error Why the signal failed, or null
+ */
+public record BatchApprovalOutcome(
+    String batchId,
+    Status status,
+    long durationMillis,
+    String error
+) {
+    public enum Status {
+        // the batch received the approval signal; approving an already-approved batch is a no-op
+        SIGNALLED,
+        // the batch had already finished, so there was nothing left to approve
+        ALREADY_COMPLETED,
+        FAILED
+    }
+}
@@ -1,27 +1,48 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-import java.util.List;
-
+/**
+ * Starts the Batch workflows for a range of a file's batches.
+ * <p>
+ * The batches are named by their ordinals rather than their ids, which the activity reads from
+ * the file's payment index. A file can have tens of thousands of batches, and this request is
+ * recorded in the history of whichever workflow schedules it.
+ */
 public class BatchFileRequest {
     public BatchFileRequest() {
     }
 
-    public BatchFileRequest(FileInfo fileInfo, List<String> batchIds, GetCustomerPreferencesResponse preferences) {
+    public BatchFileRequest(FileInfo fileInfo, int fromBatch, int toBatch, GetCustomerPreferencesResponse preferences) {
         this.fileInfo = fileInfo;
-        this.batchIds = batchIds;
+        this.fromBatch = fromBatch;
+        this.toBatch = toBatch;
         this.preferences = preferences;
     }
 
     private FileInfo fileInfo;
-    private List<String> batchIds = new java.util.ArrayList<>();
+    private int fromBatch;
+    private int toBatch;
     private GetCustomerPreferencesResponse preferences;
 
-    public List<String> getBatchIds() {
-        return batchIds;
+    /**
+     * Ordinal of the first batch to start.
+     */
+    public int getFromBatch() {
+        return fromBatch;
+    }
+
+    public void setFromBatch(int fromBatch) {
+        this.fromBatch = fromBatch;
+    }
+
+    /**
+     * Ordinal just past the last batch to start.
+     */
+    public int getToBatch() {
+        return toBatch;
     }
 
-    public void setBatchIds(List<String> batchIds) {
-        this.batchIds = batchIds;
+    public void setToBatch(int toBatch) {
+        this.toBatch = toBatch;
     }
 
     public FileInfo getFileInfo() {
@@ -1,8 +1,59 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 
 public class BatchFileResponse {
+    private int requestedCount;
+    private int startedCount;
+    private int resumedFromIndex;
+    private List<BatchStartFailure> failures = new ArrayList<>();
 
+    public BatchFileResponse() {
+    }
 
+    public BatchFileResponse(int requestedCount, int startedCount, int resumedFromIndex, List<BatchStartFailure> failures) {
+        this.requestedCount = requestedCount;
+        this.startedCount = startedCount;
+        this.resumedFromIndex = resumedFromIndex;
+        this.failures = failures;
+    }
+
+    public int getRequestedCount() {
+        return requestedCount;
+    }
+
+    public void setRequestedCount(int requestedCount) {
+        this.requestedCount = requestedCount;
+    }
+
+    /**
+     * @return Batches started or found already running, including those handled before a retry
+     */
+    public int getStartedCount() {
+        return startedCount;
+    }
+
+    public void setStartedCount(int startedCount) {
+        this.startedCount = startedCount;
+    }
+
+    /**
+     * @return The batch index this attempt resumed from after a retry, 0 on a first attempt
+     */
+    public int getResumedFromIndex() {
+        return resumedFromIndex;
+    }
+
+    public void setResumedFromIndex(int resumedFromIndex) {
+        this.resumedFromIndex = resumedFromIndex;
+    }
+
+    public List<BatchStartFailure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<BatchStartFailure> failures) {
+        this.failures = failures;
+    }
 }
@@ -0,0 +1,33 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+/**
+ * A Batch workflow that could not be started.
+ */
+public class BatchStartFailure {
+    private String batchId;
+    private String error;
+
+    public BatchStartFailure() {
+    }
+
+    public BatchStartFailure(String batchId, String error) {
+        this.batchId = batchId;
+        this.error = error;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
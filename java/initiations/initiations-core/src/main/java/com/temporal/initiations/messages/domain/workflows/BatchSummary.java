@@ -0,0 +1,105 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals of one batch, accumulated while the file was transformed.
+ */
+public class BatchSummary {
+    private String batchId;
+    private String batchKey;
+    private long paymentCount;
+    private BigDecimal controlSum;
+    private String minExecutionDate;
+    private String maxExecutionDate;
+    private long firstSequence;
+    private long lastSequence;
+    private String firstEndToEndId;
+    private String lastEndToEndId;
+
+    public BatchSummary() {
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public String getBatchKey() {
+        return batchKey;
+    }
+
+    public void setBatchKey(String batchKey) {
+        this.batchKey = batchKey;
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public void setPaymentCount(long paymentCount) {
+        this.paymentCount = paymentCount;
+    }
+
+    public BigDecimal getControlSum() {
+        return controlSum;
+    }
+
+    public void setControlSum(BigDecimal controlSum) {
+        this.controlSum = controlSum;
+    }
+
+    public String getMinExecutionDate() {
+        return minExecutionDate;
+    }
+
+    public void setMinExecutionDate(String minExecutionDate) {
+        this.minExecutionDate = minExecutionDate;
+    }
+
+    public String getMaxExecutionDate() {
+        return maxExecutionDate;
+    }
+
+    public void setMaxExecutionDate(String maxExecutionDate) {
+        this.maxExecutionDate = maxExecutionDate;
+    }
+
+    /**
+     * Position in the file of the batch's first payment, counting from 0.
+     */
+    public long getFirstSequence() {
+        return firstSequence;
+    }
+
+    public void setFirstSequence(long firstSequence) {
+        this.firstSequence = firstSequence;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public String getFirstEndToEndId() {
+        return firstEndToEndId;
+    }
+
+    public void setFirstEndToEndId(String firstEndToEndId) {
+        this.firstEndToEndId = firstEndToEndId;
+    }
+
+    public String getLastEndToEndId() {
+        return lastEndToEndId;
+    }
+
+    public void setLastEndToEndId(String lastEndToEndId) {
+        this.lastEndToEndId = lastEndToEndId;
+    }
+}
@@ -0,0 +1,12 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+/**
+ * A payment attribute that payments must share to be grouped into the same batch.
+ */
+public enum BatchingCriterion {
+    CURRENCY,
+    DEBTOR_ACCOUNT,
+    EXECUTION_DATE,
+    PAYMENT_METHOD,
+    VALUE_BAND;
+}
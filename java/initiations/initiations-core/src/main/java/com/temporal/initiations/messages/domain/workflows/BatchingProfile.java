@@ -0,0 +1,27 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * How a customer wants payments grouped into batches, i.e. what makes up the BatchKey.
+ * <p>
+ * Immutable, as compiled BatchKey rules are cached by profile: both lists are copied on construction.
+ *
+ * @param criteria The payment attributes making up the BatchKey; empty for the default criteria
+ * @param valueBandUpperBounds Exclusive upper bounds of each value band; amounts at or above the last
+ *                             bound fall in the top band. Only used with {@link BatchingCriterion#VALUE_BAND}.
+ */
+public record BatchingProfile(
+    List<BatchingCriterion> criteria,
+    List<BigDecimal> valueBandUpperBounds
+) {
+    public BatchingProfile {
+        criteria = criteria == null ? List.of() : List.copyOf(criteria);
+        valueBandUpperBounds = valueBandUpperBounds == null ? List.of() : List.copyOf(valueBandUpperBounds);
+    }
+
+    public BatchingProfile() {
+        this(List.of(), List.of());
+    }
+}
@@ -1,4 +1,56 @@
 package com.temporal.initiations.messages.domain.workflows;
 
+/**
+ * Outcome of a GFD fraud check for one batch.
+ * <p>
+ * Delivered either by the fraud side through the {@code fraudCheckCompleted} signal on the batch,
+ * or returned by the {@code completeFraudCheck} poll, which reports {@code isComplete == false}
+ * while GFD is still working.
+ */
 public class CompleteFraudCheckResponse {
+    /**
+     * The verdict GFD gives a batch that may be transmitted.
+     */
+    public static final String PASSED = "PASS";
+
+    private String batchId;
+    private boolean isComplete;
+    private String result;
+
+    public CompleteFraudCheckResponse() {
+    }
+
+    public CompleteFraudCheckResponse(String batchId, boolean isComplete, String result) {
+        this.batchId = batchId;
+        this.isComplete = isComplete;
+        this.result = result;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    public boolean isComplete() {
+        return isComplete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.isComplete = complete;
+    }
+
+    /**
+     * @return The verdict reported by GFD once the check is complete: {@link #PASSED}, or anything
+     * else for a batch that must not be transmitted
+     */
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
 }
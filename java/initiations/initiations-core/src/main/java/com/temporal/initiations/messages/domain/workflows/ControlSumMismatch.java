@@ -0,0 +1,64 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+/**
+ * A declared count or control sum that does not match the transactions in the file.
+ */
+public class ControlSumMismatch {
+    private String scope;
+    private String field;
+    private String declared;
+    private String actual;
+
+    public ControlSumMismatch() {
+    }
+
+    /**
+     * @param scope {@code GrpHdr} for the file header, otherwise the {@code PmtInfId} of the failing group
+     * @param field The declared element that failed, {@code NbOfTxs} or {@code CtrlSum}
+     * @param declared The value the sender declared
+     * @param actual The value computed from the transactions
+     */
+    public ControlSumMismatch(String scope, String field, String declared, String actual) {
+        this.scope = scope;
+        this.field = field;
+        this.declared = declared;
+        this.actual = actual;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public String getDeclared() {
+        return declared;
+    }
+
+    public void setDeclared(String declared) {
+        this.declared = declared;
+    }
+
+    public String getActual() {
+        return actual;
+    }
+
+    public void setActual(String actual) {
+        this.actual = actual;
+    }
+
+    @Override
+    public String toString() {
+        return scope + "/" + field + " declared " + declared + " but file contains " + actual;
+    }
+}
@@ -3,5 +3,8 @@ package com.temporal.initiations.messages.domain.workflows;
 public enum Errors {
     SERVICE_UNAVAILABLE,
     BAD_REQUEST,
-    INVALID_BATCH_COUNT;
+    INVALID_BATCH_COUNT,
+    INVALID_PAYMENT_COUNT,
+    FRAUD_CHECK_FAILED,
+    DUPLICATE_FILE;
 }
@@ -2,12 +2,14 @@ package com.temporal.initiations.messages.domain.workflows;
 
 public class FileCheckRequest {
     private FileInfo fileInfo;
+    private String senderId;
 
     public FileCheckRequest() {
     }
 
-    public FileCheckRequest(FileInfo fileInfo) {
+    public FileCheckRequest(FileInfo fileInfo, String senderId) {
         this.fileInfo = fileInfo;
+        this.senderId = senderId;
     }
 
     public FileInfo getFileInfo() {
@@ -17,4 +19,12 @@ public class FileCheckRequest {
     public void setFileInfo(FileInfo fileInfo) {
         this.fileInfo = fileInfo;
     }
+
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(String senderId) {
+        this.senderId = senderId;
+    }
 }
@@ -1,7 +1,18 @@
 package com.temporal.initiations.messages.domain.workflows;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
 public class FileCheckResponse {
     private boolean isFailed;
+    private long transactionCount;
+    private BigDecimal controlSum;
+    private List<ControlSumMismatch> controlSumMismatches = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();
+    private String contentHash;
+    private boolean isDuplicate;
+    private String duplicateOfFileId;
 
     public FileCheckResponse() {
     }
@@ -13,4 +24,60 @@ public class FileCheckResponse {
     public void setFailed(boolean failed) {
         this.isFailed = failed;
     }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public BigDecimal getControlSum() {
+        return controlSum;
+    }
+
+    public void setControlSum(BigDecimal controlSum) {
+        this.controlSum = controlSum;
+    }
+
+    public List<ControlSumMismatch> getControlSumMismatches() {
+        return controlSumMismatches;
+    }
+
+    public void setControlSumMismatches(List<ControlSumMismatch> controlSumMismatches) {
+        this.controlSumMismatches = controlSumMismatches;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public boolean isDuplicate() {
+        return isDuplicate;
+    }
+
+    public void setDuplicate(boolean duplicate) {
+        this.isDuplicate = duplicate;
+    }
+
+    public String getDuplicateOfFileId() {
+        return duplicateOfFileId;
+    }
+
+    public void setDuplicateOfFileId(String duplicateOfFileId) {
+        this.duplicateOfFileId = duplicateOfFileId;
+    }
 }
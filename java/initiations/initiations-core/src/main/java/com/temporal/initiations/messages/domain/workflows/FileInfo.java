@@ -1,8 +1,13 @@
 package com.temporal.initiations.messages.domain.workflows;
 
+import com.temporal.initiations.messages.domain.payments.GroupHeader;
+
 public class FileInfo {
     private String fileId;
     private String filePath;
+    private String contentHash;
+    private long sizeBytes;
+    private GroupHeader groupHeader;
 
     public FileInfo() {
     }
@@ -27,4 +32,37 @@ public class FileInfo {
     public void setFilePath(String filePath) {
         this.filePath = filePath;
     }
+
+    /**
+     * @return Hex SHA-256 of the file as received, or null if the file was not uploaded through the API
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @return Length of the file as received, or 0 if the file was not uploaded through the API
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    /**
+     * @return The group header read while the file was received, or null if the file was not uploaded through the API
+     */
+    public GroupHeader getGroupHeader() {
+        return groupHeader;
+    }
+
+    public void setGroupHeader(GroupHeader groupHeader) {
+        this.groupHeader = groupHeader;
+    }
 }
@@ -0,0 +1,35 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+/**
+ * Where a File workflow has got to, as reported by {@link GetFileStatusResponse}.
+ */
+public enum FilePhase {
+    /**
+     * File and entitlement checks are running.
+     */
+    CHECKING,
+    /**
+     * The file is being transformed and its payments persisted.
+     */
+    TRANSFORMING,
+    /**
+     * Batch workflows are being started.
+     */
+    BATCHING,
+    /**
+     * Batches are started and the file is waiting for approval.
+     */
+    AWAITING_APPROVAL,
+    /**
+     * Batches are started and approved, or need no file approval, and carry on on their own.
+     */
+    BATCHES_RUNNING,
+    /**
+     * A check failed or the file was rejected during transformation.
+     */
+    REJECTED,
+    /**
+     * The file ran out of time before it finished.
+     */
+    CANCELLED
+}
@@ -5,6 +5,9 @@ public final class GetBatchStateResponse {
     private  ApproveBatchRequest approval;
     private StartFraudCheckResponse startFraudCheck;
     private CompleteFraudCheckResponse fraudCheck;
+    private TransmitBatchResponse transmission;
+    private Errors rejection;
+    private String rejectionMessage;
     public GetBatchStateResponse() {
     }
 
@@ -44,4 +47,31 @@ public final class GetBatchStateResponse {
     public void setStartFraudCheck(StartFraudCheckResponse startFraudCheck) {
         this.startFraudCheck = startFraudCheck;
     }
+
+    public TransmitBatchResponse getTransmission() {
+        return transmission;
+    }
+
+    public void setTransmission(TransmitBatchResponse transmission) {
+        this.transmission = transmission;
+    }
+
+    /**
+     * @return Why the batch ended without being transmitted, or null
+     */
+    public Errors getRejection() {
+        return rejection;
+    }
+
+    public void setRejection(Errors rejection) {
+        this.rejection = rejection;
+    }
+
+    public String getRejectionMessage() {
+        return rejectionMessage;
+    }
+
+    public void setRejectionMessage(String rejectionMessage) {
+        this.rejectionMessage = rejectionMessage;
+    }
 }
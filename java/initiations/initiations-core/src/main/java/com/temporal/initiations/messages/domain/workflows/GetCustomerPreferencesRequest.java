@@ -1,4 +1,4 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-public class GetCustomerPreferencesRequest {
+public record GetCustomerPreferencesRequest() {
 }
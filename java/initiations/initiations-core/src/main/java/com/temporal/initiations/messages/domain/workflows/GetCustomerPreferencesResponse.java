@@ -5,6 +5,7 @@ public class GetCustomerPreferencesResponse {
     private boolean isBatchAutoApproved;
     private boolean isFileApprovalRequired;
     private boolean isBatchApprovalRequired;
+    private BatchingProfile batching;
 
     public boolean isBatchApprovalRequired() {
         return isBatchApprovalRequired;
@@ -37,4 +38,12 @@ public class GetCustomerPreferencesResponse {
     public void setFileAutoApproved(boolean fileAutoApproved) {
         isFileAutoApproved = fileAutoApproved;
     }
+
+    public BatchingProfile getBatching() {
+        return batching;
+    }
+
+    public void setBatching(BatchingProfile batching) {
+        this.batching = batching;
+    }
 }
@@ -0,0 +1,107 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact view of a File workflow for status polling: its phase, counts and errors, without the
+ * args, options and batch ids carried by {@link GetFileStateResponse}.
+ */
+public class GetFileStatusResponse {
+    private String fileId;
+    private FilePhase phase;
+    private long transactionCount;
+    private long paymentCount;
+    private int batchCount;
+    private int batchesStarted;
+    private int batchStartFailures;
+    private int errorCount;
+    private List<String> errors = new ArrayList<>();
+
+    public GetFileStatusResponse() {
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public FilePhase getPhase() {
+        return phase;
+    }
+
+    public void setPhase(FilePhase phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * @return Transactions counted by the file check, 0 until it has run
+     */
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    /**
+     * @return Payments persisted into batches, 0 until the file is transformed
+     */
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public void setPaymentCount(long paymentCount) {
+        this.paymentCount = paymentCount;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public void setBatchCount(int batchCount) {
+        this.batchCount = batchCount;
+    }
+
+    public int getBatchesStarted() {
+        return batchesStarted;
+    }
+
+    public void setBatchesStarted(int batchesStarted) {
+        this.batchesStarted = batchesStarted;
+    }
+
+    public int getBatchStartFailures() {
+        return batchStartFailures;
+    }
+
+    public void setBatchStartFailures(int batchStartFailures) {
+        this.batchStartFailures = batchStartFailures;
+    }
+
+    /**
+     * @return Errors recorded for the file, which may be more than {@link #getErrors()} holds
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(int errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * @return The first errors recorded for the file
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
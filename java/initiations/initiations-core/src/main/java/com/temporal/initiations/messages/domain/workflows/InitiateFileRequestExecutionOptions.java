@@ -7,6 +7,10 @@ public final class InitiateFileRequestExecutionOptions {
     private boolean autoApprove;
     private int ttlSeconds;
     private int maxBatchCount;
+    private long maxPaymentCount;
+    private int batchStarterPageSize;
+    private int batchStarterChunkSize;
+    private int batchStarterMaxHistoryLength;
     public boolean isAutoApprove() {
         return autoApprove;
     }
@@ -30,4 +34,43 @@ public final class InitiateFileRequestExecutionOptions {
     public void setMaxBatchCount(int maxBatchCount) {
         this.maxBatchCount = maxBatchCount;
     }
+
+    /**
+     * Files with more payments than this are rejected while they are being transformed; 0 means no limit.
+     */
+    public long getMaxPaymentCount() {
+        return maxPaymentCount;
+    }
+
+    public void setMaxPaymentCount(long maxPaymentCount) {
+        this.maxPaymentCount = maxPaymentCount;
+    }
+
+    /**
+     * Batch ids owned by each BatchStarter child workflow.
+     * Files with more batches than this are fanned out through child workflows; 0 keeps a single activity.
+     */
+    public int getBatchStarterPageSize() {
+        return batchStarterPageSize;
+    }
+
+    public void setBatchStarterPageSize(int batchStarterPageSize) {
+        this.batchStarterPageSize = batchStarterPageSize;
+    }
+
+    public int getBatchStarterChunkSize() {
+        return batchStarterChunkSize;
+    }
+
+    public void setBatchStarterChunkSize(int batchStarterChunkSize) {
+        this.batchStarterChunkSize = batchStarterChunkSize;
+    }
+
+    public int getBatchStarterMaxHistoryLength() {
+        return batchStarterMaxHistoryLength;
+    }
+
+    public void setBatchStarterMaxHistoryLength(int batchStarterMaxHistoryLength) {
+        this.batchStarterMaxHistoryLength = batchStarterMaxHistoryLength;
+    }
 }
@@ -4,6 +4,11 @@ import jakarta.validation.constraints.NotBlank;
 
 public final class PersistTransformedFileRequest {
     private FileInfo fileInfo;
+    private BatchingProfile batching;
+    private int maxBatchCount;
+    private long maxPaymentCount;
+    private String senderId;
+    private String contentHash;
 
     public PersistTransformedFileRequest() {
     }
@@ -12,6 +17,20 @@ public final class PersistTransformedFileRequest {
         this.fileInfo = fileInfo;
     }
 
+    public PersistTransformedFileRequest(FileInfo fileInfo, BatchingProfile batching, int maxBatchCount, long maxPaymentCount) {
+        this.fileInfo = fileInfo;
+        this.batching = batching;
+        this.maxBatchCount = maxBatchCount;
+        this.maxPaymentCount = maxPaymentCount;
+    }
+
+    public PersistTransformedFileRequest(FileInfo fileInfo, BatchingProfile batching, int maxBatchCount, long maxPaymentCount,
+                                         String senderId, String contentHash) {
+        this(fileInfo, batching, maxBatchCount, maxPaymentCount);
+        this.senderId = senderId;
+        this.contentHash = contentHash;
+    }
+
     public FileInfo getFileInfo() {
         return fileInfo;
     }
@@ -19,4 +38,57 @@ public final class PersistTransformedFileRequest {
     public void setFileInfo(FileInfo fileInfo) {
         this.fileInfo = fileInfo;
     }
+
+    /**
+     * The customer's BatchKey criteria; null groups by the default criteria.
+     */
+    public BatchingProfile getBatching() {
+        return batching;
+    }
+
+    public void setBatching(BatchingProfile batching) {
+        this.batching = batching;
+    }
+
+    /**
+     * The transformation stops and rejects the file as soon as it finds more distinct BatchKeys than this.
+     */
+    public int getMaxBatchCount() {
+        return maxBatchCount;
+    }
+
+    public void setMaxBatchCount(int maxBatchCount) {
+        this.maxBatchCount = maxBatchCount;
+    }
+
+    /**
+     * The transformation stops and rejects the file as soon as it reads more payments than this; 0 means no limit.
+     */
+    public long getMaxPaymentCount() {
+        return maxPaymentCount;
+    }
+
+    public void setMaxPaymentCount(long maxPaymentCount) {
+        this.maxPaymentCount = maxPaymentCount;
+    }
+
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(String senderId) {
+        this.senderId = senderId;
+    }
+
+    /**
+     * The content hash the file check took. The file claims it for the dupe check only once it is
+     * fully transformed, as every other check has passed by then; null skips the claim.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
 }
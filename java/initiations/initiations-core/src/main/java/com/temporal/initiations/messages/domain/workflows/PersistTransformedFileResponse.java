@@ -1,15 +1,105 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-import java.util.List;
-
+/**
+ * Result of transforming and persisting a file.
+ * <p>
+ * This result is kept in the File workflow's history, so it carries file-level counts only. A
+ * file can have tens of thousands of batches, and an id or a {@link BatchSummary} per batch would
+ * make the history grow with the file. The batch ids are in the file's payment index, where the
+ * batch activities read them by ordinal. The per-batch totals (payment count, control sum,
+ * execution dates) are in {@code transformed_batch}, written with the payments in the same
+ * transaction. Read them with {@code PaymentRepository.findBatches(fileId)}.
+ */
 public class PersistTransformedFileResponse {
-    private List<String> batchIds = new java.util.ArrayList<>();
+    private int batchCount;
+    private long paymentCount;
+    private Errors rejection;
+    private String rejectionMessage;
+    private String canonicalFilePath;
+    private String canonicalContentHash;
+    private long canonicalSizeBytes;
+    private String paymentIndexPath;
+
+    /**
+     * Number of batches the file was split into, numbered from 0 in the order they first appear.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public void setBatchCount(int batchCount) {
+        this.batchCount = batchCount;
+    }
+
+    /**
+     * Number of payments persisted; see the class comment for where the per-batch totals are.
+     */
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public void setPaymentCount(long paymentCount) {
+        this.paymentCount = paymentCount;
+    }
+
+    /**
+     * Why the file was rejected part way through, or null if it was transformed in full.
+     * A rejected file has no batches and nothing persisted.
+     */
+    public Errors getRejection() {
+        return rejection;
+    }
+
+    public void setRejection(Errors rejection) {
+        this.rejection = rejection;
+    }
+
+    public String getRejectionMessage() {
+        return rejectionMessage;
+    }
+
+    public void setRejectionMessage(String rejectionMessage) {
+        this.rejectionMessage = rejectionMessage;
+    }
+
+    /**
+     * Where the canonical form of the file was written, see {@code CanonicalPain001Writer}.
+     */
+    public String getCanonicalFilePath() {
+        return canonicalFilePath;
+    }
+
+    public void setCanonicalFilePath(String canonicalFilePath) {
+        this.canonicalFilePath = canonicalFilePath;
+    }
+
+    /**
+     * Hex SHA-256 of the canonical file. The same source content always hashes the same.
+     */
+    public String getCanonicalContentHash() {
+        return canonicalContentHash;
+    }
+
+    public void setCanonicalContentHash(String canonicalContentHash) {
+        this.canonicalContentHash = canonicalContentHash;
+    }
+
+    public long getCanonicalSizeBytes() {
+        return canonicalSizeBytes;
+    }
+
+    public void setCanonicalSizeBytes(long canonicalSizeBytes) {
+        this.canonicalSizeBytes = canonicalSizeBytes;
+    }
 
-    public List<String> getBatchIds() {
-        return batchIds;
+    /**
+     * Where the payment index of the canonical file was written, for looking up one batch's payments.
+     */
+    public String getPaymentIndexPath() {
+        return paymentIndexPath;
     }
 
-    public void setBatchIds(List<String> batchIds) {
-        this.batchIds = batchIds;
+    public void setPaymentIndexPath(String paymentIndexPath) {
+        this.paymentIndexPath = paymentIndexPath;
     }
 }
@@ -1,4 +1,32 @@
 package com.temporal.initiations.messages.domain.workflows;
 
 public class ProcessBatchExecutionOptions {
+    private int fraudCheckPollInitialSeconds;
+    private int fraudCheckPollMaximumSeconds;
+
+    public ProcessBatchExecutionOptions() {
+    }
+
+    /**
+     * How long a batch waits for the {@code fraudCheckCompleted} signal before it first polls GFD.
+     * The wait doubles after every poll that finds the check still running. 0 uses the workflow default.
+     */
+    public int getFraudCheckPollInitialSeconds() {
+        return fraudCheckPollInitialSeconds;
+    }
+
+    public void setFraudCheckPollInitialSeconds(int fraudCheckPollInitialSeconds) {
+        this.fraudCheckPollInitialSeconds = fraudCheckPollInitialSeconds;
+    }
+
+    /**
+     * Upper bound on the wait between polls. 0 uses the workflow default.
+     */
+    public int getFraudCheckPollMaximumSeconds() {
+        return fraudCheckPollMaximumSeconds;
+    }
+
+    public void setFraudCheckPollMaximumSeconds(int fraudCheckPollMaximumSeconds) {
+        this.fraudCheckPollMaximumSeconds = fraudCheckPollMaximumSeconds;
+    }
 }
@@ -1,7 +1,4 @@
 package com.temporal.initiations.messages.domain.workflows;
 
-public final class SendLevel1Request {
-    public SendLevel1Request() {
-    }
-
+public record SendLevel1Request() {
 }
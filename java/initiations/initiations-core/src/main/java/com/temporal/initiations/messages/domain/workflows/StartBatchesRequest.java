@@ -0,0 +1,128 @@
+package com.temporal.initiations.messages.domain.workflows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Input for a BatchStarter workflow, which owns one page of a file's batches.
+ * <p>
+ * The page is a range of batch ordinals, so its size does not depend on how many batches it
+ * holds. The progress fields are carried across continue-as-new so a long page picks up where
+ * the previous run stopped.
+ */
+public class StartBatchesRequest {
+    private FileInfo fileInfo;
+    private GetCustomerPreferencesResponse preferences;
+    private int fromBatch;
+    private int toBatch;
+    private int chunkSize;
+    private int maxHistoryLength;
+    private int nextBatch;
+    private int startedCount;
+    private List<BatchStartFailure> failures = new ArrayList<>();
+
+    public StartBatchesRequest() {
+    }
+
+    public StartBatchesRequest(FileInfo fileInfo,
+                               GetCustomerPreferencesResponse preferences,
+                               int fromBatch,
+                               int toBatch,
+                               int chunkSize,
+                               int maxHistoryLength) {
+        this.fileInfo = fileInfo;
+        this.preferences = preferences;
+        this.fromBatch = fromBatch;
+        this.toBatch = toBatch;
+        this.nextBatch = fromBatch;
+        this.chunkSize = chunkSize;
+        this.maxHistoryLength = maxHistoryLength;
+    }
+
+    public FileInfo getFileInfo() {
+        return fileInfo;
+    }
+
+    public void setFileInfo(FileInfo fileInfo) {
+        this.fileInfo = fileInfo;
+    }
+
+    public GetCustomerPreferencesResponse getPreferences() {
+        return preferences;
+    }
+
+    public void setPreferences(GetCustomerPreferencesResponse preferences) {
+        this.preferences = preferences;
+    }
+
+    /**
+     * @return Ordinal of the page's first batch
+     */
+    public int getFromBatch() {
+        return fromBatch;
+    }
+
+    public void setFromBatch(int fromBatch) {
+        this.fromBatch = fromBatch;
+    }
+
+    /**
+     * @return Ordinal just past the page's last batch
+     */
+    public int getToBatch() {
+        return toBatch;
+    }
+
+    public void setToBatch(int toBatch) {
+        this.toBatch = toBatch;
+    }
+
+    /**
+     * @return Batches handed to each batchFile activity call
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return History length after which the workflow continues as new
+     */
+    public int getMaxHistoryLength() {
+        return maxHistoryLength;
+    }
+
+    public void setMaxHistoryLength(int maxHistoryLength) {
+        this.maxHistoryLength = maxHistoryLength;
+    }
+
+    /**
+     * @return Ordinal of the first batch this run has not handled yet
+     */
+    public int getNextBatch() {
+        return nextBatch;
+    }
+
+    public void setNextBatch(int nextBatch) {
+        this.nextBatch = nextBatch;
+    }
+
+    public int getStartedCount() {
+        return startedCount;
+    }
+
+    public void setStartedCount(int startedCount) {
+        this.startedCount = startedCount;
+    }
+
+    public List<BatchStartFailure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<BatchStartFailure> failures) {
+        this.failures = failures;
+    }
+}
@@ -1,4 +1,30 @@
 package com.temporal.initiations.messages.domain.workflows;
 
 public class TransmitBatchRequest {
+    private FileInfo fileInfo;
+    private String batchId;
+
+    public TransmitBatchRequest() {
+    }
+
+    public TransmitBatchRequest(FileInfo fileInfo, String batchId) {
+        this.fileInfo = fileInfo;
+        this.batchId = batchId;
+    }
+
+    public FileInfo getFileInfo() {
+        return fileInfo;
+    }
+
+    public void setFileInfo(FileInfo fileInfo) {
+        this.fileInfo = fileInfo;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
 }
@@ -1,4 +1,137 @@
 package com.temporal.initiations.messages.domain.workflows;
 
+/**
+ * Outcome of transmitting one batch to GPO, in a pain.001 message of its own or shared with
+ * other batches of the same file when transmissions are coalesced.
+ */
 public class TransmitBatchResponse {
+    private String batchId;
+    private String transmissionId;
+    private String reference;
+    private int batchCount;
+    private int paymentCount;
+    private long sizeBytes;
+    private String contentHash;
+    private int chunkCount;
+    private long resumedFromBytes;
+    private long durationMillis;
+    private double megabytesPerSecond;
+
+    public TransmitBatchResponse() {
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+
+    /**
+     * @return The id of the transmission that carried the batch: the batch id when it went alone
+     */
+    public String getTransmissionId() {
+        return transmissionId;
+    }
+
+    public void setTransmissionId(String transmissionId) {
+        this.transmissionId = transmissionId;
+    }
+
+    /**
+     * @return GPO's reference for the transmission
+     */
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    /**
+     * @return Batches carried by the transmission, including this one
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public void setBatchCount(int batchCount) {
+        this.batchCount = batchCount;
+    }
+
+    /**
+     * @return Payments of this batch in the transmission
+     */
+    public int getPaymentCount() {
+        return paymentCount;
+    }
+
+    public void setPaymentCount(int paymentCount) {
+        this.paymentCount = paymentCount;
+    }
+
+    /**
+     * @return Length of the whole transmitted message
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    /**
+     * @return Hex SHA-256 of the transmitted message
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @return Chunks uploaded by the attempt that completed the transmission
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    /**
+     * @return Bytes GPO had already acknowledged when the completing attempt started, 0 on a first attempt
+     */
+    public long getResumedFromBytes() {
+        return resumedFromBytes;
+    }
+
+    public void setResumedFromBytes(long resumedFromBytes) {
+        this.resumedFromBytes = resumedFromBytes;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * @return Upload throughput of the completing attempt, in MB (10^6 bytes) per second
+     */
+    public double getMegabytesPerSecond() {
+        return megabytesPerSecond;
+    }
+
+    public void setMegabytesPerSecond(double megabytesPerSecond) {
+        this.megabytesPerSecond = megabytesPerSecond;
+    }
 }
@@ -3,6 +3,9 @@ package com.temporal.initiations.messages.domain.workflows;
 public class VerifyEntitlementsRequest {
     private String senderId;
 
+    public VerifyEntitlementsRequest() {
+    }
+
     public VerifyEntitlementsRequest(String senderId) {
         this.senderId = senderId;
     }
@@ -0,0 +1,166 @@
+package com.temporal.initiations.pain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * A canonical file being written, hashed as it goes.
+ * <p>
+ * Bytes go to a {@code .tmp} sibling of the target, which is only moved into place once complete,
+ * so a canonical file that exists is always whole. A retried transformation picks the temporary
+ * file up again at its last checkpoint instead of writing it from the start.
+ */
+public final class CanonicalFile implements WritableByteChannel {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final MessageDigest digest = newDigest();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private long size;
+
+    private CanonicalFile(Path target, Path temp, FileChannel channel) {
+        this.target = target;
+        this.temp = temp;
+        this.channel = channel;
+    }
+
+    /**
+     * Starts writing {@code target}, replacing any earlier attempt.
+     */
+    public static CanonicalFile create(Path target) throws IOException {
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        var temp = temp(target);
+        return new CanonicalFile(target, temp, FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Picks up an earlier attempt at {@code target} after its first {@code length} bytes, dropping
+     * anything written after them.
+     *
+     * @throws IOException If the earlier attempt is gone or shorter
+     */
+    public static CanonicalFile resume(Path target, long length) throws IOException {
+        var temp = temp(target);
+        var channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < length) {
+                throw new IOException("Canonical file " + temp + " holds " + channel.size() + " bytes, not " + length);
+            }
+            channel.truncate(length);
+            var file = new CanonicalFile(target, temp, channel);
+            // the hash covers the whole file, so the part already written is read back into it
+            var read = ByteBuffer.allocate(BUFFER_SIZE);
+            channel.position(0);
+            while (channel.read(read) > 0) {
+                file.digest.update(read.array(), 0, read.position());
+                read.clear();
+            }
+            file.size = length;
+            return file;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of bytes written so far
+     */
+    public long size() {
+        return size + buffer.position();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int written = src.remaining();
+        while (src.hasRemaining()) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(src.remaining(), buffer.remaining());
+            buffer.put(buffer.position(), src, src.position(), length);
+            buffer.position(buffer.position() + length);
+            src.position(src.position() + length);
+        }
+        return written;
+    }
+
+    /**
+     * Writes everything so far through to disk, so a retry can resume from it.
+     */
+    public void force() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    /**
+     * Completes the file and moves it into place.
+     */
+    public CanonicalPain001Writer.Result commit() throws IOException {
+        try (channel) {
+            force();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new CanonicalPain001Writer.Result(size, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Gives the file up, removing what was written and any earlier complete file.
+     */
+    public void discard() throws IOException {
+        channel.close();
+        Files.deleteIfExists(temp);
+        Files.deleteIfExists(target);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    /**
+     * Closes the file without completing it, keeping what was written for a retry to resume from.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        digest.update(bytes, 0, buffer.limit());
+        size += buffer.limit();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static Path temp(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", e);
+        }
+    }
+}
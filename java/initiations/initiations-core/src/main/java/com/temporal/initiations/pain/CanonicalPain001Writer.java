@@ -0,0 +1,464 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.storage.MappedFileInputStream;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Streams a PAIN.001 document into its canonical form.
+ * <p>
+ * This is the same pain.001 document, elements, namespaces and values unchanged, serialised in
+ * the spirit of Canonical XML (C14N) so that the same content always produces the same bytes and
+ * the content hash can be used for dedupe downstream. It is not a pain.116 message, which is only
+ * produced downstream once the payments have been submitted. The serialisation:
+ * <ul>
+ *     <li>a fixed XML declaration, no prefixes, and a default namespace declared only where it changes</li>
+ *     <li>unqualified attributes only, sorted by name, in double quotes</li>
+ *     <li>comments, processing instructions and whitespace-only text dropped</li>
+ *     <li>CDATA written as text, and text and attributes escaped as in Canonical XML</li>
+ *     <li>empty elements written as a start and end tag pair</li>
+ * </ul>
+ * Element text is encoded straight from the parser's character buffer into the output buffer,
+ * and the output goes to the channel as it fills, so neither a tree nor a string of the document
+ * is ever built.
+ */
+public final class CanonicalPain001Writer {
+
+    private static final byte[] DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DEPTH = 32;
+    private static final int MAX_ATTRIBUTES = 16;
+    private static final String TRANSACTION = "CdtTrfTxInf";
+    private static final TransactionListener IGNORE = (offset, length) -> {
+    };
+
+    /**
+     * @param sizeBytes Length of the canonical document
+     * @param contentHash Hex SHA-256 of the canonical document
+     */
+    public record Result(long sizeBytes, String contentHash) {
+    }
+
+    /**
+     * Told where each payment landed in the canonical document, in document order.
+     */
+    @FunctionalInterface
+    public interface TransactionListener {
+        /**
+         * @param offset Byte offset of the {@code CdtTrfTxInf} start tag
+         * @param length Length of the element up to and including its end tag
+         */
+        void written(long offset, int length) throws IOException;
+    }
+
+    /**
+     * Writes every event a reader pulls through it, so the canonical form is written in the same
+     * pass that parses the document.
+     */
+    private final class Tee extends StreamReaderDelegate {
+        Tee(XMLStreamReader xml) {
+            super(xml);
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            int event = super.next();
+            try {
+                write(event);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return event;
+        }
+
+        /**
+         * As {@link XMLStreamReader#getElementText()}, but reading through {@link #next()} so the
+         * writer sees the text and the end tag too.
+         */
+        @Override
+        public String getElementText() throws XMLStreamException {
+            if (getEventType() != XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("Element text must be read from a start element", getLocation());
+            }
+            var text = new StringBuilder();
+            while (true) {
+                switch (next()) {
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        return text.toString();
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE,
+                         XMLStreamConstants.ENTITY_REFERENCE -> text.append(getText());
+                    case XMLStreamConstants.START_ELEMENT ->
+                            throw new XMLStreamException("Element text must not contain elements", getLocation());
+                    case XMLStreamConstants.END_DOCUMENT ->
+                            throw new XMLStreamException("Unexpected end of document in element text", getLocation());
+                    default -> {
+                        // comments and processing instructions are skipped, as getElementText does
+                    }
+                }
+            }
+        }
+    }
+
+    private final XMLStreamReader xml;
+    private final WritableByteChannel out;
+    private final TransactionListener listener;
+    private final boolean isDocumentEnd;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    // the default namespace in force in the output at each depth
+    private final String[] namespaces = new String[MAX_DEPTH + 1];
+    private final int[] attributes = new int[MAX_ATTRIBUTES];
+    // whitespace held back until we know whether it sits between elements or inside text
+    private char[] whitespace = new char[256];
+    private int whitespaceLength;
+    private char highSurrogate;
+    // output offset of the start of the buffer
+    private long size;
+    private long transactionStart = -1;
+    private int depth;
+    private int hiddenStartTags;
+
+    /**
+     * Writes the canonical form of a document, or of part of one, as it is read from {@code xml}.
+     * <p>
+     * A part is read behind a copy of the start tags open where it begins, as a resumed reader or a
+     * chunk of a parallel one reads it. Those tags are already in the output, so they only set up
+     * the namespaces in force, and nothing is written for them.
+     *
+     * @param offset Where in the output the first byte goes, for the offsets reported to {@code listener}
+     * @param openingTags The copied start tags {@code xml} begins with, empty for a whole document
+     * @param isDocumentStart Whether the part begins the document, so the XML declaration is written first
+     * @param isDocumentEnd Whether the part ends the document, so the final line break is written last
+     */
+    CanonicalPain001Writer(XMLStreamReader xml,
+                           WritableByteChannel out,
+                           TransactionListener listener,
+                           long offset,
+                           String openingTags,
+                           boolean isDocumentStart,
+                           boolean isDocumentEnd) {
+        this.xml = xml;
+        this.out = out;
+        this.listener = listener;
+        this.size = offset;
+        this.hiddenStartTags = tagCount(openingTags);
+        this.isDocumentEnd = isDocumentEnd;
+        namespaces[0] = "";
+        if (isDocumentStart) {
+            buffer.put(DECLARATION);
+        }
+    }
+
+    /**
+     * Transforms {@code source} into {@code target}, which only appears once it is complete.
+     */
+    public static Result transform(Path source, Path target) throws IOException {
+        var canonical = CanonicalFile.create(target);
+        try (var in = MappedFileInputStream.open(source)) {
+            transform(in, canonical, "", true, true);
+        } catch (IOException | RuntimeException e) {
+            canonical.discard();
+            throw e;
+        }
+        return canonical.commit();
+    }
+
+    /**
+     * Streams the canonical form of the document in {@code in} to {@code out}, which the caller owns.
+     *
+     * @see #CanonicalPain001Writer(XMLStreamReader, WritableByteChannel, TransactionListener, long, String, boolean, boolean)
+     */
+    static void transform(InputStream in, WritableByteChannel out, String openingTags,
+                          boolean isDocumentStart, boolean isDocumentEnd) throws IOException {
+        XMLStreamReader xml = null;
+        try {
+            xml = PainXml.INPUT_FACTORY.createXMLStreamReader(in);
+            var writer = new CanonicalPain001Writer(xml, out, IGNORE, 0, openingTags, isDocumentStart, isDocumentEnd);
+            while (xml.hasNext()) {
+                writer.write(xml.next());
+            }
+        } catch (XMLStreamException e) {
+            throw new Pain001ParseException("Unable to transform PAIN.001 document: " + e.getMessage(), e);
+        } finally {
+            if (xml != null) {
+                try {
+                    xml.close();
+                } catch (XMLStreamException e) {
+                    // the underlying stream belongs to the caller
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of start tags in {@code openingTags}
+     */
+    static int tagCount(String openingTags) {
+        int count = 0;
+        // '<' cannot appear inside attribute values, so each one opens a tag
+        for (int i = openingTags.indexOf('<'); i >= 0; i = openingTags.indexOf('<', i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return The length of the canonical end tags of the elements opened by {@code openingTags},
+     * which are unprefixed and have no whitespace, so a part can be cut off before them
+     */
+    static int closingTagsLength(String openingTags) {
+        int length = 0;
+        int from = openingTags.indexOf('<');
+        while (from >= 0) {
+            int end = from + 1;
+            int localName = end;
+            while (end < openingTags.length() && " \t\r\n/>".indexOf(openingTags.charAt(end)) < 0) {
+                if (openingTags.charAt(end) == ':') {
+                    localName = end + 1;
+                }
+                end++;
+            }
+            length += "</>".length() + openingTags.substring(localName, end).getBytes(StandardCharsets.UTF_8).length;
+            from = openingTags.indexOf('<', end);
+        }
+        return length;
+    }
+
+    /**
+     * @return A reader that writes every event pulled through it
+     */
+    XMLStreamReader tee() {
+        return new Tee(xml);
+    }
+
+    private void write(int event) throws XMLStreamException, IOException {
+        switch (event) {
+            case XMLStreamConstants.START_ELEMENT -> {
+                if (depth >= MAX_DEPTH) {
+                    throw new Pain001ParseException("Elements nested deeper than " + MAX_DEPTH);
+                }
+                whitespaceLength = 0;
+                var namespace = xml.getNamespaceURI() == null ? "" : xml.getNamespaceURI();
+                if (hiddenStartTags > 0) {
+                    hiddenStartTags--;
+                    namespaces[++depth] = namespace;
+                    return;
+                }
+                if (TRANSACTION.equals(xml.getLocalName())) {
+                    // the output position is what has been flushed plus what is still buffered
+                    transactionStart = size + buffer.position();
+                }
+                put('<');
+                putName(xml.getLocalName());
+                if (!namespace.equals(namespaces[depth])) {
+                    putAscii(" xmlns=\"");
+                    putText(namespace, true);
+                    put('"');
+                }
+                namespaces[++depth] = namespace;
+                putAttributes();
+                put('>');
+            }
+            case XMLStreamConstants.END_ELEMENT -> {
+                whitespaceLength = 0;
+                depth--;
+                putAscii("</");
+                putName(xml.getLocalName());
+                put('>');
+                if (transactionStart >= 0 && TRANSACTION.equals(xml.getLocalName())) {
+                    listener.written(transactionStart, Math.toIntExact(size + buffer.position() - transactionStart));
+                    transactionStart = -1;
+                    // every complete payment is handed on, so the output holds all of them at a checkpoint
+                    flush();
+                }
+            }
+            case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                if (depth > 0) {
+                    text(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+                }
+            }
+            case XMLStreamConstants.END_DOCUMENT -> {
+                if (isDocumentEnd) {
+                    put('\n');
+                }
+                flush();
+            }
+            default -> {
+                // comments, processing instructions and the prolog are not part of the canonical form
+            }
+        }
+    }
+
+    private void text(char[] chars, int start, int length) throws IOException {
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            if (!isWhitespace(chars[i])) {
+                if (whitespaceLength > 0) {
+                    putText(whitespace, 0, whitespaceLength, false);
+                    whitespaceLength = 0;
+                }
+                putText(chars, start, length, false);
+                return;
+            }
+        }
+        // a parser may split text anywhere, so whitespace only counts once text follows it
+        if (whitespaceLength + length > whitespace.length) {
+            whitespace = Arrays.copyOf(whitespace, Math.max(whitespace.length * 2, whitespaceLength + length));
+        }
+        System.arraycopy(chars, start, whitespace, whitespaceLength, length);
+        whitespaceLength += length;
+    }
+
+    private void putAttributes() throws IOException {
+        int count = 0;
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            var namespace = xml.getAttributeNamespace(i);
+            // qualified attributes, such as xsi:schemaLocation, describe the source document
+            if (namespace == null || namespace.isEmpty()) {
+                if (count == MAX_ATTRIBUTES) {
+                    throw new Pain001ParseException("More than " + MAX_ATTRIBUTES + " attributes on " + xml.getLocalName());
+                }
+                // insertion sort by name; elements carry one or two attributes at most
+                int at = count++;
+                while (at > 0 && xml.getAttributeLocalName(attributes[at - 1]).compareTo(xml.getAttributeLocalName(i)) > 0) {
+                    attributes[at] = attributes[at - 1];
+                    at--;
+                }
+                attributes[at] = i;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            put(' ');
+            putName(xml.getAttributeLocalName(attributes[i]));
+            putAscii("=\"");
+            putText(xml.getAttributeValue(attributes[i]), true);
+            put('"');
+        }
+    }
+
+    private void putText(String value, boolean isAttribute) throws IOException {
+        putText(value.toCharArray(), 0, value.length(), isAttribute);
+    }
+
+    private void putText(char[] chars, int start, int length, boolean isAttribute) throws IOException {
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            switch (c) {
+                case '&' -> putAscii("&amp;");
+                case '<' -> putAscii("&lt;");
+                case '>' -> {
+                    if (isAttribute) {
+                        put('>');
+                    } else {
+                        putAscii("&gt;");
+                    }
+                }
+                case '"' -> {
+                    if (isAttribute) {
+                        putAscii("&quot;");
+                    } else {
+                        put('"');
+                    }
+                }
+                case '\r' -> putAscii("&#xD;");
+                case '\t' -> {
+                    if (isAttribute) {
+                        putAscii("&#x9;");
+                    } else {
+                        put('\t');
+                    }
+                }
+                case '\n' -> {
+                    if (isAttribute) {
+                        putAscii("&#xA;");
+                    } else {
+                        put('\n');
+                    }
+                }
+                default -> putChar(c);
+            }
+        }
+    }
+
+    private void putName(String name) throws IOException {
+        for (int i = 0; i < name.length(); i++) {
+            putChar(name.charAt(i));
+        }
+    }
+
+    private void putChar(char c) throws IOException {
+        if (c < 0x80) {
+            put(c);
+            return;
+        }
+        ensure(4);
+        int p = buffer.position();
+        if (c < 0x800) {
+            bytes[p++] = (byte) (0xc0 | (c >> 6));
+            bytes[p++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)) {
+            // the pair may be split across two text events
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            int codePoint = Character.toCodePoint(highSurrogate, c);
+            bytes[p++] = (byte) (0xf0 | (codePoint >> 18));
+            bytes[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            bytes[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            bytes[p++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else {
+            bytes[p++] = (byte) (0xe0 | (c >> 12));
+            bytes[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            bytes[p++] = (byte) (0x80 | (c & 0x3f));
+        }
+        buffer.position(p);
+    }
+
+    private void putAscii(String value) throws IOException {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private void put(byte[] value) throws IOException {
+        ensure(value.length);
+        buffer.put(value);
+    }
+
+    private void put(char c) throws IOException {
+        ensure(1);
+        buffer.put((byte) c);
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        size += buffer.limit();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
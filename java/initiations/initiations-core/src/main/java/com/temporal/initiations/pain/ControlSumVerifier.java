@@ -0,0 +1,209 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.messages.domain.workflows.ControlSumMismatch;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies the declared transaction counts and control sums of a PAIN.001 document in one pass.
+ * <p>
+ * Totals every {@code InstdAmt} with exact decimal arithmetic while streaming, and compares the
+ * result against {@code GrpHdr/NbOfTxs}, {@code GrpHdr/CtrlSum} and the {@code NbOfTxs} and
+ * {@code CtrlSum} of every {@code PmtInf}. No tree is built and no payment objects are created,
+ * so the check only costs one StAX scan of the file.
+ */
+public final class ControlSumVerifier {
+
+    private static final String GROUP_HEADER = "GrpHdr";
+    private static final int MAX_DEPTH = 32;
+
+    private ControlSumVerifier() {
+    }
+
+    /**
+     * Outcome of a verification.
+     *
+     * @param transactionCount Number of {@code CdtTrfTxInf} elements in the file
+     * @param controlSum Sum of every {@code InstdAmt} in the file
+     * @param mismatches Every header or {@code PmtInf} group whose declared values are wrong; empty when the file passes
+     */
+    public record Result(long transactionCount, BigDecimal controlSum, List<ControlSumMismatch> mismatches) {
+        public boolean isValid() {
+            return mismatches.isEmpty();
+        }
+    }
+
+    /**
+     * Streams the document once and reports any count or sum that does not match.
+     * <p>
+     * The caller owns the stream and is responsible for closing it.
+     */
+    public static Result verify(InputStream in) {
+        XMLStreamReader xml = null;
+        try {
+            // the JDK parser closes its input at the end of the document, and the caller may still need it
+            xml = PainXml.INPUT_FACTORY.createXMLStreamReader(new FilterInputStream(in) {
+                @Override
+                public void close() {
+                }
+            });
+            return verify(xml);
+        } catch (XMLStreamException e) {
+            throw new Pain001ParseException("Unable to verify PAIN.001 document: " + e.getMessage(), e);
+        } finally {
+            if (xml != null) {
+                try {
+                    xml.close();
+                } catch (XMLStreamException e) {
+                    // the underlying stream belongs to the caller
+                }
+            }
+        }
+    }
+
+    private static Result verify(XMLStreamReader xml) throws XMLStreamException {
+        var mismatches = new ArrayList<ControlSumMismatch>();
+        var names = new String[MAX_DEPTH];
+
+        String declaredFileCount = null;
+        BigDecimal declaredFileSum = null;
+        long fileCount = 0;
+        BigDecimal fileSum = BigDecimal.ZERO;
+
+        String groupId = null;
+        String declaredGroupCount = null;
+        BigDecimal declaredGroupSum = null;
+        long groupCount = 0;
+        BigDecimal groupSum = BigDecimal.ZERO;
+        int groupOrdinal = 0;
+
+        int depth = 0;
+        int headerDepth = -1;
+        int groupDepth = -1;
+        int transactionDepth = -1;
+        boolean hasAmount = false;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (depth >= MAX_DEPTH) {
+                    throw new Pain001ParseException("Elements nested deeper than " + MAX_DEPTH);
+                }
+                var name = xml.getLocalName();
+                names[depth] = name;
+                if (transactionDepth >= 0) {
+                    if ("InstdAmt".equals(name) && "Amt".equals(names[depth - 1])) {
+                        var amount = decimal("CdtTrfTxInf/Amt/InstdAmt", xml.getElementText());
+                        groupSum = groupSum.add(amount);
+                        fileSum = fileSum.add(amount);
+                        hasAmount = true;
+                        continue;
+                    }
+                } else if (headerDepth >= 0 && depth == headerDepth + 1) {
+                    if ("NbOfTxs".equals(name)) {
+                        declaredFileCount = xml.getElementText().trim();
+                        continue;
+                    } else if ("CtrlSum".equals(name)) {
+                        declaredFileSum = decimal("GrpHdr/CtrlSum", xml.getElementText());
+                        continue;
+                    }
+                } else if (groupDepth >= 0 && depth == groupDepth + 1) {
+                    switch (name) {
+                        case "PmtInfId" -> {
+                            groupId = xml.getElementText().trim();
+                            continue;
+                        }
+                        case "NbOfTxs" -> {
+                            declaredGroupCount = xml.getElementText().trim();
+                            continue;
+                        }
+                        case "CtrlSum" -> {
+                            declaredGroupSum = decimal("PmtInf/CtrlSum", xml.getElementText());
+                            continue;
+                        }
+                        case "CdtTrfTxInf" -> {
+                            transactionDepth = depth;
+                            hasAmount = false;
+                            groupCount++;
+                            fileCount++;
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (GROUP_HEADER.equals(name)) {
+                    headerDepth = depth;
+                } else if ("PmtInf".equals(name)) {
+                    groupDepth = depth;
+                    groupOrdinal++;
+                    groupId = null;
+                    declaredGroupCount = null;
+                    declaredGroupSum = null;
+                    groupCount = 0;
+                    groupSum = BigDecimal.ZERO;
+                }
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (depth == transactionDepth) {
+                    if (!hasAmount) {
+                        throw new Pain001ParseException("CdtTrfTxInf " + fileCount + " is missing Amt/InstdAmt");
+                    }
+                    transactionDepth = -1;
+                } else if (depth == headerDepth) {
+                    headerDepth = -1;
+                } else if (depth == groupDepth) {
+                    var scope = groupId == null ? "PmtInf[" + groupOrdinal + "]" : groupId;
+                    compare(mismatches, scope, declaredGroupCount, groupCount, declaredGroupSum, groupSum);
+                    groupDepth = -1;
+                }
+            }
+        }
+
+        if (declaredFileCount == null) {
+            throw new Pain001ParseException("GrpHdr is missing NbOfTxs");
+        }
+        // the header is reported first so it reads naturally ahead of the groups
+        var fileMismatches = new ArrayList<ControlSumMismatch>();
+        compare(fileMismatches, GROUP_HEADER, declaredFileCount, fileCount, declaredFileSum, fileSum);
+        fileMismatches.addAll(mismatches);
+        return new Result(fileCount, fileSum, fileMismatches);
+    }
+
+    private static void compare(List<ControlSumMismatch> mismatches,
+                                String scope,
+                                String declaredCount,
+                                long actualCount,
+                                BigDecimal declaredSum,
+                                BigDecimal actualSum) {
+        // NbOfTxs and CtrlSum are optional on PmtInf, so only check what the sender declared
+        if (declaredCount != null && count(scope, declaredCount) != actualCount) {
+            mismatches.add(new ControlSumMismatch(scope, "NbOfTxs", declaredCount, Long.toString(actualCount)));
+        }
+        if (declaredSum != null && declaredSum.compareTo(actualSum) != 0) {
+            mismatches.add(new ControlSumMismatch(scope, "CtrlSum", declaredSum.toPlainString(), actualSum.toPlainString()));
+        }
+    }
+
+    private static long count(String scope, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new Pain001ParseException(scope + "/NbOfTxs is not a number: " + value, e);
+        }
+    }
+
+    private static BigDecimal decimal(String field, String value) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new Pain001ParseException(field + " is not a decimal: " + value, e);
+        }
+    }
+}
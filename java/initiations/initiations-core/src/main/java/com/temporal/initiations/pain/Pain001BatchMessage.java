@@ -0,0 +1,257 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.storage.PaymentIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * One or more batches of a canonical file as a pain.001 message of their own, read as a stream of bytes.
+ * <p>
+ * Payments come straight out of the mapped canonical file through a {@link PaymentIndex}, in file
+ * order, and only the headers around them are built on the heap:
+ * <ul>
+ *     <li>the file's group header, with {@code MsgId} set to the message id, {@code NbOfTxs} set to
+ *     the number of payments carried and the optional {@code CtrlSum} left out</li>
+ *     <li>for each run of payments from the same source {@code PmtInf}, that block's header without
+ *     its optional {@code NbOfTxs} and {@code CtrlSum}, which count the whole source block</li>
+ * </ul>
+ * Payments of several batches are merged back into file order, so every source {@code PmtInf}
+ * appears at most once and its {@code PmtInfId} stays unique within the message. The same batches
+ * always produce the same bytes, so an upload of the message can be resumed part way through.
+ */
+public final class Pain001BatchMessage implements ReadableByteChannel {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final byte[] PAYMENT_INFORMATION_END = "</PmtInf>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EPILOG = "</CstmrCdtTrfInitn></Document>\n".getBytes(StandardCharsets.US_ASCII);
+
+    private enum Stage { PROLOG, GROUP_HEADER, PAYMENTS, DONE }
+
+    /**
+     * Walks the payments of several batches in file order.
+     */
+    private static final class Merge {
+        private final PaymentIndex index;
+        private final int[] batches;
+        private final int[] next;
+        // slots into batches, ordered by where their next payment sits in the file
+        private final PriorityQueue<Integer> queue;
+
+        Merge(PaymentIndex index, int[] batches) {
+            this.index = index;
+            this.batches = batches;
+            this.next = new int[batches.length];
+            this.queue = new PriorityQueue<>(Math.max(1, batches.length), (a, b) -> Long.compare(
+                    index.paymentOffset(batches[a], next[a]), index.paymentOffset(batches[b], next[b])));
+            for (int slot = 0; slot < batches.length; slot++) {
+                if (index.paymentCount(batches[slot]) > 0) {
+                    queue.add(slot);
+                }
+            }
+        }
+
+        boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        int batch() {
+            return batches[queue.element()];
+        }
+
+        int payment() {
+            return next[queue.element()];
+        }
+
+        void advance() {
+            int slot = queue.remove();
+            if (++next[slot] < index.paymentCount(batches[slot])) {
+                queue.add(slot);
+            }
+        }
+    }
+
+    private final PaymentIndex index;
+    private final int[] batches;
+    private final int paymentCount;
+    private final byte[] groupHeader;
+    // PmtInf headers are few and small, so each is rewritten once while sizing the message
+    private final Map<Integer, byte[]> headers = new HashMap<>();
+    private final long size;
+    private Stage stage = Stage.PROLOG;
+    private ByteBuffer current = EMPTY;
+    private Merge payments;
+    private int paymentInformation = -1;
+    private boolean isOpen = true;
+
+    private Pain001BatchMessage(PaymentIndex index, String messageId, int[] batches) throws IOException {
+        this.index = index;
+        this.batches = batches.clone();
+        int paymentCount = 0;
+        for (int batch : batches) {
+            paymentCount += index.paymentCount(batch);
+        }
+        this.paymentCount = paymentCount;
+        this.groupHeader = groupHeader(utf8(index.groupHeader()), messageId, paymentCount);
+        long size = index.prolog().remaining() + groupHeader.length + EPILOG.length;
+        int open = -1;
+        for (var merge = new Merge(index, this.batches); merge.hasNext(); merge.advance()) {
+            int source = index.paymentInformation(merge.batch(), merge.payment());
+            if (source != open) {
+                var header = paymentInformationHeader(utf8(index.paymentInformationHeader(source)));
+                headers.put(source, header);
+                size += header.length + PAYMENT_INFORMATION_END.length;
+                open = source;
+            }
+            size += index.paymentLength(merge.batch(), merge.payment());
+        }
+        this.size = size;
+    }
+
+    /**
+     * Starts reading one batch of an index as a message identified by the batch id. The index
+     * must stay open while it is read.
+     */
+    public static Pain001BatchMessage open(PaymentIndex index, int batch) throws IOException {
+        return new Pain001BatchMessage(index, index.batchId(batch), new int[] {batch});
+    }
+
+    /**
+     * Starts reading several batches of an index as one message. The index must stay open while it is read.
+     */
+    public static Pain001BatchMessage open(PaymentIndex index, String messageId, int[] batches) throws IOException {
+        return new Pain001BatchMessage(index, messageId, batches);
+    }
+
+    /**
+     * @return The length of the whole message in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    public int paymentCount() {
+        return paymentCount;
+    }
+
+    /**
+     * Fills {@code dst} from the message, coming back short only at its end.
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!isOpen) {
+            throw new ClosedChannelException();
+        }
+        int read = 0;
+        while (dst.hasRemaining()) {
+            if (!current.hasRemaining()) {
+                current = nextSegment();
+                if (current == null) {
+                    current = EMPTY;
+                    return read == 0 ? -1 : read;
+                }
+                continue;
+            }
+            int length = Math.min(dst.remaining(), current.remaining());
+            dst.put(dst.position(), current, current.position(), length);
+            dst.position(dst.position() + length);
+            current.position(current.position() + length);
+            read += length;
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return isOpen;
+    }
+
+    @Override
+    public void close() {
+        isOpen = false;
+    }
+
+    /**
+     * @return The next run of bytes of the message, or null once it has all been read
+     */
+    private ByteBuffer nextSegment() throws IOException {
+        switch (stage) {
+            case PROLOG -> {
+                stage = Stage.GROUP_HEADER;
+                return index.prolog();
+            }
+            case GROUP_HEADER -> {
+                stage = Stage.PAYMENTS;
+                payments = new Merge(index, batches);
+                return ByteBuffer.wrap(groupHeader);
+            }
+            case PAYMENTS -> {
+                int source = payments.hasNext() ? index.paymentInformation(payments.batch(), payments.payment()) : -1;
+                if (source != paymentInformation) {
+                    if (paymentInformation >= 0) {
+                        paymentInformation = -1;
+                        return ByteBuffer.wrap(PAYMENT_INFORMATION_END);
+                    }
+                    paymentInformation = source;
+                    return ByteBuffer.wrap(headers.get(source));
+                }
+                if (payments.hasNext()) {
+                    var payment = index.payment(payments.batch(), payments.payment());
+                    payments.advance();
+                    return payment;
+                }
+                stage = Stage.DONE;
+                return ByteBuffer.wrap(EPILOG);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private static byte[] groupHeader(String canonical, String messageId, int paymentCount) {
+        var xml = replaceText(canonical, "MsgId", escape(messageId));
+        xml = replaceText(xml, "NbOfTxs", Integer.toString(paymentCount));
+        return remove(xml, "CtrlSum").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] paymentInformationHeader(String canonical) {
+        return remove(remove(canonical, "NbOfTxs"), "CtrlSum").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replaces the text of the first {@code name} element. Canonical headers have no prefixes,
+     * attributes on these elements or markup in text, so a plain search finds the element itself.
+     */
+    private static String replaceText(String xml, String name, String text) {
+        int start = xml.indexOf("<" + name + ">");
+        if (start < 0) {
+            return xml;
+        }
+        int end = xml.indexOf("</" + name + ">", start);
+        return xml.substring(0, start + name.length() + 2) + text + xml.substring(end);
+    }
+
+    private static String remove(String xml, String name) {
+        int start = xml.indexOf("<" + name + ">");
+        if (start < 0) {
+            return xml;
+        }
+        int end = xml.indexOf("</" + name + ">", start) + name.length() + 3;
+        return xml.substring(0, start) + xml.substring(end);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String utf8(ByteBuffer bytes) {
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+}
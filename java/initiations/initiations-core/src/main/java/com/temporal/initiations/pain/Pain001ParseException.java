@@ -0,0 +1,18 @@
+package com.temporal.initiations.pain;
+
+/**
+ * Thrown when a PAIN.001 document is not well-formed or carries a value that cannot be read.
+ * <p>
+ * The file itself is not correctable by retrying, so callers should treat this as a
+ * permanent failure for the file.
+ */
+public class Pain001ParseException extends RuntimeException {
+
+    public Pain001ParseException(String message) {
+        super(message);
+    }
+
+    public Pain001ParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,674 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.messages.domain.payments.GroupHeader;
+import com.temporal.initiations.messages.domain.payments.PaymentInformation;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+
+/**
+ * Pull-based reader for PAIN.001.001.03 documents.
+ * <p>
+ * Walks {@code GrpHdr}, {@code PmtInf} and {@code CdtTrfTxInf} with StAX and hands out one
+ * {@link PaymentRecord} at a time. Only the current {@code PmtInf} header and the current
+ * transaction are held in memory, so heap use does not grow with the size of the file.
+ * <p>
+ * The group header is available from {@link #getGroupHeader()} once the first payment has been read.
+ * <p>
+ * A reader opened from a file can report its {@link Position} between payments, and
+ * {@link #resume(Path, Position, CanonicalFile)} picks the file up again from there without re-reading what came
+ * before. Positions are byte offsets, so this relies on the file being UTF-8, as PAIN files are.
+ * <p>
+ * A reader opened from a file writes the file's canonical form as it parses it, through a
+ * {@link CanonicalPain001Writer} that sees every event the reader pulls, and reports where each
+ * payment landed there.
+ */
+public final class Pain001Reader implements PaymentReader {
+
+    /**
+     * Where a reader stands between two payments.
+     *
+     * @param byteOffset Offset just past the {@code CdtTrfTxInf} end tag of the last payment read
+     * @param sequence The number of payments read, which is also the sequence of the next one
+     * @param lastEndToEndId The {@code EndToEndId} of the last payment read
+     * @param groupHeader The file's group header
+     * @param paymentInformation The {@code PmtInf} block the next payment would belong to
+     * @param openingTags Start tags of every element still open at the offset, namespace declarations included
+     */
+    public record Position(long byteOffset,
+                           long sequence,
+                           String lastEndToEndId,
+                           GroupHeader groupHeader,
+                           PaymentInformation paymentInformation,
+                           String openingTags) {
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DEPTH = 32;
+    private static final String TRANSACTION = "CdtTrfTxInf";
+    // the widest values the payment tables hold (payments-schema.sql), which are the ISO 20022 limits;
+    // a longer value would fail its insert on every retry, so it fails the file instead
+    private static final int MAX_ID_LENGTH = 35;
+    private static final int MAX_NAME_LENGTH = 140;
+    private static final int MAX_ACCOUNT_LENGTH = 34;
+    private static final int MAX_METHOD_LENGTH = 4;
+    private static final int MAX_DATE_LENGTH = 10;
+    private static final int MAX_CURRENCY_LENGTH = 3;
+    private static final int MAX_AMOUNT_INTEGER_DIGITS = 13;
+    private static final int MAX_AMOUNT_FRACTION_DIGITS = 5;
+
+    private final InputStream in;
+    private final XMLStreamReader xml;
+    private final String[] path = new String[MAX_DEPTH];
+    // start tags of the elements enclosing the current payment, outermost first
+    private final Deque<String> openElements = new ArrayDeque<>();
+    private final Path file;
+    private final long scanStart;
+
+    private GroupHeader groupHeader;
+    private PaymentInformation paymentInformation;
+    private PaymentInformation resumedPaymentInformation;
+    private PaymentRecord next;
+    private String lastEndToEndId;
+    private long sequence;
+    private boolean finished;
+    private PainTagScanner scanner;
+    private long scanned;
+    // where the transaction last parsed, and the last one handed out, were written in canonical form
+    private long writtenOffset = -1;
+    private int writtenLength;
+    private long nextCanonicalOffset = -1;
+    private int nextCanonicalLength;
+    private long canonicalOffset = -1;
+    private int canonicalLength;
+
+    public Pain001Reader(InputStream in) {
+        this(in, null, 0, null, 0, "", false, false);
+    }
+
+    /**
+     * @param canonical Where to write the canonical form of what is read, or null not to
+     * @param canonicalStart Offset in the canonical output of the first byte written
+     * @param openingTags Copied start tags {@code in} begins with, already in the canonical output
+     * @see CanonicalPain001Writer#CanonicalPain001Writer
+     */
+    private Pain001Reader(InputStream in,
+                          Path file,
+                          long scanStart,
+                          WritableByteChannel canonical,
+                          long canonicalStart,
+                          String openingTags,
+                          boolean isDocumentStart,
+                          boolean isDocumentEnd) {
+        this.in = in;
+        this.file = file;
+        this.scanStart = scanStart;
+        try {
+            var raw = PainXml.INPUT_FACTORY.createXMLStreamReader(in);
+            this.xml = canonical == null
+                    ? raw
+                    : new CanonicalPain001Writer(raw, canonical, this::written, canonicalStart, openingTags,
+                    isDocumentStart, isDocumentEnd).tee();
+        } catch (XMLStreamException e) {
+            throw new Pain001ParseException("Unable to read PAIN.001 document", e);
+        }
+    }
+
+    /**
+     * Opens a reader over a PAIN.001 file on disk, which writes the file's canonical form to
+     * {@code canonical} as it goes.
+     *
+     * @param file Path to the file, typically {@code FileInfo.getFilePath()}
+     * @return A reader positioned before the first payment
+     */
+    public static Pain001Reader open(Path file, CanonicalFile canonical) throws IOException {
+        return new Pain001Reader(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), file, 0,
+                canonical, 0, "", true, true);
+    }
+
+    /**
+     * Reads just the group header from the start of a PAIN.001 document, stopping at its end tag,
+     * so a truncated copy of the head of a file is enough.
+     *
+     * @throws Pain001ParseException If the document has no group header before its first {@code PmtInf},
+     * or ends before the group header does
+     */
+    public static GroupHeader peekGroupHeader(InputStream in) {
+        var reader = new Pain001Reader(in);
+        try {
+            while (reader.xml.hasNext()) {
+                if (reader.xml.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (reader.xml.getLocalName()) {
+                    case "GrpHdr" -> {
+                        return reader.readGroupHeader();
+                    }
+                    case "PmtInf", TRANSACTION -> throw new Pain001ParseException(reader.describe("PmtInf precedes GrpHdr"));
+                    default -> {
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new Pain001ParseException(reader.describe(e.getMessage()), e);
+        }
+        throw new Pain001ParseException("Document has no GrpHdr");
+    }
+
+    /**
+     * Reopens a file at a position reported by {@link #position()}.
+     * <p>
+     * The rest of the file is read from the byte offset behind a copy of the start tags that were
+     * open there, so the parser sees a well-formed document and nothing before the offset is read.
+     *
+     * The canonical form of the rest of the file is appended to {@code canonical}, which must hold
+     * exactly the canonical form of the file up to the position.
+     *
+     * @return A reader whose next payment is the one after {@code position}
+     * @throws IllegalArgumentException If the offset does not fall just after a {@code CdtTrfTxInf}
+     */
+    public static Pain001Reader resume(Path file, Position position, CanonicalFile canonical) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            checkBoundary(channel, position.byteOffset());
+            channel.position(position.byteOffset());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        var head = new ByteArrayInputStream(position.openingTags().getBytes(StandardCharsets.UTF_8));
+        var in = new BufferedInputStream(new SequenceInputStream(head, Channels.newInputStream(channel)), BUFFER_SIZE);
+        var reader = new Pain001Reader(in, file, position.byteOffset(),
+                canonical, canonical.size(), position.openingTags(), false, true);
+        reader.restore(position.groupHeader(), position.paymentInformation(), position.sequence());
+        reader.lastEndToEndId = position.lastEndToEndId();
+        return reader;
+    }
+
+    /**
+     * Opens a reader over part of a document whose {@code PmtInf} header has already been read.
+     * <p>
+     * The stream must open the {@code PmtInf} element without its header, as a resumed file does,
+     * with the start tags in {@code openingTags}. Its canonical form goes to {@code canonical} from
+     * offset {@code canonicalStart}, with no declaration and followed by the canonical end tags of
+     * {@code openingTags}. Such a reader has no {@link #position()}.
+     */
+    static Pain001Reader resume(InputStream in,
+                                GroupHeader groupHeader,
+                                PaymentInformation paymentInformation,
+                                long sequence,
+                                WritableByteChannel canonical,
+                                long canonicalStart,
+                                String openingTags) {
+        var reader = new Pain001Reader(in, null, 0, canonical, canonicalStart, openingTags, false, false);
+        reader.restore(groupHeader, paymentInformation, sequence);
+        return reader;
+    }
+
+    /**
+     * Reads the header of the only {@code PmtInf} in a document that has no transactions.
+     */
+    static PaymentInformation readPaymentInformation(InputStream in) throws IOException {
+        try (var reader = new Pain001Reader(in)) {
+            reader.hasNext();
+            return reader.paymentInformation;
+        }
+    }
+
+    /**
+     * Reads the group header from a document that holds nothing else.
+     */
+    static GroupHeader readGroupHeader(InputStream in) throws IOException {
+        try (var reader = new Pain001Reader(in)) {
+            reader.hasNext();
+            return reader.groupHeader;
+        }
+    }
+
+    /**
+     * @return End tags closing, innermost first, the start tags in {@code openingTags}
+     */
+    static String closingTags(String openingTags) {
+        var closing = new StringBuilder();
+        int from = openingTags.indexOf('<');
+        while (from >= 0) {
+            int end = from + 1;
+            while (end < openingTags.length() && " \t\r\n/>".indexOf(openingTags.charAt(end)) < 0) {
+                end++;
+            }
+            closing.insert(0, "</" + openingTags.substring(from + 1, end) + ">");
+            // '<' cannot appear inside attribute values, so the next one opens the next tag
+            from = openingTags.indexOf('<', end);
+        }
+        return closing.toString();
+    }
+
+    private void restore(GroupHeader groupHeader, PaymentInformation paymentInformation, long sequence) {
+        this.groupHeader = groupHeader;
+        this.resumedPaymentInformation = paymentInformation;
+        this.sequence = sequence;
+        this.scanned = sequence;
+    }
+
+    @Override
+    public GroupHeader getGroupHeader() {
+        return groupHeader;
+    }
+
+    /**
+     * @return The {@code PmtInf} block of the most recently read payment
+     */
+    public PaymentInformation getPaymentInformation() {
+        return paymentInformation;
+    }
+
+    /**
+     * @return The number of payments read so far
+     */
+    @Override
+    public long getCount() {
+        return sequence;
+    }
+
+    /**
+     * Reports where the reader stands, for a later {@link #resume(Path, Position, CanonicalFile)}.
+     * <p>
+     * Must be called between {@link #next()} and the following {@link #hasNext()}, while no
+     * payment has been read ahead. The byte offset is found by a {@link PainTagScanner} that
+     * follows the parser through the file, so each call only scans the bytes since the last one.
+     */
+    @Override
+    public Position position() throws IOException {
+        if (file == null) {
+            throw new IllegalStateException("Only a reader opened from a file has a position");
+        }
+        if (next != null) {
+            throw new IllegalStateException("A payment has been read ahead of the position");
+        }
+        if (scanner == null) {
+            scanner = new PainTagScanner(file, scanStart);
+        }
+        for (; scanned < sequence; scanned++) {
+            scanner.skipPastEndTag(TRANSACTION);
+        }
+        return new Position(scanner.position(), sequence, lastEndToEndId, groupHeader, paymentInformation,
+                String.join("", openElements));
+    }
+
+    /**
+     * @return Where the last payment returned by {@link #next()} starts in the canonical output,
+     * or -1 if the reader writes none
+     */
+    @Override
+    public long canonicalOffset() {
+        return canonicalOffset;
+    }
+
+    @Override
+    public int canonicalLength() {
+        return canonicalLength;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = advance();
+            } catch (XMLStreamException e) {
+                throw new Pain001ParseException(describe(e.getMessage()), e);
+            }
+            finished = next == null;
+            // the transaction was written as its end tag was read, which is before the record is handed out
+            nextCanonicalOffset = writtenOffset;
+            nextCanonicalLength = writtenLength;
+        }
+        return next != null;
+    }
+
+    @Override
+    public PaymentRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var record = next;
+        next = null;
+        lastEndToEndId = record.endToEndId();
+        canonicalOffset = nextCanonicalOffset;
+        canonicalLength = nextCanonicalLength;
+        return record;
+    }
+
+    private void written(long offset, int length) {
+        writtenOffset = offset;
+        writtenLength = length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            // closing the StAX reader never closes the underlying stream, so nothing is lost here
+        }
+        try {
+            in.close();
+        } finally {
+            if (scanner != null) {
+                scanner.close();
+            }
+        }
+    }
+
+    private PaymentRecord advance() throws XMLStreamException {
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                openElements.pollLast();
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (xml.getLocalName()) {
+                case "GrpHdr" -> groupHeader = readGroupHeader();
+                case "PmtInf" -> {
+                    openElements.addLast(startTag());
+                    if (resumedPaymentInformation != null) {
+                        // the header was read before the resume position and is not in the stream
+                        paymentInformation = resumedPaymentInformation;
+                        resumedPaymentInformation = null;
+                        continue;
+                    }
+                    // the PmtInf header always precedes its transactions, so this returns the first one
+                    var first = readPaymentInformation();
+                    if (first != null) {
+                        return first;
+                    }
+                    // the empty PmtInf was read to its end tag
+                    openElements.pollLast();
+                }
+                case TRANSACTION -> {
+                    return readTransaction();
+                }
+                default -> openElements.addLast(startTag());
+            }
+        }
+        return null;
+    }
+
+    private String startTag() {
+        var tag = new StringBuilder("<");
+        var prefix = xml.getPrefix();
+        if (prefix != null && !prefix.isEmpty()) {
+            tag.append(prefix).append(':');
+        }
+        tag.append(xml.getLocalName());
+        for (int i = 0; i < xml.getNamespaceCount(); i++) {
+            var namespacePrefix = xml.getNamespacePrefix(i);
+            tag.append(namespacePrefix == null || namespacePrefix.isEmpty() ? " xmlns" : " xmlns:" + namespacePrefix);
+            tag.append("=\"");
+            var uri = xml.getNamespaceURI(i);
+            for (int j = 0; j < uri.length(); j++) {
+                char c = uri.charAt(j);
+                switch (c) {
+                    case '&' -> tag.append("&amp;");
+                    case '<' -> tag.append("&lt;");
+                    case '"' -> tag.append("&quot;");
+                    default -> tag.append(c);
+                }
+            }
+            tag.append('"');
+        }
+        return tag.append('>').toString();
+    }
+
+    static void checkBoundary(FileChannel channel, long offset) throws IOException {
+        // the bytes before the offset must read "/CdtTrfTxInf>" or ":CdtTrfTxInf>", with optional whitespace before the '>'
+        var name = TRANSACTION.getBytes(StandardCharsets.US_ASCII);
+        var tail = ByteBuffer.allocate((int) Math.min(offset, 64));
+        long from = offset - tail.capacity();
+        while (tail.hasRemaining()) {
+            if (channel.read(tail, from + tail.position()) < 0) {
+                break;
+            }
+        }
+        int i = tail.position() - 1;
+        boolean matches = i >= 0 && tail.get(i--) == '>';
+        while (matches && i >= 0 && Character.isWhitespace(tail.get(i))) {
+            i--;
+        }
+        for (int j = name.length - 1; matches && j >= 0; j--, i--) {
+            matches = i >= 0 && tail.get(i) == name[j];
+        }
+        if (!matches || i < 0 || (tail.get(i) != '/' && tail.get(i) != ':')) {
+            throw new IllegalArgumentException("Byte " + offset + " is not the end of a " + TRANSACTION);
+        }
+    }
+
+    private GroupHeader readGroupHeader() throws XMLStreamException {
+        String messageId = null;
+        String creationDateTime = null;
+        String numberOfTransactions = null;
+        String controlSum = null;
+        String initiatingPartyName = null;
+        int depth = 0;
+        while (true) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                push(depth);
+                if (at(depth, "MsgId")) {
+                    messageId = text();
+                } else if (at(depth, "CreDtTm")) {
+                    creationDateTime = text();
+                } else if (at(depth, "NbOfTxs")) {
+                    numberOfTransactions = text();
+                } else if (at(depth, "CtrlSum")) {
+                    controlSum = text();
+                } else if (at(depth, "InitgPty", "Nm")) {
+                    initiatingPartyName = text();
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+        }
+        if (numberOfTransactions == null) {
+            throw new Pain001ParseException(describe("GrpHdr is missing NbOfTxs"));
+        }
+        return new GroupHeader(
+                messageId,
+                creationDateTime,
+                toLong("GrpHdr/NbOfTxs", numberOfTransactions),
+                controlSum == null ? null : toDecimal("GrpHdr/CtrlSum", controlSum),
+                initiatingPartyName);
+    }
+
+    private PaymentRecord readPaymentInformation() throws XMLStreamException {
+        String paymentInformationId = null;
+        String paymentMethod = null;
+        String numberOfTransactions = null;
+        String controlSum = null;
+        String requestedExecutionDate = null;
+        String debtorName = null;
+        String debtorAccount = null;
+        int depth = 0;
+        while (true) {
+            int event = xml.next();
+            boolean isEnd = event == XMLStreamConstants.END_ELEMENT && depth == 0;
+            if (isEnd || (event == XMLStreamConstants.START_ELEMENT && depth == 0 && TRANSACTION.equals(xml.getLocalName()))) {
+                paymentInformation = new PaymentInformation(
+                        paymentInformationId,
+                        paymentMethod,
+                        numberOfTransactions == null ? null : toLong("PmtInf/NbOfTxs", numberOfTransactions),
+                        controlSum == null ? null : toDecimal("PmtInf/CtrlSum", controlSum),
+                        requestedExecutionDate,
+                        debtorName,
+                        debtorAccount);
+                // a PmtInf without any transactions has nothing to return
+                return isEnd ? null : readTransaction();
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                push(depth);
+                if (at(depth, "PmtInfId")) {
+                    paymentInformationId = text("PmtInf/PmtInfId", MAX_ID_LENGTH);
+                } else if (at(depth, "PmtMtd")) {
+                    paymentMethod = text("PmtInf/PmtMtd", MAX_METHOD_LENGTH);
+                } else if (at(depth, "NbOfTxs")) {
+                    numberOfTransactions = text();
+                } else if (at(depth, "CtrlSum")) {
+                    controlSum = text();
+                } else if (at(depth, "ReqdExctnDt")) {
+                    requestedExecutionDate = text("PmtInf/ReqdExctnDt", MAX_DATE_LENGTH);
+                } else if (at(depth, "Dbtr", "Nm")) {
+                    debtorName = text();
+                } else if (at(depth, "DbtrAcct", "Id", "IBAN") || at(depth, "DbtrAcct", "Id", "Othr", "Id")) {
+                    debtorAccount = text("PmtInf/DbtrAcct/Id", MAX_ACCOUNT_LENGTH);
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private PaymentRecord readTransaction() throws XMLStreamException {
+        String endToEndId = null;
+        String amount = null;
+        String currency = null;
+        String creditorName = null;
+        String creditorAccount = null;
+        String remittanceInformation = null;
+        int depth = 0;
+        while (true) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                push(depth);
+                if (at(depth, "PmtId", "EndToEndId")) {
+                    endToEndId = text("CdtTrfTxInf/PmtId/EndToEndId", MAX_ID_LENGTH);
+                } else if (at(depth, "Amt", "InstdAmt")) {
+                    currency = checkLength("CdtTrfTxInf/Amt/InstdAmt/@Ccy", xml.getAttributeValue(null, "Ccy"), MAX_CURRENCY_LENGTH);
+                    amount = text();
+                } else if (at(depth, "Cdtr", "Nm")) {
+                    creditorName = text("CdtTrfTxInf/Cdtr/Nm", MAX_NAME_LENGTH);
+                } else if (at(depth, "CdtrAcct", "Id", "IBAN") || at(depth, "CdtrAcct", "Id", "Othr", "Id")) {
+                    creditorAccount = text("CdtTrfTxInf/CdtrAcct/Id", MAX_ACCOUNT_LENGTH);
+                } else if (at(depth, "RmtInf", "Ustrd")) {
+                    remittanceInformation = text("CdtTrfTxInf/RmtInf/Ustrd", MAX_NAME_LENGTH);
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+        }
+        if (amount == null) {
+            throw new Pain001ParseException(describe("CdtTrfTxInf " + endToEndId + " is missing Amt/InstdAmt"));
+        }
+        return new PaymentRecord(
+                paymentInformation,
+                sequence++,
+                endToEndId,
+                toAmount("CdtTrfTxInf/Amt/InstdAmt", amount),
+                currency,
+                creditorName,
+                creditorAccount,
+                remittanceInformation);
+    }
+
+    private void push(int depth) {
+        if (depth >= MAX_DEPTH) {
+            throw new Pain001ParseException(describe("Elements nested deeper than " + MAX_DEPTH));
+        }
+        path[depth] = xml.getLocalName();
+    }
+
+    private boolean at(int depth, String a) {
+        return depth == 0 && a.equals(path[0]);
+    }
+
+    private boolean at(int depth, String a, String b) {
+        return depth == 1 && b.equals(path[1]) && a.equals(path[0]);
+    }
+
+    private boolean at(int depth, String a, String b, String c) {
+        return depth == 2 && c.equals(path[2]) && b.equals(path[1]) && a.equals(path[0]);
+    }
+
+    private boolean at(int depth, String a, String b, String c, String d) {
+        return depth == 3 && d.equals(path[3]) && c.equals(path[2]) && b.equals(path[1]) && a.equals(path[0]);
+    }
+
+    private String text() throws XMLStreamException {
+        return xml.getElementText().trim();
+    }
+
+    private String text(String field, int maxLength) throws XMLStreamException {
+        return checkLength(field, text(), maxLength);
+    }
+
+    private String checkLength(String field, String value, int maxLength) {
+        if (value != null && value.codePointCount(0, value.length()) > maxLength) {
+            throw new Pain001ParseException(describe(field + " is longer than " + maxLength + " characters: " + value));
+        }
+        return value;
+    }
+
+    private long toLong(String field, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new Pain001ParseException(describe(field + " is not a number: " + value), e);
+        }
+    }
+
+    private BigDecimal toDecimal(String field, String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new Pain001ParseException(describe(field + " is not a decimal: " + value), e);
+        }
+    }
+
+    private BigDecimal toAmount(String field, String value) {
+        var amount = toDecimal(field, value);
+        if (amount.scale() > MAX_AMOUNT_FRACTION_DIGITS || amount.precision() - amount.scale() > MAX_AMOUNT_INTEGER_DIGITS) {
+            throw new Pain001ParseException(describe(field + " has more than " + MAX_AMOUNT_INTEGER_DIGITS
+                    + " integer or " + MAX_AMOUNT_FRACTION_DIGITS + " fraction digits: " + value));
+        }
+        return amount;
+    }
+
+    private String describe(String message) {
+        var location = xml.getLocation();
+        return location == null
+                ? message
+                : message + " (line " + location.getLineNumber() + ", column " + location.getColumnNumber() + ")";
+    }
+}
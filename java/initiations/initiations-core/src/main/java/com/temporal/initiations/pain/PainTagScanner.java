@@ -0,0 +1,248 @@
+package com.temporal.initiations.pain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Forward-only scanner that finds element boundaries in a UTF-8 XML file by byte offset.
+ * <p>
+ * StAX only reports character offsets, and those include the parser's read-ahead, so they cannot
+ * be used to seek back into a file. This scanner understands just enough XML to do that: it steps
+ * over comments, CDATA sections, processing instructions and quoted attribute values, and
+ * matches tags by local name whatever their prefix. It decodes nothing and allocates nothing per
+ * tag, so it runs well ahead of any parser it is paired with.
+ */
+public final class PainTagScanner implements AutoCloseable {
+
+    /**
+     * Returned by {@link #skipPastTag} when the file ends before another matching tag.
+     */
+    public static final int END_OF_FILE = Integer.MIN_VALUE;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_NAME_LENGTH = 256;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private final byte[] name = new byte[MAX_NAME_LENGTH];
+    private long position;
+    private long tagStart;
+
+    /**
+     * @param file The file to scan
+     * @param start Byte offset to start scanning from, which must not be inside a tag
+     */
+    public PainTagScanner(Path file, long start) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(start);
+        this.position = start;
+    }
+
+    /**
+     * @return The byte offset of the next byte to be scanned
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * @return The byte offset of the {@code <} that opened the last tag returned by {@link #skipPastTag}
+     */
+    public long tagStart() {
+        return tagStart;
+    }
+
+    /**
+     * Moves past the next end tag with the given local name.
+     *
+     * @return The byte offset just after the tag's closing {@code >}
+     * @throws Pain001ParseException If the file ends first
+     */
+    public long skipPastEndTag(String localName) throws IOException {
+        var targets = names(localName);
+        int tag;
+        while ((tag = skipPastTag(targets)) != ~0) {
+            if (tag == END_OF_FILE) {
+                throw new Pain001ParseException("Unexpected end of file at byte " + position);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Moves past the next start or end tag whose local name is one of {@code localNames}.
+     *
+     * @return The index of the name for a start tag, its complement {@code ~index} for an end tag,
+     * or {@link #END_OF_FILE}
+     */
+    public int skipPastTag(String... localNames) throws IOException {
+        return skipPastTag(names(localNames));
+    }
+
+    /**
+     * As {@link #skipPastTag(String...)}, with the names already encoded by {@link #names}.
+     */
+    int skipPastTag(byte[][] targets) throws IOException {
+        while (true) {
+            int c = nextOrEnd();
+            if (c < 0) {
+                return END_OF_FILE;
+            }
+            if (c != '<') {
+                continue;
+            }
+            long start = position - 1;
+            c = next();
+            switch (c) {
+                case '!' -> skipDeclaration();
+                case '?' -> skipUntil('?', '>');
+                case '/' -> {
+                    int match = readName(next(), targets);
+                    if (match >= 0) {
+                        tagStart = start;
+                        return ~match;
+                    }
+                }
+                default -> {
+                    int match = readName(c, targets);
+                    if (match >= 0) {
+                        tagStart = start;
+                        return match;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static byte[][] names(String... localNames) {
+        var targets = new byte[localNames.length][];
+        for (int i = 0; i < localNames.length; i++) {
+            targets[i] = localNames[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return targets;
+    }
+
+    /**
+     * Reads a tag name starting with {@code c} and moves past the rest of the tag.
+     *
+     * @return The index of the target matching the name's local part, or -1
+     */
+    private int readName(int c, byte[][] targets) throws IOException {
+        int length = 0;
+        int localStart = 0;
+        while (c != '>' && c != '/' && !isWhitespace(c)) {
+            if (c == ':') {
+                localStart = length + 1;
+            }
+            if (length < MAX_NAME_LENGTH) {
+                name[length] = (byte) c;
+            }
+            length++;
+            c = next();
+        }
+        if (c != '>') {
+            skipTag();
+        }
+        if (length > MAX_NAME_LENGTH) {
+            return -1;
+        }
+        for (int i = 0; i < targets.length; i++) {
+            if (Arrays.equals(name, localStart, length, targets[i], 0, targets[i].length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void skipDeclaration() throws IOException {
+        int c = next();
+        if (c == '-') {
+            next();
+            skipUntil('-', '-', '>');
+        } else if (c == '[') {
+            // <![CDATA[ ... ]]>
+            skipUntil(']', ']', '>');
+        } else {
+            // DOCTYPE and friends; DTDs are refused by the parser anyway
+            skipTag();
+        }
+    }
+
+    private void skipTag() throws IOException {
+        int quote = 0;
+        while (true) {
+            int c = next();
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return;
+            }
+        }
+    }
+
+    private void skipUntil(int a, int b) throws IOException {
+        int previous = -1;
+        while (true) {
+            int c = next();
+            if (previous == a && c == b) {
+                return;
+            }
+            previous = c;
+        }
+    }
+
+    private void skipUntil(int a, int b, int c) throws IOException {
+        int first = -1;
+        int second = -1;
+        while (true) {
+            int third = next();
+            if (first == a && second == b && third == c) {
+                return;
+            }
+            first = second;
+            second = third;
+        }
+    }
+
+    private int next() throws IOException {
+        int c = nextOrEnd();
+        if (c < 0) {
+            throw new Pain001ParseException("Unexpected end of file at byte " + position);
+        }
+        return c;
+    }
+
+    private int nextOrEnd() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                return -1;
+            }
+        }
+        position++;
+        return buffer.get() & 0xff;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
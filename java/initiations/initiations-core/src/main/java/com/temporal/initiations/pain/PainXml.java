@@ -0,0 +1,23 @@
+package com.temporal.initiations.pain;
+
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * Shared StAX configuration for reading PAIN documents.
+ */
+final class PainXml {
+
+    static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+    private PainXml() {
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        var factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        // PAIN files come from customers, so never resolve DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
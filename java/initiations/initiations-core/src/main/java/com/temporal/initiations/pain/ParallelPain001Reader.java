@@ -0,0 +1,438 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.messages.domain.payments.GroupHeader;
+import com.temporal.initiations.messages.domain.payments.PaymentInformation;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a PAIN.001 file on several threads while handing out payments in document order.
+ * <p>
+ * A byte-level pre-scan with {@link PainTagScanner} finds the boundaries of every {@code PmtInf}
+ * and cuts each one into chunks of at most {@code chunkSize} transactions, reading the
+ * {@code PmtInf} header once as it goes. Every chunk is then parsed on the pool behind a copy of
+ * the start tags that enclose it, so chunks do not depend on each other. Chunks are consumed
+ * strictly in file order and their sequence numbers are fixed by the pre-scan, so the payments
+ * handed out, their order and their sequences are exactly those of {@link Pain001Reader}. Only a
+ * bounded number of chunks is in flight, so heap use still does not grow with the size of the file.
+ * <p>
+ * The file's canonical form is written in the same pass: each task also writes the canonical form
+ * of its chunk, and of the bytes between the previous chunk and this one, which hold the group
+ * header, {@code PmtInf} headers and end tags. The consumer appends them to the canonical file in
+ * file order as it takes each chunk, so the output is exactly that of {@link Pain001Reader}.
+ */
+public final class ParallelPain001Reader implements PaymentReader {
+
+    private static final byte[][] NAMES = PainTagScanner.names("PmtInf", "CdtTrfTxInf", "GrpHdr", "Document", "CstmrCdtTrfInitn");
+    private static final int PAYMENT_INFORMATION = 0;
+    private static final int TRANSACTION = 1;
+    private static final int GROUP_HEADER = 2;
+    private static final int DOCUMENT = 3;
+    private static final int INITIATION = 4;
+
+    /**
+     * Consecutive transactions of one {@code PmtInf}.
+     *
+     * @param gapStart Byte offset where the bytes since the previous chunk begin
+     * @param gapTags Start tags open at {@code gapStart}
+     * @param start Byte offset of the first transaction's start tag
+     * @param ends Byte offset just past the end tag of each transaction
+     * @param openingTags Start tags enclosing the transactions, up to and including the {@code PmtInf}
+     */
+    private record Chunk(long gapStart,
+                         String gapTags,
+                         long start,
+                         long[] ends,
+                         long firstSequence,
+                         String openingTags,
+                         PaymentInformation paymentInformation) {
+    }
+
+    /**
+     * @param canonical Canonical form of the gap before the chunk and of the chunk itself
+     * @param offsets Where each payment starts in {@code canonical}
+     * @param lengths The canonical length of each payment
+     */
+    private record Parsed(List<PaymentRecord> payments, byte[] canonical, long[] offsets, int[] lengths) {
+    }
+
+    private record Pending(Chunk chunk, Future<Parsed> parsed) {
+    }
+
+    private final FileChannel channel;
+    private final CanonicalFile canonical;
+    private final PainTagScanner scanner;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int window;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+
+    // pre-scan state
+    private String documentTags = "";
+    private long groupHeaderStart;
+    private GroupHeader groupHeader;
+    private String paymentInformationTags;
+    private long paymentInformationHeaderStart;
+    private PaymentInformation paymentInformation;
+    private long nextSequence;
+    private long gapStart;
+    private String gapTags = "";
+    private boolean isScanned;
+
+    // consumer state
+    private Chunk chunk;
+    private Parsed parsed = new Parsed(List.of(), new byte[0], new long[0], new int[0]);
+    private long parsedStart;
+    private int index;
+    private PaymentRecord last;
+    private Chunk lastChunk;
+    private int lastIndex;
+    private long count;
+    private long canonicalOffset = -1;
+    private int canonicalLength;
+    private boolean isWritten;
+
+    private ParallelPain001Reader(Path file, long start, CanonicalFile canonical, int parallelism, int chunkSize)
+            throws IOException {
+        this.canonical = canonical;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.scanner = new PainTagScanner(file, start);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.executor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("pain-parse-", 0).daemon(true).factory());
+        this.chunkSize = chunkSize;
+        this.window = parallelism * 2;
+    }
+
+    /**
+     * Opens a file for parsing on {@code parallelism} threads, writing its canonical form to {@code canonical}.
+     *
+     * @param chunkSize The most transactions parsed as one unit of work
+     */
+    public static ParallelPain001Reader open(Path file, CanonicalFile canonical, int parallelism, int chunkSize)
+            throws IOException {
+        return new ParallelPain001Reader(file, 0, canonical, parallelism, chunkSize);
+    }
+
+    /**
+     * Reopens a file at a position reported by either reader's {@code position()}, appending the
+     * canonical form of the rest of the file to {@code canonical} as {@link Pain001Reader#resume} does.
+     *
+     * @throws IllegalArgumentException If the offset does not fall just after a {@code CdtTrfTxInf}
+     */
+    public static ParallelPain001Reader resume(Path file,
+                                               Pain001Reader.Position position,
+                                               CanonicalFile canonical,
+                                               int parallelism,
+                                               int chunkSize) throws IOException {
+        var reader = new ParallelPain001Reader(file, position.byteOffset(), canonical, parallelism, chunkSize);
+        try {
+            Pain001Reader.checkBoundary(reader.channel, position.byteOffset());
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        var openingTags = position.openingTags();
+        reader.documentTags = openingTags.substring(0, openingTags.lastIndexOf('<'));
+        reader.groupHeader = position.groupHeader();
+        reader.paymentInformationTags = openingTags;
+        reader.paymentInformation = position.paymentInformation();
+        reader.nextSequence = position.sequence();
+        reader.count = position.sequence();
+        reader.gapStart = position.byteOffset();
+        reader.gapTags = openingTags;
+        return reader;
+    }
+
+    @Override
+    public GroupHeader getGroupHeader() {
+        return groupHeader;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public long canonicalOffset() {
+        return canonicalOffset;
+    }
+
+    @Override
+    public int canonicalLength() {
+        return canonicalLength;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index == parsed.payments().size()) {
+            try {
+                fill();
+                var next = pending.poll();
+                if (next == null) {
+                    writeEnd();
+                    return false;
+                }
+                chunk = next.chunk();
+                parsed = join(next.parsed());
+                parsedStart = canonical.size();
+                canonical.write(ByteBuffer.wrap(parsed.canonical()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public PaymentRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = parsed.payments().get(index);
+        canonicalOffset = parsedStart + parsed.offsets()[index];
+        canonicalLength = parsed.lengths()[index];
+        lastChunk = chunk;
+        lastIndex = index++;
+        count++;
+        return last;
+    }
+
+    /**
+     * Reports the position after the last payment returned by {@link #next()}. Chunks already
+     * record where each of their transactions ends, so this does not touch the file.
+     */
+    @Override
+    public Pain001Reader.Position position() {
+        if (last == null) {
+            throw new IllegalStateException("No payment has been read");
+        }
+        return new Pain001Reader.Position(lastChunk.ends()[lastIndex], last.sequence() + 1, last.endToEndId(),
+                groupHeader, lastChunk.paymentInformation(), lastChunk.openingTags());
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        try {
+            scanner.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void fill() throws IOException {
+        while (!isScanned && pending.size() < window) {
+            var next = nextChunk();
+            if (next == null) {
+                isScanned = true;
+            } else {
+                pending.add(new Pending(next, executor.submit(() -> parse(next))));
+                gapStart = next.ends()[next.ends().length - 1];
+                gapTags = next.openingTags();
+            }
+        }
+    }
+
+    /**
+     * Scans forward to the end of the next chunk.
+     *
+     * @return The chunk, or null at the end of the file
+     */
+    private Chunk nextChunk() throws IOException {
+        long start = 0;
+        long[] ends = null;
+        int size = 0;
+        while (true) {
+            int tag = scanner.skipPastTag(NAMES);
+            switch (tag) {
+                case PainTagScanner.END_OF_FILE -> {
+                    if (paymentInformationTags != null) {
+                        throw new Pain001ParseException("Unexpected end of file inside PmtInf");
+                    }
+                    return null;
+                }
+                case DOCUMENT, INITIATION -> {
+                    if (paymentInformationTags == null) {
+                        documentTags += text(scanner.tagStart(), scanner.position());
+                    }
+                }
+                case GROUP_HEADER -> groupHeaderStart = scanner.tagStart();
+                case ~GROUP_HEADER -> groupHeader = Pain001Reader.readGroupHeader(
+                        document(documentTags, groupHeaderStart, scanner.position()));
+                case PAYMENT_INFORMATION -> {
+                    paymentInformationTags = documentTags + text(scanner.tagStart(), scanner.position());
+                    paymentInformationHeaderStart = scanner.position();
+                    paymentInformation = null;
+                }
+                case TRANSACTION -> {
+                    if (paymentInformationTags == null) {
+                        throw new Pain001ParseException("CdtTrfTxInf outside PmtInf at byte " + scanner.tagStart());
+                    }
+                    if (paymentInformation == null) {
+                        // the header runs up to the first transaction and is read once for the whole PmtInf
+                        paymentInformation = Pain001Reader.readPaymentInformation(
+                                document(paymentInformationTags, paymentInformationHeaderStart, scanner.tagStart()));
+                    }
+                    if (size == 0) {
+                        start = scanner.tagStart();
+                        ends = new long[chunkSize];
+                    }
+                }
+                case ~TRANSACTION -> {
+                    if (ends == null) {
+                        throw new Pain001ParseException("Unexpected end of CdtTrfTxInf at byte " + scanner.tagStart());
+                    }
+                    ends[size++] = scanner.position();
+                    if (size == chunkSize) {
+                        return chunk(start, ends, size);
+                    }
+                }
+                case ~PAYMENT_INFORMATION -> {
+                    var rest = size == 0 ? null : chunk(start, ends, size);
+                    paymentInformationTags = null;
+                    paymentInformation = null;
+                    if (rest != null) {
+                        return rest;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private Chunk chunk(long start, long[] ends, int size) {
+        var chunk = new Chunk(gapStart, gapTags, start, size == ends.length ? ends : Arrays.copyOf(ends, size),
+                nextSequence, paymentInformationTags, paymentInformation);
+        nextSequence += size;
+        return chunk;
+    }
+
+    private Parsed parse(Chunk chunk) throws IOException {
+        var ends = chunk.ends();
+        // both parts are read inside the start tags of the chunk, whose end tags are then cut off again
+        int closingLength = CanonicalPain001Writer.closingTagsLength(chunk.openingTags());
+        var out = new ByteArrayOutputStream();
+        CanonicalPain001Writer.transform(document(chunk.gapTags(), chunk.gapStart(), chunk.start(), chunk.openingTags()),
+                Channels.newChannel(out), chunk.gapTags(), chunk.gapStart() == 0, false);
+        var gap = out.toByteArray();
+        out.reset();
+        out.write(gap, 0, gap.length - closingLength);
+
+        var in = document(chunk.openingTags(), chunk.start(), ends[ends.length - 1]);
+        var offsets = new long[ends.length];
+        var lengths = new int[ends.length];
+        var payments = new ArrayList<PaymentRecord>(ends.length);
+        try (var reader = Pain001Reader.resume(in, groupHeader, chunk.paymentInformation(), chunk.firstSequence(),
+                Channels.newChannel(out), out.size(), chunk.openingTags())) {
+            while (reader.hasNext()) {
+                var payment = reader.next();
+                if (payments.size() < ends.length) {
+                    offsets[payments.size()] = reader.canonicalOffset();
+                    lengths[payments.size()] = reader.canonicalLength();
+                }
+                payments.add(payment);
+            }
+        }
+        if (payments.size() != ends.length) {
+            throw new Pain001ParseException("Expected " + ends.length + " transactions from byte " + chunk.start()
+                    + " but read " + payments.size());
+        }
+        var bytes = out.toByteArray();
+        return new Parsed(payments, Arrays.copyOf(bytes, bytes.length - closingLength), offsets, lengths);
+    }
+
+    /**
+     * Appends the canonical form of everything after the last chunk, once.
+     */
+    private void writeEnd() throws IOException {
+        if (!isWritten) {
+            isWritten = true;
+            CanonicalPain001Writer.transform(document(gapTags, gapStart, channel.size(), ""), canonical, gapTags,
+                    gapStart == 0, true);
+        }
+    }
+
+    private static Parsed join(Future<Parsed> parsed) {
+        try {
+            return parsed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while parsing"));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return A well-formed document made of the file's bytes in {@code [from, to)} wrapped in {@code openingTags}
+     */
+    private InputStream document(String openingTags, long from, long to) throws IOException {
+        return document(openingTags, from, to, openingTags);
+    }
+
+    /**
+     * @return The file's bytes in {@code [from, to)}, which begin inside {@code openingTags} and end
+     * inside {@code closingContextTags}, made into a well-formed document
+     */
+    private InputStream document(String openingTags, long from, long to, String closingContextTags) throws IOException {
+        var head = openingTags.getBytes(StandardCharsets.UTF_8);
+        var tail = Pain001Reader.closingTags(closingContextTags).getBytes(StandardCharsets.UTF_8);
+        var bytes = new byte[Math.toIntExact(head.length + (to - from) + tail.length)];
+        System.arraycopy(head, 0, bytes, 0, head.length);
+        read(from, ByteBuffer.wrap(bytes, head.length, (int) (to - from)));
+        System.arraycopy(tail, 0, bytes, bytes.length - tail.length, tail.length);
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private String text(long from, long to) throws IOException {
+        var buffer = ByteBuffer.allocate(Math.toIntExact(to - from));
+        read(from, buffer);
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    private void read(long from, ByteBuffer buffer) throws IOException {
+        long position = from;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new Pain001ParseException("Unexpected end of file at byte " + position);
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.messages.domain.payments.GroupHeader;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Streams the payments of a PAIN.001 document in document order.
+ */
+public interface PaymentReader extends Iterator<PaymentRecord>, AutoCloseable {
+
+    /**
+     * @return The group header, once the first payment has been read
+     */
+    GroupHeader getGroupHeader();
+
+    /**
+     * @return The number of payments read so far
+     */
+    long getCount();
+
+    /**
+     * Reports where the reader stands after the last payment returned by {@link #next()}, for a
+     * later {@link Pain001Reader#resume(java.nio.file.Path, Pain001Reader.Position, CanonicalFile)}.
+     */
+    Pain001Reader.Position position() throws IOException;
+
+    /**
+     * @return Byte offset in the canonical file of the last payment returned by {@link #next()}
+     */
+    long canonicalOffset();
+
+    /**
+     * @return Length in the canonical file of the last payment returned by {@link #next()}
+     */
+    int canonicalLength();
+
+    @Override
+    void close() throws IOException;
+}
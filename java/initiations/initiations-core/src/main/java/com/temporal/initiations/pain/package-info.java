@@ -0,0 +1,16 @@
+/**
+ * Streaming readers and writers for ISO 20022 PAIN documents.
+ *
+ * This package contains:
+ * - Pain001Reader: pull-based StAX reader yielding one payment record at a time, resumable by byte offset
+ * - ParallelPain001Reader: the same payments in the same order, parsed in chunks on several threads
+ * - PaymentReader: what both readers offer the transformation
+ * - CanonicalPain001Writer: streaming, byte-for-byte deterministic canonical (C14N-style) pain.001 writer
+ * - CanonicalFile: a canonical file being written and hashed, resumable and only moved into place when complete
+ * - Pain001BatchMessage: one batch of a canonical file as its own pain.001 message, read through the payment index
+ * - PainTagScanner: byte-level scanner locating element boundaries for the readers
+ *
+ * Files run to hundreds of thousands of transactions, so nothing in this package
+ * loads a whole document into memory.
+ */
+package com.temporal.initiations.pain;
@@ -0,0 +1,211 @@
+package com.temporal.initiations.persistence;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of file content hashes used for the File Dupe Check.
+ * <p>
+ * Entries are keyed by sender plus SHA-256 content hash and kept in the {@code file_hash} table of
+ * the database the workers share, so a replayed file is recognised whichever worker checks it,
+ * without re-reading any earlier file. When two workers register the same content at once, the
+ * primary key decides which file was first. A bounded in-memory cache sits in front of the table
+ * for hot lookups, and entries older than the retention period are deleted through an index on
+ * their registration time.
+ */
+@Component
+public class FileHashIndex {
+
+    /**
+     * A previously registered file.
+     *
+     * @param fileId The file that first registered the content
+     * @param registeredAtMillis When the content was first registered, in epoch milliseconds
+     */
+    public record Entry(String fileId, long registeredAtMillis) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(FileHashIndex.class);
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(1);
+    // SQLSTATE of a unique constraint violation, on PostgreSQL and H2 alike
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final DataSource dataSource;
+    // sender:hash -> entry; only ever a copy of a row, so a stale entry is caught by its expiry
+    private final Cache<String, Entry> cache;
+    private final Duration retention;
+    private final Clock clock;
+    private final AtomicLong lastSweepMillis = new AtomicLong();
+
+    @Autowired
+    public FileHashIndex(
+            DataSource dataSource,
+            @Value("${initiations.files.hash-index.cache-size:100000}") long cacheSize,
+            @Value("${initiations.files.hash-index.retention:90d}") Duration retention) {
+        this(dataSource, cacheSize, retention, Clock.systemUTC());
+    }
+
+    public FileHashIndex(DataSource dataSource, long cacheSize, Duration retention, Clock clock) {
+        this.dataSource = dataSource;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    /**
+     * Records that {@code fileId} from {@code senderId} has the given content hash.
+     *
+     * @return The earlier file with the same content from the same sender, if there is one. A file
+     * re-registering its own hash, as happens when the check is retried, is not a duplicate.
+     */
+    public Optional<Entry> register(String senderId, String contentHash, String fileId) throws SQLException {
+        var key = key(senderId, contentHash);
+        long now = clock.millis();
+        sweepIfDue(now);
+
+        var existing = lookup(key, senderId, contentHash, now);
+        if (existing != null) {
+            return existing.fileId().equals(fileId) ? Optional.empty() : Optional.of(existing);
+        }
+
+        var entry = new Entry(fileId, now);
+        try (var connection = dataSource.getConnection()) {
+            while (!insert(connection, senderId, contentHash, entry)) {
+                var winner = select(connection, senderId, contentHash);
+                if (winner == null) {
+                    // swept between our insert and select
+                    continue;
+                }
+                if (!isExpired(winner, now)) {
+                    // another worker registered the same content between our lookup and insert
+                    cache.put(key, winner);
+                    return winner.fileId().equals(fileId) ? Optional.empty() : Optional.of(winner);
+                }
+                if (replace(connection, senderId, contentHash, winner, entry)) {
+                    break;
+                }
+            }
+        }
+        cache.put(key, entry);
+        return Optional.empty();
+    }
+
+    /**
+     * @return The file registered with this content from this sender, if it has not expired
+     */
+    public Optional<Entry> find(String senderId, String contentHash) throws SQLException {
+        long now = clock.millis();
+        return Optional.ofNullable(lookup(key(senderId, contentHash), senderId, contentHash, now));
+    }
+
+    /**
+     * Removes every entry registered before the retention period.
+     *
+     * @return The number of entries removed
+     */
+    public int evictExpired() throws SQLException {
+        long cutoff = clock.millis() - retention.toMillis();
+        int removed;
+        try (var connection = dataSource.getConnection();
+             var delete = connection.prepareStatement("DELETE FROM file_hash WHERE registered_at_millis < ?")) {
+            delete.setLong(1, cutoff);
+            removed = delete.executeUpdate();
+        }
+        // cached copies of removed rows have expired too, and lookups skip them
+        if (removed > 0) {
+            logger.info("Evicted {} file hashes registered before {}", removed, cutoff);
+        }
+        return removed;
+    }
+
+    private Entry lookup(String key, String senderId, String contentHash, long now) throws SQLException {
+        var entry = cache.getIfPresent(key);
+        if (entry == null || isExpired(entry, now)) {
+            // an expired copy may since have been replaced by another worker
+            try (var connection = dataSource.getConnection()) {
+                entry = select(connection, senderId, contentHash);
+            }
+            if (entry == null) {
+                return null;
+            }
+            cache.put(key, entry);
+        }
+        return isExpired(entry, now) ? null : entry;
+    }
+
+    private static boolean insert(Connection connection, String senderId, String contentHash, Entry entry) throws SQLException {
+        try (var insert = connection.prepareStatement(
+                "INSERT INTO file_hash (sender_id, content_hash, file_id, registered_at_millis) VALUES (?, ?, ?, ?)")) {
+            insert.setString(1, senderId);
+            insert.setString(2, contentHash);
+            insert.setString(3, entry.fileId());
+            insert.setLong(4, entry.registeredAtMillis());
+            insert.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static Entry select(Connection connection, String senderId, String contentHash) throws SQLException {
+        try (var select = connection.prepareStatement(
+                "SELECT file_id, registered_at_millis FROM file_hash WHERE sender_id = ? AND content_hash = ?")) {
+            select.setString(1, senderId);
+            select.setString(2, contentHash);
+            try (var rows = select.executeQuery()) {
+                return rows.next() ? new Entry(rows.getString(1), rows.getLong(2)) : null;
+            }
+        }
+    }
+
+    /**
+     * Takes over an expired entry, unless another worker has already done so.
+     */
+    private static boolean replace(Connection connection, String senderId, String contentHash, Entry expired, Entry entry)
+            throws SQLException {
+        try (var update = connection.prepareStatement("UPDATE file_hash SET file_id = ?, registered_at_millis = ? "
+                + "WHERE sender_id = ? AND content_hash = ? AND file_id = ? AND registered_at_millis = ?")) {
+            update.setString(1, entry.fileId());
+            update.setLong(2, entry.registeredAtMillis());
+            update.setString(3, senderId);
+            update.setString(4, contentHash);
+            update.setString(5, expired.fileId());
+            update.setLong(6, expired.registeredAtMillis());
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    private void sweepIfDue(long now) throws SQLException {
+        long last = lastSweepMillis.get();
+        if (now - last >= SWEEP_INTERVAL.toMillis() && lastSweepMillis.compareAndSet(last, now)) {
+            evictExpired();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.registeredAtMillis() >= retention.toMillis();
+    }
+
+    private static String key(String senderId, String contentHash) {
+        return senderId + ":" + contentHash;
+    }
+}
@@ -0,0 +1,51 @@
+package com.temporal.initiations.persistence;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage for the payments of transformed files.
+ * <p>
+ * A file counts as stored only once its writer has committed, which records a file-level commit
+ * marker alongside the payments. Payments may be committed in chunks before that, so readers must
+ * check {@link #isCommitted(String)} rather than the presence of rows.
+ */
+public interface PaymentRepository {
+
+    /**
+     * Starts replacing every stored payment of a file.
+     * <p>
+     * Until {@link PaymentWriter#commit(long, List)} the file is not committed, and closing the
+     * writer without committing rolls back whatever was written since the last
+     * {@link PaymentWriter#checkpoint(long, List)}.
+     */
+    default PaymentWriter open(String fileId) throws SQLException {
+        return open(fileId, 0);
+    }
+
+    /**
+     * Resumes writing a file whose payments before {@code fromSequence} were committed by an earlier checkpoint.
+     * <p>
+     * Anything stored from {@code fromSequence} on, and the file's commit marker, is removed first.
+     * {@link #findBatches(String, long)} gives the batches to carry on from.
+     */
+    PaymentWriter open(String fileId, long fromSequence) throws SQLException;
+
+    /**
+     * @return The batches of a file as of the committed chunk ending at {@code paymentCount}, in
+     * ordinal order. Batches opened later in the file are left out.
+     */
+    List<TransformedBatch> findBatches(String fileId, long paymentCount) throws SQLException;
+
+    /**
+     * @return The final batches of a committed file, in ordinal order
+     */
+    default List<TransformedBatch> findBatches(String fileId) throws SQLException {
+        return findBatches(fileId, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return Whether every payment of the file has been written and committed
+     */
+    boolean isCommitted(String fileId) throws SQLException;
+}
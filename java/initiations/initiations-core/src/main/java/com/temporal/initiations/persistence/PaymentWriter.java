@@ -0,0 +1,49 @@
+package com.temporal.initiations.persistence;
+
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Streams the payments of one file into storage.
+ */
+public interface PaymentWriter extends AutoCloseable {
+
+    /**
+     * Queues a payment for writing. Rows are sent to the database in bulk, so a write may return
+     * before the row has left the process.
+     */
+    void write(String batchId, PaymentRecord payment) throws SQLException;
+
+    /**
+     * Flushes outstanding rows and commits them without committing the file, so a retry can
+     * resume after them. The batches the chunk changed are stored in the same transaction, so
+     * their totals always match the committed payments. The writer stays open for further payments.
+     *
+     * @param paymentCount The number of payments of the file written so far
+     * @param changedBatches Every batch with a payment written since the last checkpoint
+     */
+    void checkpoint(long paymentCount, List<TransformedBatch> changedBatches) throws SQLException;
+
+    /**
+     * Flushes outstanding rows and commits the file, recording its commit marker and the final
+     * totals of its batches.
+     *
+     * @param batches Every batch of the file, in ordinal order
+     */
+    void commit(long paymentCount, List<TransformedBatch> batches) throws SQLException;
+
+    /**
+     * Removes every payment and batch of the file, including those committed by earlier checkpoints.
+     * Used when the file is rejected part way through.
+     */
+    void discard() throws SQLException;
+
+    /**
+     * Rolls back anything since the last checkpoint unless {@link #commit} has been called, then
+     * releases the connection.
+     */
+    @Override
+    void close() throws SQLException;
+}
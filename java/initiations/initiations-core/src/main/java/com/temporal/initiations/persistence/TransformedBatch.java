@@ -0,0 +1,15 @@
+package com.temporal.initiations.persistence;
+
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import com.temporal.initiations.messages.domain.workflows.BatchSummary;
+
+/**
+ * One batch of a file being transformed, as stored with the chunk that last changed it.
+ *
+ * @param ordinal Position of the batch in the order its first payment appears in the file, from 0
+ * @param totals The batch's running totals
+ * @param exemplar The first payment of the batch. Only the fields a BatchKey can be made of are
+ *                 stored, which is enough to carry on grouping payments after a resume.
+ */
+public record TransformedBatch(int ordinal, BatchSummary totals, PaymentRecord exemplar) {
+}
@@ -0,0 +1,13 @@
+/**
+ * Relational persistence shared by the workers.
+ *
+ * This package contains:
+ * - PaymentRepository, PaymentWriter: streaming storage of a file's payments, committed in chunks
+ *   and sealed by a file-level commit marker
+ * - TransformedBatch: a batch's running totals, committed with each chunk so a retry resumes from the database
+ * - JdbcPaymentRepository: PostgreSQL COPY or batched JDBC inserts
+ * - FileHashIndex: content-hash index backing the File Dupe Check, shared by every worker
+ *
+ * The schema lives in db/payments-schema.sql.
+ */
+package com.temporal.initiations.persistence;
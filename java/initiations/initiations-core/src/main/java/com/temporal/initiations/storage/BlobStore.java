@@ -0,0 +1,32 @@
+package com.temporal.initiations.storage;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Immutable key/value store for opaque blobs.
+ * <p>
+ * Keys are expected to be derived from the content, so a key is only ever written with one value
+ * and writing it again only records that the blob is still in use.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores {@code content} under {@code key} unless a blob with that key already exists, and
+     * marks the blob as stored now either way.
+     */
+    void put(String key, byte[] content) throws IOException;
+
+    /**
+     * @return The blob stored under {@code key}, or empty if there is none
+     */
+    Optional<byte[]> get(String key) throws IOException;
+
+    /**
+     * Removes every blob last stored before {@code cutoff}.
+     *
+     * @return The number of blobs removed
+     */
+    int deleteStoredBefore(Instant cutoff) throws IOException;
+}
@@ -0,0 +1,100 @@
+package com.temporal.initiations.storage;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * {@link BlobStore} backed by a local directory.
+ * <p>
+ * Each blob is a file named after its key and sharded into two levels of subdirectories by the
+ * first four characters of the key, so no single directory grows past a few thousand entries.
+ * Writes go to a temporary file that is atomically moved into place, so a reader never sees a
+ * partially written blob and concurrent writers of the same key are harmless. A blob's modification
+ * time is when it was last stored, so storing an existing key again keeps it from being deleted.
+ * <p>
+ * Pointing every worker and the API at the same directory, for example a shared volume, gives a
+ * store that behaves like an object store bucket without any network dependency.
+ */
+public final class FileSystemBlobStore implements BlobStore {
+
+    private final Path root;
+    private final Clock clock;
+
+    public FileSystemBlobStore(Path root) throws IOException {
+        this(root, Clock.systemUTC());
+    }
+
+    public FileSystemBlobStore(Path root, Clock clock) throws IOException {
+        this.root = Files.createDirectories(root);
+        this.clock = clock;
+    }
+
+    @Override
+    public void put(String key, byte[] content) throws IOException {
+        var target = resolve(key);
+        var now = FileTime.from(clock.instant());
+        if (touch(target, now)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        var temp = Files.createTempFile(target.getParent(), key, ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.setLastModifiedTime(temp, now);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // another writer stored the same content first
+            touch(target, now);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<byte[]> get(String key) throws IOException {
+        try {
+            return Optional.of(Files.readAllBytes(resolve(key)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public int deleteStoredBefore(Instant cutoff) throws IOException {
+        int deleted = 0;
+        // blobs sit at depth 3, and temporary files left by a crashed writer are swept with them
+        try (var expired = Files.find(root, 3,
+                (path, attributes) -> attributes.isRegularFile() && attributes.lastModifiedTime().toInstant().isBefore(cutoff))) {
+            for (var path : (Iterable<Path>) expired::iterator) {
+                if (Files.deleteIfExists(path)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean touch(Path blob, FileTime now) throws IOException {
+        try {
+            Files.setLastModifiedTime(blob, now);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private Path resolve(String key) {
+        if (key.length() < 4 || !key.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-')) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+}
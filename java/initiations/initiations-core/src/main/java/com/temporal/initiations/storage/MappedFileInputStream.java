@@ -0,0 +1,114 @@
+package com.temporal.initiations.storage;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * InputStream over a memory-mapped file.
+ * <p>
+ * The file is mapped in fixed windows so files larger than 2 GB can be read, and reads are served
+ * straight from the page cache without a system call per buffer fill.
+ */
+public final class MappedFileInputStream extends InputStream {
+
+    /**
+     * Files at least this large are memory-mapped by {@link #open(Path)}; smaller files are cheaper to read directly.
+     */
+    public static final long MAP_THRESHOLD = 8L * 1024 * 1024;
+
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    public MappedFileInputStream(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowStart = 0;
+        this.window = map(0);
+    }
+
+    /**
+     * Opens the file for sequential reading, memory-mapping it when it is at least {@link #MAP_THRESHOLD} bytes.
+     */
+    public static InputStream open(Path file) throws IOException {
+        if (Files.size(file) >= MAP_THRESHOLD) {
+            return new MappedFileInputStream(file);
+        }
+        return new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return window.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long target = Math.min(size, position() + Math.max(0, n));
+        long skipped = target - position();
+        if (target < windowStart + window.limit()) {
+            window.position((int) (target - windowStart));
+        } else {
+            windowStart = target;
+            window = map(target);
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return window.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long position() {
+        return windowStart + window.position();
+    }
+
+    private boolean ensureRemaining() throws IOException {
+        if (window.hasRemaining()) {
+            return true;
+        }
+        long next = windowStart + window.limit();
+        if (next >= size) {
+            return false;
+        }
+        windowStart = next;
+        window = map(next);
+        return true;
+    }
+
+    private MappedByteBuffer map(long start) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+    }
+}
@@ -0,0 +1,407 @@
+package com.temporal.initiations.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Memory-mapped sidecar index from batch to the byte ranges of its payments in a canonical file.
+ * <p>
+ * Written once by the transformation, the index lets any activity find one batch's payments
+ * without re-parsing the source or querying the database. Payments are handed out as slices of
+ * a read-only mapping of the canonical file, or sent to a channel with
+ * {@link FileChannel#transferTo}, so their bytes are never copied onto the heap. The index also
+ * records where the group header and the header of every {@code PmtInf} sit, so a message
+ * holding just some of the batches can be put together around their payments.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * header     magic "PMTIDX02", int batchCount, int paymentInformationCount, long paymentCount,
+ *            long entriesStart, long headersStart, long groupHeaderOffset, int groupHeaderLength, int reserved
+ * directory  per batch: long firstEntry, int paymentCount, int namesOffset
+ * names      per batch: int length + UTF-8 batchId, int length + UTF-8 BatchKey
+ * headers    per PmtInf: long offset, int length, int reserved
+ * entries    per payment, grouped by batch in sequence order: long offset, int length, int paymentInformation
+ * </pre>
+ * A {@code PmtInf} header runs from its start tag up to its first {@code CdtTrfTxInf}.
+ */
+public final class PaymentIndex implements AutoCloseable {
+
+    private static final byte[] MAGIC = "PMTIDX02".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GROUP_HEADER_START = "<GrpHdr>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GROUP_HEADER_END = "</GrpHdr>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PAYMENT_INFORMATION_START = "<PmtInf".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 56;
+    private static final int DIRECTORY_ENTRY_SIZE = 16;
+    private static final int PAYMENT_INFORMATION_SIZE = 16;
+    private static final int ENTRY_SIZE = 16;
+    private static final long WINDOW_SIZE = 1L << 30;
+    // windows overlap by this much so a payment starting in one never has to be stitched from two
+    private static final long WINDOW_OVERLAP = 1L << 20;
+
+    private final MappedByteBuffer index;
+    private final FileChannel canonical;
+    private final MappedByteBuffer[] windows;
+    private final int batchCount;
+    private final int entriesStart;
+    private final int headersStart;
+    private final String[] batchIds;
+    private final String[] batchKeys;
+    private final Map<String, Integer> byBatchId;
+    private final Map<String, Integer> byBatchKey;
+
+    private PaymentIndex(MappedByteBuffer index, FileChannel canonical) throws IOException {
+        this.index = index;
+        this.canonical = canonical;
+        var magic = new byte[MAGIC.length];
+        index.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a payment index");
+        }
+        this.batchCount = index.getInt(8);
+        this.entriesStart = Math.toIntExact(index.getLong(24));
+        this.headersStart = Math.toIntExact(index.getLong(32));
+        this.batchIds = new String[batchCount];
+        this.batchKeys = new String[batchCount];
+        this.byBatchId = HashMap.newHashMap(batchCount);
+        this.byBatchKey = HashMap.newHashMap(batchCount);
+        for (int batch = 0; batch < batchCount; batch++) {
+            int names = index.getInt(directory(batch) + 12);
+            int idLength = index.getInt(names);
+            batchIds[batch] = string(names + 4, idLength);
+            batchKeys[batch] = string(names + 8 + idLength, index.getInt(names + 4 + idLength));
+            byBatchId.put(batchIds[batch], batch);
+            byBatchKey.putIfAbsent(batchKeys[batch], batch);
+        }
+        long size = canonical.size();
+        this.windows = new MappedByteBuffer[(int) ((size + WINDOW_SIZE - 1) / WINDOW_SIZE)];
+        for (int i = 0; i < windows.length; i++) {
+            long start = i * WINDOW_SIZE;
+            windows[i] = canonical.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE + WINDOW_OVERLAP, size - start));
+        }
+    }
+
+    /**
+     * Maps an index and the canonical file it describes.
+     */
+    public static PaymentIndex open(Path indexFile, Path canonicalFile) throws IOException {
+        MappedByteBuffer index;
+        try (var channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        var canonical = FileChannel.open(canonicalFile, StandardOpenOption.READ);
+        try {
+            return new PaymentIndex(index, canonical);
+        } catch (IOException | RuntimeException e) {
+            canonical.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Regroups a fully assigned offsets table by batch and writes it as an index, which only
+     * appears once it is complete.
+     * <p>
+     * Canonical files have nothing between the transactions of one {@code PmtInf}, so a gap
+     * between two consecutive payments is where one {@code PmtInf} ends and the next begins, and
+     * only those gaps are read from {@code canonicalFile}.
+     *
+     * @param batchIds The id of every batch, by ordinal
+     * @param batchKeys The readable BatchKey of every batch, by ordinal
+     */
+    public static void write(Path target, Path canonicalFile, PaymentOffsets offsets, List<String> batchIds, List<String> batchKeys)
+            throws IOException {
+        int batchCount = batchIds.size();
+        long paymentCount = offsets.count();
+        var counts = new int[batchCount];
+        // offset and length of each PmtInf header, in file order
+        var headers = new long[16];
+        int headerCount = 0;
+        long groupHeaderOffset = 0;
+        int groupHeaderLength = 0;
+        try (var source = FileChannel.open(canonicalFile, StandardOpenOption.READ)) {
+            long end = 0;
+            for (long sequence = 0; sequence < paymentCount; sequence++) {
+                int batch = offsets.batch(sequence);
+                if (batch < 0 || batch >= batchCount) {
+                    throw new IllegalStateException("Payment " + sequence + " has no batch");
+                }
+                counts[batch]++;
+                long offset = offsets.offset(sequence);
+                if (sequence == 0 || offset != end) {
+                    var gap = read(source, end, Math.toIntExact(offset - end));
+                    if (sequence == 0) {
+                        int start = indexOf(gap, GROUP_HEADER_START, 0);
+                        int stop = indexOf(gap, GROUP_HEADER_END, Math.max(start, 0));
+                        if (start < 0 || stop < 0) {
+                            throw new IOException("No group header before the first payment of " + canonicalFile);
+                        }
+                        groupHeaderOffset = start;
+                        groupHeaderLength = stop + GROUP_HEADER_END.length - start;
+                    }
+                    int start = lastPaymentInformation(gap);
+                    if (start < 0) {
+                        throw new IOException("No PmtInf before payment " + sequence + " of " + canonicalFile);
+                    }
+                    if (headerCount * 2 == headers.length) {
+                        headers = Arrays.copyOf(headers, headers.length * 2);
+                    }
+                    headers[headerCount * 2] = end + start;
+                    headers[headerCount * 2 + 1] = gap.length - start;
+                    headerCount++;
+                }
+                end = offset + offsets.length(sequence);
+            }
+        }
+
+        var names = new byte[batchCount * 2][];
+        long namesSize = 0;
+        for (int batch = 0; batch < batchCount; batch++) {
+            names[batch * 2] = batchIds.get(batch).getBytes(StandardCharsets.UTF_8);
+            names[batch * 2 + 1] = batchKeys.get(batch).getBytes(StandardCharsets.UTF_8);
+            namesSize += 8 + names[batch * 2].length + names[batch * 2 + 1].length;
+        }
+        long namesStart = HEADER_SIZE + (long) batchCount * DIRECTORY_ENTRY_SIZE;
+        long headersStart = (namesStart + namesSize + 7) & ~7L;
+        long entriesStart = headersStart + (long) headerCount * PAYMENT_INFORMATION_SIZE;
+        long size = entriesStart + paymentCount * ENTRY_SIZE;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Payment index of " + size + " bytes is too large");
+        }
+
+        var temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.put(MAGIC).putInt(batchCount).putInt(headerCount).putLong(paymentCount)
+                    .putLong(entriesStart).putLong(headersStart).putLong(groupHeaderOffset).putInt(groupHeaderLength).putInt(0);
+            var cursors = new long[batchCount];
+            long first = 0;
+            long namesOffset = namesStart;
+            for (int batch = 0; batch < batchCount; batch++) {
+                cursors[batch] = first;
+                out.putLong(first).putInt(counts[batch]).putInt((int) namesOffset);
+                first += counts[batch];
+                namesOffset += 8 + names[batch * 2].length + names[batch * 2 + 1].length;
+            }
+            for (var name : names) {
+                out.putInt(name.length).put(name);
+            }
+            out.position((int) headersStart);
+            for (int i = 0; i < headerCount; i++) {
+                out.putLong(headers[i * 2]).putInt((int) headers[i * 2 + 1]).putInt(0);
+            }
+            // one pass over the table in sequence order keeps every batch's payments in file order
+            int paymentInformation = -1;
+            long end = 0;
+            for (long sequence = 0; sequence < paymentCount; sequence++) {
+                long offset = offsets.offset(sequence);
+                if (sequence == 0 || offset != end) {
+                    paymentInformation++;
+                }
+                int length = offsets.length(sequence);
+                int entry = (int) (entriesStart + cursors[offsets.batch(sequence)]++ * ENTRY_SIZE);
+                out.putLong(entry, offset).putInt(entry + 8, length).putInt(entry + 12, paymentInformation);
+                end = offset + length;
+            }
+            out.force();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public int batchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return The ordinal of the batch with this id, or -1
+     */
+    public int find(String batchId) {
+        return byBatchId.getOrDefault(batchId, -1);
+    }
+
+    /**
+     * @return The ordinal of the batch with this readable BatchKey, or -1
+     */
+    public int findByKey(String batchKey) {
+        return byBatchKey.getOrDefault(batchKey, -1);
+    }
+
+    public String batchId(int batch) {
+        return batchIds[Objects.checkIndex(batch, batchCount)];
+    }
+
+    public String batchKey(int batch) {
+        return batchKeys[Objects.checkIndex(batch, batchCount)];
+    }
+
+    public int paymentCount(int batch) {
+        return index.getInt(directory(batch) + 8);
+    }
+
+    /**
+     * @return Everything in the canonical file before the group header: the XML declaration and
+     * the {@code Document} and {@code CstmrCdtTrfInitn} start tags
+     */
+    public ByteBuffer prolog() throws IOException {
+        return slice(0, (int) index.getLong(40));
+    }
+
+    /**
+     * @return The canonical {@code GrpHdr} element
+     */
+    public ByteBuffer groupHeader() throws IOException {
+        return slice(index.getLong(40), index.getInt(48));
+    }
+
+    /**
+     * @return The ordinal of the {@code PmtInf} the batch's {@code i}th payment sits in
+     */
+    public int paymentInformation(int batch, int i) {
+        return index.getInt(entry(batch, i) + 12);
+    }
+
+    /**
+     * @return The start tag and header elements of a {@code PmtInf}, up to its first transaction
+     */
+    public ByteBuffer paymentInformationHeader(int paymentInformation) throws IOException {
+        int header = headersStart + paymentInformation * PAYMENT_INFORMATION_SIZE;
+        if (paymentInformation < 0 || header >= entriesStart) {
+            throw new IndexOutOfBoundsException("PmtInf " + paymentInformation);
+        }
+        return slice(index.getLong(header), index.getInt(header + 8));
+    }
+
+    /**
+     * @return Where the batch's {@code i}th payment starts in the canonical file
+     */
+    public long paymentOffset(int batch, int i) {
+        return index.getLong(entry(batch, i));
+    }
+
+    /**
+     * @return The length in bytes of the batch's {@code i}th payment
+     */
+    public int paymentLength(int batch, int i) {
+        return index.getInt(entry(batch, i) + 8);
+    }
+
+    /**
+     * @return The canonical {@code CdtTrfTxInf} element of the batch's {@code i}th payment, as a
+     * read-only view of the mapped canonical file
+     */
+    public ByteBuffer payment(int batch, int i) throws IOException {
+        int entry = entry(batch, i);
+        return slice(index.getLong(entry), index.getInt(entry + 8));
+    }
+
+    /**
+     * Sends every payment of the batch, in file order, to {@code out} without copying it through
+     * the heap.
+     *
+     * @return The number of bytes sent
+     */
+    public long transferTo(int batch, WritableByteChannel out) throws IOException {
+        long sent = 0;
+        for (int i = 0; i < paymentCount(batch); i++) {
+            int entry = entry(batch, i);
+            long offset = index.getLong(entry);
+            int length = index.getInt(entry + 8);
+            for (long done = 0; done < length; ) {
+                done += canonical.transferTo(offset + done, length - done, out);
+            }
+            sent += length;
+        }
+        return sent;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canonical.close();
+    }
+
+    private ByteBuffer slice(long offset, int length) throws IOException {
+        var window = windows[(int) (offset / WINDOW_SIZE)];
+        int start = (int) (offset % WINDOW_SIZE);
+        if (start + length <= window.capacity()) {
+            return window.slice(start, length);
+        }
+        // only a range larger than the window overlap lands here
+        var copy = ByteBuffer.allocate(length);
+        while (copy.hasRemaining()) {
+            if (canonical.read(copy, offset + copy.position()) < 0) {
+                throw new IOException("Canonical file ends inside bytes " + offset + " to " + (offset + length));
+            }
+        }
+        return copy.flip().asReadOnlyBuffer();
+    }
+
+    private int entry(int batch, int i) {
+        if (i < 0 || i >= paymentCount(batch)) {
+            throw new IndexOutOfBoundsException("Payment " + i + " of batch " + batchIds[batch]);
+        }
+        return Math.toIntExact(entriesStart + (index.getLong(directory(batch)) + i) * ENTRY_SIZE);
+    }
+
+    private int directory(int batch) {
+        // the -1 of a failed find must not read the header as if it were a batch
+        if (batch < 0 || batch >= batchCount) {
+            throw new IndexOutOfBoundsException("Batch " + batch + " of " + batchCount);
+        }
+        return HEADER_SIZE + batch * DIRECTORY_ENTRY_SIZE;
+    }
+
+    private String string(int offset, int length) {
+        var bytes = new byte[length];
+        index.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] read(FileChannel channel, long offset, int length) throws IOException {
+        var buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Canonical file ends at byte " + (offset + buffer.position()));
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return Where the last {@code PmtInf} start tag in {@code bytes} begins, or -1
+     */
+    private static int lastPaymentInformation(byte[] bytes) {
+        for (int at = bytes.length - PAYMENT_INFORMATION_START.length - 1; at >= 0; at--) {
+            int next = bytes[at + PAYMENT_INFORMATION_START.length];
+            if ((next == '>' || next == ' ')
+                    && Arrays.equals(bytes, at, at + PAYMENT_INFORMATION_START.length, PAYMENT_INFORMATION_START, 0, PAYMENT_INFORMATION_START.length)) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target, int from) {
+        for (int at = from; at <= bytes.length - target.length; at++) {
+            if (Arrays.equals(bytes, at, at + target.length, target, 0, target.length)) {
+                return at;
+            }
+        }
+        return -1;
+    }
+}
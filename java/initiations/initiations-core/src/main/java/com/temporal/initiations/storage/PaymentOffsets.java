@@ -0,0 +1,180 @@
+package com.temporal.initiations.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Working table of where each payment of a file sits in its canonical file, and which batch it belongs to.
+ * <p>
+ * One fixed 16-byte record per payment, indexed by sequence: offset (8), length (4) and batch
+ * ordinal (4). Records are appended as the transformation writes and assigns each payment, and
+ * survive a retried transformation with the canonical file. {@link PaymentIndex#write} then
+ * regroups the table by batch.
+ */
+public final class PaymentOffsets implements AutoCloseable {
+
+    static final int RECORD_SIZE = 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final long count;
+
+    private PaymentOffsets(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size % RECORD_SIZE != 0 || size > Integer.MAX_VALUE) {
+            throw new IOException("Not a payment offsets table: " + size + " bytes");
+        }
+        this.table = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        this.count = size / RECORD_SIZE;
+    }
+
+    /**
+     * Appends payments to a table, in sequence order.
+     */
+    public static final class Appender implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long end;
+
+        private Appender(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+        }
+
+        public void append(long offset, int length, int batch) throws IOException {
+            if (buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            buffer.putLong(offset).putInt(length).putInt(batch);
+            end = offset + length;
+        }
+
+        /**
+         * @return Where the last payment appended ends in the canonical file, or 0 if there is none
+         */
+        public long end() {
+            return end;
+        }
+
+        /**
+         * Writes every payment appended so far through to disk, so they outlive the process.
+         */
+        public void force() throws IOException {
+            flush();
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                force();
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Starts a new table, replacing any earlier one.
+     */
+    public static Appender create(Path file) throws IOException {
+        return new Appender(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 0);
+    }
+
+    /**
+     * Reopens a table to append after its first {@code count} payments, dropping any later ones.
+     *
+     * @throws IOException If the table is missing or holds fewer payments
+     */
+    public static Appender resume(Path file, long count) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = count * RECORD_SIZE;
+            if (channel.size() < size) {
+                throw new IOException("Payment offsets table holds " + channel.size() / RECORD_SIZE
+                        + " payments, not " + count);
+            }
+            channel.truncate(size);
+            long end = 0;
+            if (count > 0) {
+                var last = ByteBuffer.allocate(RECORD_SIZE);
+                while (last.hasRemaining()) {
+                    if (channel.read(last, size - RECORD_SIZE + last.position()) < 0) {
+                        throw new IOException("Payment offsets table ends early");
+                    }
+                }
+                end = last.getLong(0) + last.getInt(8);
+            }
+            channel.position(size);
+            return new Appender(channel, end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps a complete table for reading.
+     */
+    public static PaymentOffsets open(Path file) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new PaymentOffsets(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of payments in the table
+     */
+    public long count() {
+        return count;
+    }
+
+    public long offset(long sequence) {
+        return table.getLong(position(sequence));
+    }
+
+    public int length(long sequence) {
+        return table.getInt(position(sequence) + 8);
+    }
+
+    /**
+     * @return The batch ordinal of the payment
+     */
+    public int batch(long sequence) {
+        return table.getInt(position(sequence) + 12);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int position(long sequence) {
+        if (sequence < 0 || sequence >= count) {
+            throw new IndexOutOfBoundsException("Payment " + sequence + " of " + count);
+        }
+        return (int) (sequence * RECORD_SIZE);
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * Local storage for file processing.
+ *
+ * This package contains:
+ * - MappedFileInputStream: sequential reads of large files through memory mapping
+ * - BlobStore, FileSystemBlobStore: content-addressed blob storage on the local filesystem
+ * - PaymentOffsets: working table of each payment's place in a canonical file and its batch
+ * - PaymentIndex: memory-mapped sidecar index from batch to its payments in a canonical file
+ */
+package com.temporal.initiations.storage;
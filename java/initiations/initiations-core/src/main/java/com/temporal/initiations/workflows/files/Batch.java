@@ -14,6 +14,13 @@ public interface Batch {
     @SignalMethod
     void approveBatch(ApproveBatchRequest cmd);
 
+    /**
+     * Sent by the fraud side when GFD has finished checking this batch, addressed by {@code WorkflowId = BatchID}.
+     * Lets the batch continue immediately instead of waiting for its next poll.
+     */
+    @SignalMethod
+    void fraudCheckCompleted(CompleteFraudCheckResponse result);
+
     @QueryMethod
     GetBatchStateResponse getState();
 }
@@ -2,15 +2,23 @@ package com.temporal.initiations.workflows.files;
 
 import com.temporal.initiations.messages.domain.workflows.*;
 import com.temporal.initiations.workflows.files.activities.FraudActivities;
-import com.temporal.initiations.workflows.files.activities.TransformationActivities;
+import com.temporal.initiations.workflows.files.activities.TransmissionActivities;
 import io.temporal.activity.ActivityOptions;
 import io.temporal.common.RetryOptions;
+import io.temporal.failure.ActivityFailure;
 import io.temporal.workflow.Workflow;
 import io.temporal.workflow.WorkflowInit;
+import org.slf4j.Logger;
 
 import java.time.Duration;
 
 public class BatchImpl implements Batch {
+    private static final Duration DEFAULT_FRAUD_POLL_INITIAL_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_FRAUD_POLL_MAXIMUM_INTERVAL = Duration.ofMinutes(10);
+    // before this version a poll that failed all its attempts failed the batch
+    private static final String FRAUD_POLL_FAILURES_TOLERATED = "fraud-poll-failures-tolerated";
+
+    private final Logger logger = Workflow.getLogger(BatchImpl.class);
     private GetBatchStateResponse state;
 
     @WorkflowInit
@@ -22,22 +30,72 @@ public class BatchImpl implements Batch {
         var fraudStart = Workflow.newActivityStub(FraudActivities.class, ActivityOptions.newBuilder()
                 .setScheduleToCloseTimeout(Duration.ofSeconds(90)).build());
 
-        this.state.setStartFraudCheck(fraudStart.startFraudCheck(new StartFraudCheckRequest()));
+        this.state.setStartFraudCheck(fraudStart.startFraudCheck(new StartFraudCheckRequest(
+                this.state.getArgs().getFileInfo(),
+                this.state.getArgs().getBatchId())));
+
+        awaitFraudCheck();
+        var verdict = this.state.getFraudCheck().getResult();
+        if (!CompleteFraudCheckResponse.PASSED.equalsIgnoreCase(verdict)) {
+            // a batch GFD has not cleared is never sent, whatever approval arrives for it
+            this.state.setRejection(Errors.FRAUD_CHECK_FAILED);
+            this.state.setRejectionMessage("Fraud check verdict for batch " + this.state.getArgs().getBatchId() + " is " + verdict);
+            logger.warn("Batch {} rejected without transmitting: {}", this.state.getArgs().getBatchId(), this.state.getRejectionMessage());
+            return;
+        }
+
+        Workflow.await(() -> this.state.getApproval() != null);
+
+        // large batches take a while to upload, heartbeats let a retry resume from the last acknowledged chunk
+        var transmission = Workflow.newActivityStub(TransmissionActivities.class, ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofMinutes(30))
+                .setHeartbeatTimeout(Duration.ofSeconds(30))
+                .build());
+        this.state.setTransmission(transmission.transmitBatch(new TransmitBatchRequest(
+                this.state.getArgs().getFileInfo(),
+                this.state.getArgs().getBatchId())));
+    }
+
+    /**
+     * GFD normally tells us it is done with the `fraudCheckCompleted` signal, so we just wait for it.
+     * In case that signal never arrives we fall back to polling, backing off exponentially so a slow
+     * check costs a handful of polls rather than one every 45 seconds. A poll that fails, for
+     * instance while GFD's directory is unreachable, is only logged: the signal may still arrive,
+     * and the next poll after the back-off tries again.
+     */
+    private void awaitFraudCheck() {
+        var options = this.state.getArgs().getOptions();
+        var interval = seconds(options == null ? 0 : options.getFraudCheckPollInitialSeconds(), DEFAULT_FRAUD_POLL_INITIAL_INTERVAL);
+        var maximum = seconds(options == null ? 0 : options.getFraudCheckPollMaximumSeconds(), DEFAULT_FRAUD_POLL_MAXIMUM_INTERVAL);
 
-        // poll the file every 45 seconds for completion using Temporal server as our throttling mechanism
-        var completeFraud = Workflow.newActivityStub(FraudActivities.class, ActivityOptions.newBuilder()
-                .setRetryOptions(
-                        RetryOptions.newBuilder()
-                                .setInitialInterval(Duration.ofSeconds(45))
-                                .setBackoffCoefficient(1)
-                                .build())
+        // a poll that finds the check still running returns normally, so retries only cover real failures;
+        // they are kept short, as a longer outage is ridden out by the polling loop without blocking the signal
+        var fraudPoll = Workflow.newActivityStub(FraudActivities.class, ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(30))
+                .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(3).build())
                 .build());
-        this.state.setFraudCheck(completeFraud.completeFraudCheck(new CompleteFraudCheckRequest(
+        int version = Workflow.getVersion(FRAUD_POLL_FAILURES_TOLERATED, Workflow.DEFAULT_VERSION, 1);
+        var poll = new CompleteFraudCheckRequest(
                 this.state.getArgs().getBatchId(),
                 this.state.getArgs().getFileInfo(),
-                this.state.getStartFraudCheck().getFraudCheckFilePath())));
+                this.state.getStartFraudCheck().getFraudCheckFilePath());
 
-        Workflow.await(() -> this.state.getApproval() != null);
+        while (!Workflow.await(interval, () -> this.state.getFraudCheck() != null)) {
+            logger.info("No fraud check result for batch {} after {}, polling", poll.getBatchId(), interval);
+            try {
+                var result = fraudPoll.completeFraudCheck(poll);
+                if (result != null && result.isComplete() && this.state.getFraudCheck() == null) {
+                    this.state.setFraudCheck(result);
+                }
+            } catch (ActivityFailure e) {
+                if (version == Workflow.DEFAULT_VERSION) {
+                    throw e;
+                }
+                logger.warn("Fraud check poll for batch {} failed, polling again after the back-off", poll.getBatchId(), e);
+            }
+            var next = interval.multipliedBy(2);
+            interval = next.compareTo(maximum) > 0 ? maximum : next;
+        }
     }
 
     @Override
@@ -45,10 +103,20 @@ public class BatchImpl implements Batch {
         this.state.setApproval(cmd);
     }
 
+    @Override
+    public void fraudCheckCompleted(CompleteFraudCheckResponse result) {
+        // first result wins, a late poll or a redelivered signal must not overwrite it
+        if (this.state.getFraudCheck() == null) {
+            this.state.setFraudCheck(result);
+        }
+    }
+
     @Override
     public GetBatchStateResponse getState() {
         return this.state;
     }
 
-
+    private static Duration seconds(int seconds, Duration defaultValue) {
+        return seconds > 0 ? Duration.ofSeconds(seconds) : defaultValue;
+    }
 }
@@ -0,0 +1,19 @@
+package com.temporal.initiations.workflows.files;
+
+import com.temporal.initiations.messages.domain.workflows.BatchFileResponse;
+import com.temporal.initiations.messages.domain.workflows.StartBatchesRequest;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+/**
+ * Child workflow that starts the Batch workflows for one page of a file's batches.
+ * <p>
+ * Very large files are sharded across several BatchStarters so no single history has to record
+ * a start per batch, and the fan-out spreads across workers.
+ */
+@WorkflowInterface
+public interface BatchStarter {
+
+    @WorkflowMethod
+    BatchFileResponse execute(StartBatchesRequest args);
+}
@@ -0,0 +1,46 @@
+package com.temporal.initiations.workflows.files;
+
+import com.temporal.initiations.messages.domain.workflows.BatchFileRequest;
+import com.temporal.initiations.messages.domain.workflows.BatchFileResponse;
+import com.temporal.initiations.messages.domain.workflows.StartBatchesRequest;
+import com.temporal.initiations.workflows.files.activities.ProcessingActivities;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.workflow.Workflow;
+
+import java.time.Duration;
+
+public class BatchStarterImpl implements BatchStarter {
+    static final int DEFAULT_CHUNK_SIZE = 500;
+    static final int DEFAULT_MAX_HISTORY_LENGTH = 2000;
+
+    private final ProcessingActivities processing = Workflow.newActivityStub(ProcessingActivities.class,
+            ActivityOptions.newBuilder()
+                    .setStartToCloseTimeout(Duration.ofMinutes(30))
+                    .setHeartbeatTimeout(Duration.ofSeconds(30))
+                    .build());
+
+    @Override
+    public BatchFileResponse execute(StartBatchesRequest args) {
+        int chunkSize = args.getChunkSize() > 0 ? args.getChunkSize() : DEFAULT_CHUNK_SIZE;
+        int maxHistoryLength = args.getMaxHistoryLength() > 0 ? args.getMaxHistoryLength() : DEFAULT_MAX_HISTORY_LENGTH;
+
+        while (args.getNextBatch() < args.getToBatch()) {
+            int end = Math.min(args.getToBatch(), args.getNextBatch() + chunkSize);
+            var chunk = processing.batchFile(new BatchFileRequest(
+                    args.getFileInfo(),
+                    args.getNextBatch(),
+                    end,
+                    args.getPreferences()));
+            args.setNextBatch(end);
+            args.setStartedCount(args.getStartedCount() + chunk.getStartedCount());
+            args.getFailures().addAll(chunk.getFailures());
+
+            // keep our own history bounded no matter how large the page is
+            var info = Workflow.getInfo();
+            if (end < args.getToBatch() && (info.getHistoryLength() > maxHistoryLength || info.isContinueAsNewSuggested())) {
+                Workflow.continueAsNew(args);
+            }
+        }
+        return new BatchFileResponse(args.getToBatch() - args.getFromBatch(), args.getStartedCount(), 0, args.getFailures());
+    }
+}
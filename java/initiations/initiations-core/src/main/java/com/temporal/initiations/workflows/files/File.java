@@ -2,6 +2,7 @@ package com.temporal.initiations.workflows.files;
 
 import com.temporal.initiations.messages.domain.workflows.ApproveFileRequest;
 import com.temporal.initiations.messages.domain.workflows.GetFileStateResponse;
+import com.temporal.initiations.messages.domain.workflows.GetFileStatusResponse;
 import com.temporal.initiations.messages.domain.workflows.InitiateFileRequest;
 import io.temporal.workflow.QueryMethod;
 import io.temporal.workflow.SignalMethod;
@@ -38,6 +39,12 @@ public interface File {
     @QueryMethod
     GetFileStateResponse getState();
 
+    /**
+     * Compact projection of {@link #getState()} for status polling: phase, counts and errors only.
+     */
+    @QueryMethod
+    GetFileStatusResponse getStatus();
+
     @SignalMethod
     void recoverFromPreviousFailure();
 
@@ -12,10 +12,13 @@ import io.temporal.workflow.*;
 import org.slf4j.Logger;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Objects;
 
 public class FileImpl implements File {
 
+    private static final int MAX_STATUS_ERRORS = 20;
+
     private final InitiateFileActivities initiations;
     private Logger logger = Workflow.getLogger(FileImpl.class);
     private final FileCheckActivities files;
@@ -37,14 +40,31 @@ public class FileImpl implements File {
                 EntitlementActivities.class,
                 // the current behavior is to retry 3 times
                 // but prefer to fail based on time with ScheduleToCloseTimeout setting...
-                ActivityOptions.newBuilder().setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(3).build()).build());
-        this.files = Workflow.newLocalActivityStub(FileCheckActivities.class, LocalActivityOptions.newBuilder().build());
+                ActivityOptions.newBuilder()
+                        .setStartToCloseTimeout(Duration.ofSeconds(30))
+                        .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(3).build())
+                        .build());
+        this.files = Workflow.newLocalActivityStub(FileCheckActivities.class,
+                LocalActivityOptions.newBuilder().setScheduleToCloseTimeout(Duration.ofSeconds(5)).build());
         this.initiations = Workflow.newLocalActivityStub(InitiateFileActivities.class,
                 LocalActivityOptions.newBuilder().setScheduleToCloseTimeout(Duration.ofSeconds(5)).build());
-        this.preferences = Workflow.newActivityStub(PreferencesActivities.class, ActivityOptions.newBuilder().build());
-        this.processing = Workflow.newActivityStub(ProcessingActivities.class, ActivityOptions.newBuilder().build());
-        this.psr = Workflow.newActivityStub(PaymentStatusReportActivities.class, ActivityOptions.newBuilder().build());
-        this.transformations = Workflow.newActivityStub(TransformationActivities.class, ActivityOptions.newBuilder().build());
+        // options given to a stub replace the worker's defaults entirely, so every stub needs its own timeout
+        this.preferences = Workflow.newActivityStub(PreferencesActivities.class, ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(30))
+                .build());
+        this.processing = Workflow.newActivityStub(ProcessingActivities.class, ActivityOptions.newBuilder()
+                // fanning out to thousands of batches takes a while, heartbeats let a retry resume where it stopped
+                .setStartToCloseTimeout(Duration.ofMinutes(30))
+                .setHeartbeatTimeout(Duration.ofSeconds(30))
+                .build());
+        this.psr = Workflow.newActivityStub(PaymentStatusReportActivities.class, ActivityOptions.newBuilder()
+                .setStartToCloseTimeout(Duration.ofSeconds(30))
+                .build());
+        this.transformations = Workflow.newActivityStub(TransformationActivities.class, ActivityOptions.newBuilder()
+                // large files take minutes to stream, so rely on heartbeats to detect a lost worker
+                .setStartToCloseTimeout(Duration.ofMinutes(30))
+                .setHeartbeatTimeout(Duration.ofSeconds(30))
+                .build());
     }
     private String getDetails() {
         String details = """
@@ -121,7 +141,7 @@ public class FileImpl implements File {
         // run entitlement and file checks concurrently
         var entitlementsExec = Async.function(entitlements::verifyEntitlements, new VerifyEntitlementsRequest(this.state.getArgs().getSenderId()));
         // File checks include: FileDupeCheck, ControlSumCheck, MultiRegionFileCheck
-        var fileCheckExec = Async.function(files::checkFile, new FileCheckRequest(this.state.getFileInfo()));
+        var fileCheckExec = Async.function(files::checkFile, new FileCheckRequest(this.state.getFileInfo(), this.state.getArgs().getSenderId()));
 
         // now inspect the check results
         // we can do this sequentially since we want to wait for all to complete but they have different result types
@@ -155,12 +175,28 @@ public class FileImpl implements File {
         this.state.setPreferences(preferences.getCustomerPreferences(new GetCustomerPreferencesRequest()));
 
         // always persist the transformed canonical file
-        state.setTransformedFile(transformations.persistTransformedFile(new PersistTransformedFileRequest(state.getArgs().getFileInfo())));
+        // the activity enforces our batch and payment limits as it streams, so an oversized file is rejected early
+        state.setTransformedFile(transformations.persistTransformedFile(new PersistTransformedFileRequest(
+                state.getArgs().getFileInfo(),
+                this.state.getPreferences() == null ? null : this.state.getPreferences().getBatching(),
+                this.state.getExecutionOptions().getMaxBatchCount(),
+                this.state.getExecutionOptions().getMaxPaymentCount(),
+                this.state.getArgs().getSenderId(),
+                this.state.getFileCheck().getContentHash())));
+
+        if (state.getTransformedFile().getRejection() != null) {
+            // The file itself is not correctable, so the best we can do is write our error down and
+            // Exit the workflow.
+            this.state.errors.add(state.getTransformedFile().getRejectionMessage());
+            // TODO determine message contract for marking this as unprocessable
+            this.state.setLevel1Psr(psr.sendLevel1(new SendLevel1Request()));
+            return;
+        }
 
-        // Check that the batch size is not unwieldy. We can only check this after the file is transformed.
-        // The file itself is not correctable, so the best we can do is write our error down and
-        // Exit the workflow.
-        if(state.getTransformedFile().getBatchIds().size() > this.state.getExecutionOptions().getMaxBatchCount()) {
+        // Check that the batch size is not unwieldy.
+        // Kept for files whose transformation ran before the activity enforced the limit itself.
+        int batchCount = state.getTransformedFile().getBatchCount();
+        if(batchCount > this.state.getExecutionOptions().getMaxBatchCount()) {
             this.state.errors.add("Batch count exceeds allowed count of " + this.state.getExecutionOptions().getMaxBatchCount());
             // TODO determine message contract for marking this as unprocessable
             this.state.setLevel1Psr(psr.sendLevel1(new SendLevel1Request()));
@@ -169,10 +205,15 @@ public class FileImpl implements File {
 
         // now that we have the transformed file, we can start processing batches
         // this will fanout into N batches inside the Activity. It's cheap and lightweight
-        state.setBatches(processing.batchFile(
-                new BatchFileRequest(this.state.getFileInfo(),
-                        this.state.getTransformedFile().getBatchIds(),
-                        this.state.getPreferences())));
+        // very large files are sharded across BatchStarter child workflows instead to keep our history bounded.
+        // batches are handed out as ranges of ordinals, the activities read their ids from the file's payment index
+        int pageSize = this.state.getExecutionOptions().getBatchStarterPageSize();
+        if (pageSize > 0 && batchCount > pageSize) {
+            state.setBatches(startBatchesInPages(batchCount, pageSize));
+        } else {
+            state.setBatches(processing.batchFile(
+                    new BatchFileRequest(this.state.getFileInfo(), 0, batchCount, this.state.getPreferences())));
+        }
 
         // send our L1 ACK ASAP
         // with PENDING status
@@ -180,14 +221,40 @@ public class FileImpl implements File {
 
         if(!Objects.isNull(state.getApproval())) {
             // broadcast approvals to all related Batches (Workflows)
-            processing.approveBatches(new ApproveBatchesRequest(state.getFileInfo(), state.getTransformedFile().getBatchIds()));
+            processing.approveBatches(new ApproveBatchesRequest(state.getFileInfo()));
         }
         if(this.state.getPreferences().isFileApprovalRequired()) {
             // determine TTL for approval time
             Workflow.await(Duration.ofSeconds(864000), () -> this.state.getApproval() != null);
-            this.processing.approveBatches(new ApproveBatchesRequest(this.state.getFileInfo(), this.state.getTransformedFile().getBatchIds()));
+            this.processing.approveBatches(new ApproveBatchesRequest(this.state.getFileInfo()));
         }
     }
+    private BatchFileResponse startBatchesInPages(int batchCount, int pageSize) {
+        var options = this.state.getExecutionOptions();
+        var pages = new ArrayList<Promise<BatchFileResponse>>();
+        for (int start = 0, page = 0; start < batchCount; start += pageSize, page++) {
+            var starter = Workflow.newChildWorkflowStub(BatchStarter.class, ChildWorkflowOptions.newBuilder()
+                    .setWorkflowId(this.state.getFileInfo().getFileId() + "-batch-starter-" + page)
+                    .build());
+            pages.add(Async.function(starter::execute, new StartBatchesRequest(
+                    this.state.getFileInfo(),
+                    this.state.getPreferences(),
+                    start,
+                    Math.min(batchCount, start + pageSize),
+                    options.getBatchStarterChunkSize(),
+                    options.getBatchStarterMaxHistoryLength())));
+        }
+        Promise.allOf(pages).get();
+
+        var res = new BatchFileResponse();
+        res.setRequestedCount(batchCount);
+        for (var page : pages) {
+            res.setStartedCount(res.getStartedCount() + page.get().getStartedCount());
+            res.getFailures().addAll(page.get().getFailures());
+        }
+        return res;
+    }
+
     @Override
     public void approveFile(ApproveFileRequest cmd) {
         this.state.setApproval(cmd);
@@ -198,6 +265,58 @@ public class FileImpl implements File {
         return this.state;
     }
 
+    @Override
+    public GetFileStatusResponse getStatus() {
+        var status = new GetFileStatusResponse();
+        status.setFileId(this.state.getFileInfo().getFileId());
+
+        var errors = new ArrayList<>(this.state.errors);
+        if (this.state.getFileCheck() != null) {
+            status.setTransactionCount(this.state.getFileCheck().getTransactionCount());
+            errors.addAll(this.state.getFileCheck().getErrors());
+        }
+        if (this.state.getEntitlements() != null && this.state.getEntitlements().isUnauthorized()) {
+            errors.add("Sender " + this.state.getArgs().getSenderId() + " is not entitled to submit files");
+        }
+        if (this.state.getTransformedFile() != null) {
+            status.setBatchCount(this.state.getTransformedFile().getBatchCount());
+            status.setPaymentCount(this.state.getTransformedFile().getPaymentCount());
+        }
+        if (this.state.getBatches() != null) {
+            status.setBatchesStarted(this.state.getBatches().getStartedCount());
+            status.setBatchStartFailures(this.state.getBatches().getFailures().size());
+        }
+
+        status.setPhase(getPhase(!errors.isEmpty()));
+        // a file failing its control sums can carry an error per PmtInf, pollers only need the first few
+        status.setErrorCount(errors.size());
+        status.setErrors(new ArrayList<>(errors.subList(0, Math.min(errors.size(), MAX_STATUS_ERRORS))));
+        return status;
+    }
+
+    private FilePhase getPhase(boolean hasErrors) {
+        if (this.state.isCancelled()) {
+            return FilePhase.CANCELLED;
+        }
+        if (hasErrors) {
+            return FilePhase.REJECTED;
+        }
+        if (this.state.getEntitlements() == null || this.state.getFileCheck() == null) {
+            return FilePhase.CHECKING;
+        }
+        if (this.state.getTransformedFile() == null) {
+            return FilePhase.TRANSFORMING;
+        }
+        if (this.state.getBatches() == null) {
+            return FilePhase.BATCHING;
+        }
+        if (this.state.getPreferences() != null && this.state.getPreferences().isFileApprovalRequired()
+                && this.state.getApproval() == null) {
+            return FilePhase.AWAITING_APPROVAL;
+        }
+        return FilePhase.BATCHES_RUNNING;
+    }
+
     @Override
     public void recoverFromPreviousFailure() {
         if(this.state.getEntitlements() == null) {
@@ -1,23 +1,124 @@
 package com.temporal.initiations.workflows.files.activities;
 
+import com.temporal.initiations.fraud.FraudGateway;
+import com.temporal.initiations.fraud.FraudSubmitter;
+import com.temporal.initiations.gpo.BatchTransmitter;
 import com.temporal.initiations.messages.domain.workflows.*;
+import io.temporal.activity.Activity;
+import io.temporal.failure.ApplicationFailure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Component("batch-processing-activities")
 public class BatchActivitiesImpl implements BatchActivities, TransmissionActivities, FraudActivities {
 
+    private static final Logger logger = LoggerFactory.getLogger(BatchActivitiesImpl.class);
+
+    private static final Duration TRANSMISSION_HEARTBEAT_INTERVAL = Duration.ofSeconds(10);
+
+    /**
+     * Heartbeat details for {@link #transmitBatch}: GPO has acknowledged the first {@code acknowledgedBytes} of the
+     * message. Always 0 while transmissions are coalesced.
+     */
+    public record TransmitCheckpoint(long acknowledgedBytes) {
+    }
+
+    private final FraudSubmitter fraudSubmitter;
+    private final FraudGateway fraudGateway;
+    private final BatchTransmitter batchTransmitter;
+
+    public BatchActivitiesImpl(FraudSubmitter fraudSubmitter,
+                               FraudGateway fraudGateway,
+                               BatchTransmitter batchTransmitter) {
+        this.fraudSubmitter = fraudSubmitter;
+        this.fraudGateway = fraudGateway;
+        this.batchTransmitter = batchTransmitter;
+    }
+
     @Override
     public TransmitBatchResponse transmitBatch(TransmitBatchRequest cmd) {
-        return null;
+        // the batch's payments are streamed out of the canonical file through the payment index written by the
+        // transformation, and uploaded a chunk at a time so a retry carries on from what GPO already acknowledged
+        var ctx = Activity.getExecutionContext();
+        var checkpoint = ctx.getHeartbeatDetails(TransmitCheckpoint.class).orElse(new TransmitCheckpoint(0));
+        TransmitBatchResponse res;
+        try {
+            res = batchTransmitter.isCoalescing()
+                    ? awaitTransmission(batchTransmitter.submit(cmd), checkpoint)
+                    : batchTransmitter.transmit(cmd, checkpoint.acknowledgedBytes(),
+                            acknowledged -> ctx.heartbeat(new TransmitCheckpoint(acknowledged)));
+        } catch (IllegalArgumentException e) {
+            throw ApplicationFailure.newNonRetryableFailure(e.getMessage(), Errors.BAD_REQUEST.name());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Activity.wrap(e);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+        if (res.getTransmissionId() != null) {
+            logger.info("Transmitted batch {} ({} payments) in {} with {} batches ({} bytes in {} chunks) in {}ms at {} MB/s",
+                    res.getBatchId(), res.getPaymentCount(), res.getTransmissionId(), res.getBatchCount(),
+                    res.getSizeBytes(), res.getChunkCount(), res.getDurationMillis(),
+                    String.format("%.1f", res.getMegabytesPerSecond()));
+        }
+        return res;
+    }
+
+    /**
+     * Waits for a coalesced transmission, heartbeating so a lost worker is noticed while the group fills and uploads.
+     */
+    private static TransmitBatchResponse awaitTransmission(CompletableFuture<TransmitBatchResponse> transmission,
+                                                           TransmitCheckpoint checkpoint)
+            throws IOException, InterruptedException {
+        var ctx = Activity.getExecutionContext();
+        while (true) {
+            try {
+                return transmission.get(TRANSMISSION_HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // progress belongs to the shared transmission, which GPO tracks; the batch only keeps its place
+                ctx.heartbeat(checkpoint);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
     }
 
     @Override
     public StartFraudCheckResponse startFraudCheck(StartFraudCheckRequest cmd) {
-        return null;
+        // batches of the same file starting around the same time share a single GFD submission
+        var res = new StartFraudCheckResponse();
+        try {
+            res.setFraudCheckFilePath(fraudSubmitter.submit(cmd));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Activity.wrap(e);
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+        return res;
     }
 
     @Override
     public CompleteFraudCheckResponse completeFraudCheck(CompleteFraudCheckRequest cmd) {
-        return null;
+        try {
+            var verdict = fraudGateway.poll(cmd.getFraudCheckFilePath());
+            return new CompleteFraudCheckResponse(cmd.getBatchId(), verdict.isPresent(), verdict.orElse(null));
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
     }
 }
@@ -1,18 +1,58 @@
 package com.temporal.initiations.workflows.files.activities;
 
+import com.temporal.initiations.batching.BatchAggregates;
+import com.temporal.initiations.batching.BatchGrouping;
+import com.temporal.initiations.batching.BatchKeyRules;
+import com.temporal.initiations.concurrency.BoundedFanOut;
 import com.temporal.initiations.messages.domain.workflows.*;
 import com.temporal.initiations.workflows.files.Batch;
+import com.temporal.initiations.pain.ControlSumVerifier;
+import com.temporal.initiations.persistence.FileHashIndex;
+import com.temporal.initiations.persistence.PaymentRepository;
+import com.temporal.initiations.persistence.PaymentWriter;
+import com.temporal.initiations.persistence.TransformedBatch;
+import com.temporal.initiations.pain.Pain001ParseException;
+import com.temporal.initiations.pain.Pain001Reader;
+import com.temporal.initiations.pain.CanonicalFile;
+import com.temporal.initiations.pain.ParallelPain001Reader;
+import com.temporal.initiations.pain.PaymentReader;
+import com.temporal.initiations.storage.MappedFileInputStream;
+import com.temporal.initiations.storage.PaymentIndex;
+import com.temporal.initiations.storage.PaymentOffsets;
 import io.temporal.activity.Activity;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
 import io.temporal.api.enums.v1.WorkflowIdConflictPolicy;
 import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
 import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.client.WorkflowNotFoundException;
 import io.temporal.client.WorkflowOptions;
+import io.temporal.failure.ApplicationFailure;
 import io.temporal.workflow.Workflow;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Component( "file-initiation-activities")
 public class FileActivitiesImpl implements
@@ -24,50 +64,224 @@ public class FileActivitiesImpl implements
         ProcessingActivities,
         TransformationActivities
 {
+    private static final int HEARTBEAT_INTERVAL = 1000;
+    /**
+     * Heartbeat details for {@link #batchFile}: every batch of the range before {@code nextIndex} has been handled.
+     */
+    public record BatchFileCheckpoint(int nextIndex, List<BatchStartFailure> failures) {
+    }
+
+    /**
+     * Heartbeat details for {@link #approveBatches}: every batch before {@code nextIndex} has been signalled.
+     */
+    public record ApproveBatchesCheckpoint(int nextIndex,
+                                           int signalledCount,
+                                           int alreadyCompletedCount,
+                                           List<BatchApprovalOutcome> failures) {
+    }
+
+    /**
+     * Folds approval outcomes into running totals in index order, up to the fan-out watermark.
+     */
+    private static final class ApprovalTally {
+        private int nextIndex;
+        private int signalled;
+        private int alreadyCompleted;
+        private final List<BatchApprovalOutcome> failures;
+
+        ApprovalTally(ApproveBatchesCheckpoint checkpoint) {
+            this.nextIndex = checkpoint.nextIndex();
+            this.signalled = checkpoint.signalledCount();
+            this.alreadyCompleted = checkpoint.alreadyCompletedCount();
+            this.failures = new ArrayList<>(checkpoint.failures());
+        }
+
+        void advance(AtomicReferenceArray<BatchApprovalOutcome> outcomes, int watermark) {
+            for (; nextIndex < watermark; nextIndex++) {
+                var outcome = outcomes.get(nextIndex);
+                switch (outcome.status()) {
+                    case SIGNALLED -> signalled++;
+                    case ALREADY_COMPLETED -> alreadyCompleted++;
+                    case FAILED -> failures.add(outcome);
+                }
+            }
+        }
+
+        ApproveBatchesCheckpoint checkpoint() {
+            return new ApproveBatchesCheckpoint(nextIndex, signalled, alreadyCompleted, List.copyOf(failures));
+        }
+    }
+
     private Logger logger = Workflow.getLogger(FileActivitiesImpl.class);
+    private final FileHashIndex hashIndex;
+    private final PaymentRepository payments;
+    private final int batchStartConcurrency;
+    private final int approvalConcurrency;
+    private final int commitInterval;
+    private final int parseParallelism;
+    private final int parseChunkSize;
+    private final Path canonicalDirectory;
+
+    public FileActivitiesImpl(
+            FileHashIndex hashIndex,
+            PaymentRepository payments,
+            @Value("${initiations.batches.start-concurrency:32}") int batchStartConcurrency,
+            @Value("${initiations.batches.approval-concurrency:32}") int approvalConcurrency,
+            @Value("${initiations.payments.commit-interval:50000}") int commitInterval,
+            @Value("${initiations.payments.parse-parallelism:0}") int parseParallelism,
+            @Value("${initiations.payments.parse-chunk-size:2048}") int parseChunkSize,
+            @Value("${initiations.files.canonical-path:data/canonical}") String canonicalPath) {
+        this.hashIndex = hashIndex;
+        this.payments = payments;
+        this.batchStartConcurrency = batchStartConcurrency;
+        this.approvalConcurrency = approvalConcurrency;
+        this.commitInterval = commitInterval;
+        this.parseParallelism = parseParallelism > 0 ? parseParallelism : Runtime.getRuntime().availableProcessors();
+        this.parseChunkSize = Math.max(1, parseChunkSize);
+        this.canonicalDirectory = Path.of(canonicalPath);
+    }
+
     @Override
     public BatchFileResponse batchFile(BatchFileRequest cmd) {
-        // for each batchId in cmd.getBatchIds()
+        // for each batchId in the range, read from the file's payment index
             // Start BatchWorkflow with
             // WorkflowIdReusePolicy.AllowDuplicateFailedOnly.
             //  - Only batches that failed to execute correctly should be reprocessed.
             // WorkflowIdConflictPolicy.UseExisting
             //  - Protect idempotency without handling dupe errors for control flow.
             //  - You could get a duplicate attempt if this Activity fails while executing and is rescheduled for retry.
-        // we could split the batchIds into chunks and start the workflows concurrently if we like (threading)
+        // starts run concurrently (bounded) and we heartbeat the index every batch before has been started,
+        // so a retry resumes from there and only re-issues the handful of starts that were in flight
         var ctx = Activity.getExecutionContext();
-        var client = Activity.getExecutionContext().getWorkflowClient();
-        for (String batchId : cmd.getBatchIds()) {
-            var wf = client.newWorkflowStub(Batch.class,
-                    WorkflowOptions.newBuilder()
-                            .setWorkflowId(batchId)
-                            .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE_FAILED_ONLY)
-                            .setWorkflowIdConflictPolicy(WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_USE_EXISTING)
-                            .setTaskQueue(ctx.getInfo().getActivityTaskQueue())
-                            .build() );
-            // TODO catch errors and store for response
-            // Start workflows (non-blocking)
-            var exec = WorkflowClient.start(wf::execute, new ProcessBatchRequest(
-                    Instant.now(Clock.systemUTC()),
-                    batchId,
-                    cmd.getFileInfo(),
-                    cmd.getPreferences(),
-                    new ProcessBatchExecutionOptions()
-            ));
-            logger.info("Started workflow: {}", exec.getWorkflowId());
+        var client = ctx.getWorkflowClient();
+        var taskQueue = ctx.getInfo().getActivityTaskQueue();
+        var batchIds = batchIds(cmd.getFileInfo().getFileId(), cmd.getFromBatch(), cmd.getToBatch());
+        var checkpoint = ctx.getHeartbeatDetails(BatchFileCheckpoint.class)
+                .orElse(new BatchFileCheckpoint(0, List.of()));
+        if (checkpoint.nextIndex() > 0) {
+            logger.info("Resuming batch starts for file {} at index {}", cmd.getFileInfo().getFileId(), checkpoint.nextIndex());
         }
-        return null;
+        var failures = new ConcurrentSkipListMap<Integer, BatchStartFailure>();
+        try {
+            BoundedFanOut.run(batchIds, checkpoint.nextIndex(), batchStartConcurrency, (index, batchId) -> {
+                try {
+                    var wf = client.newWorkflowStub(Batch.class,
+                            WorkflowOptions.newBuilder()
+                                    .setWorkflowId(batchId)
+                                    .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE_FAILED_ONLY)
+                                    .setWorkflowIdConflictPolicy(WorkflowIdConflictPolicy.WORKFLOW_ID_CONFLICT_POLICY_USE_EXISTING)
+                                    .setTaskQueue(taskQueue)
+                                    .build() );
+                    // Start workflows (non-blocking)
+                    var exec = WorkflowClient.start(wf::execute, new ProcessBatchRequest(
+                            Instant.now(Clock.systemUTC()),
+                            batchId,
+                            cmd.getFileInfo(),
+                            cmd.getPreferences(),
+                            new ProcessBatchExecutionOptions()
+                    ));
+                    logger.debug("Started workflow: {}", exec.getWorkflowId());
+                } catch (WorkflowExecutionAlreadyStarted e) {
+                    // the batch already completed successfully and AllowDuplicateFailedOnly refused to rerun it
+                    logger.debug("Batch {} already completed", batchId);
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to start batch {}: {}", batchId, e.getMessage());
+                    failures.put(index, new BatchStartFailure(batchId, e.getMessage()));
+                }
+                return null;
+            }, watermark -> ctx.heartbeat(new BatchFileCheckpoint(
+                    watermark, concat(checkpoint.failures(), failures.headMap(watermark).values()))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Activity.wrap(e);
+        }
+        var allFailures = concat(checkpoint.failures(), failures.values());
+        logger.info("Started {} of {} batches for file {}",
+                batchIds.size() - allFailures.size(), batchIds.size(), cmd.getFileInfo().getFileId());
+        return new BatchFileResponse(batchIds.size(), batchIds.size() - allFailures.size(), checkpoint.nextIndex(), allFailures);
     }
 
     @Override
     public ApproveBatchesResponse approveBatches(ApproveBatchesRequest cmd) {
-        // broadcast a `approveBatch` signal to all the batches
-        var client = Activity.getExecutionContext().getWorkflowClient();
-        for (String batchId : cmd.getBatchIds()) {
-            var wf = client.newWorkflowStub(Batch.class, batchId);
-            wf.approveBatch(new ApproveBatchRequest());
+        // broadcast a `approveBatch` signal to all the batches, a bounded number at a time,
+        // heartbeating progress so a retry does not signal every batch again
+        var ctx = Activity.getExecutionContext();
+        var client = ctx.getWorkflowClient();
+        var batchIds = batchIds(cmd.getFileInfo().getFileId(), 0, -1);
+        var checkpoint = ctx.getHeartbeatDetails(ApproveBatchesCheckpoint.class)
+                .orElse(new ApproveBatchesCheckpoint(0, 0, 0, List.of()));
+        var tally = new ApprovalTally(checkpoint);
+        var outcomes = new AtomicReferenceArray<BatchApprovalOutcome>(batchIds.size());
+        long started = System.nanoTime();
+        try {
+            BoundedFanOut.run(batchIds, checkpoint.nextIndex(), approvalConcurrency, (index, batchId) -> {
+                var outcome = approveBatch(client, batchId);
+                outcomes.set(index, outcome);
+                return outcome;
+            }, watermark -> {
+                tally.advance(outcomes, watermark);
+                ctx.heartbeat(tally.checkpoint());
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Activity.wrap(e);
+        }
+
+        var res = new ApproveBatchesResponse(
+                tally.signalled,
+                tally.alreadyCompleted,
+                tally.failures.size(),
+                checkpoint.nextIndex(),
+                millisSince(started),
+                List.copyOf(tally.failures));
+        logger.info("Approved {} batches for file {} ({} already completed, {} failed) in {}ms",
+                res.signalledCount(), cmd.getFileInfo().getFileId(), res.alreadyCompletedCount(), res.failedCount(), res.durationMillis());
+        return res;
+    }
+
+    /**
+     * Reads the ids of batches {@code [from, to)} of a file from its payment index, where the
+     * transformation wrote them; a negative {@code to} reads through the last batch.
+     */
+    private List<String> batchIds(String fileId, int from, int to) {
+        try (var index = PaymentIndex.open(canonicalDirectory.resolve(fileId + ".idx"), canonicalDirectory.resolve(fileId + ".xml"))) {
+            int end = to < 0 ? index.batchCount() : to;
+            Objects.checkFromToIndex(from, end, index.batchCount());
+            var batchIds = new ArrayList<String>(end - from);
+            for (int batch = from; batch < end; batch++) {
+                batchIds.add(index.batchId(batch));
+            }
+            return batchIds;
+        } catch (IOException e) {
+            throw Activity.wrap(e);
+        }
+    }
+
+    private BatchApprovalOutcome approveBatch(WorkflowClient client, String batchId) {
+        long started = System.nanoTime();
+        try {
+            client.newWorkflowStub(Batch.class, batchId).approveBatch(new ApproveBatchRequest(batchId));
+            return new BatchApprovalOutcome(batchId, BatchApprovalOutcome.Status.SIGNALLED, millisSince(started), null);
+        } catch (WorkflowNotFoundException e) {
+            // no running execution: either the batch already finished or it was never started
+            var status = describeStatus(client, batchId);
+            if (status == WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED) {
+                return new BatchApprovalOutcome(batchId, BatchApprovalOutcome.Status.ALREADY_COMPLETED, millisSince(started), null);
+            }
+            return new BatchApprovalOutcome(batchId, BatchApprovalOutcome.Status.FAILED, millisSince(started),
+                    status == null ? "Batch was never started" : "Batch is closed with status " + status);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to approve batch {}: {}", batchId, e.getMessage());
+            return new BatchApprovalOutcome(batchId, BatchApprovalOutcome.Status.FAILED, millisSince(started), e.getMessage());
+        }
+    }
+
+    private static WorkflowExecutionStatus describeStatus(WorkflowClient client, String batchId) {
+        try {
+            return client.newUntypedWorkflowStub(batchId).describe().getStatus();
+        } catch (WorkflowNotFoundException e) {
+            return null;
         }
-        return null;
     }
 
     @Override
@@ -77,15 +291,215 @@ public class FileActivitiesImpl implements
 
     @Override
     public PersistTransformedFileResponse persistTransformedFile(PersistTransformedFileRequest cmd) {
+        var ctx = Activity.getExecutionContext();
         var res =  new PersistTransformedFileResponse();
-        // create Payment object
-        // executeBusinessRules on the payment object
-        // transform file to pain-116.001.003
-        // pseudocode: store batchIds on response like res.setBatchIds(transformedFile.getBatchIds());
-        // open DB transaction
-        // perist(payment)
-        // try { commit DB transaction } catch (Exception e){ throw ApplicationFailure }
+        var fileId = cmd.getFileInfo().getFileId();
+        var file = Path.of(cmd.getFileInfo().getFilePath());
+        // the customer's BatchKey criteria are compiled once and evaluated on every streamed payment
+        var rules = BatchKeyRules.forProfile(cmd.getBatching());
+        var canonicalFile = canonicalDirectory.resolve(fileId + ".xml");
+        var offsetsFile = canonicalDirectory.resolve(fileId + ".offsets");
+        var indexFile = canonicalDirectory.resolve(fileId + ".idx");
+        // a retry picks up after the last committed chunk instead of transforming the whole file again;
+        // the heartbeat details only ever carry the position after a committed chunk
+        var resumeAt = ctx.getHeartbeatDetails(Pain001Reader.Position.class).orElse(null);
+        var committed = resumeAt;
+        BatchGrouping batches;
+        // per-batch totals are kept as we go so nothing has to be grouped after the file is persisted
+        BatchAggregates totals;
+        var batchIds = new ArrayList<String>();
+        CanonicalFile canonical = null;
+        PaymentOffsets.Appender offsets = null;
+        try {
+            Files.createDirectories(canonicalDirectory);
+            if (resumeAt != null) {
+                try {
+                    // both working files are cut back to the checkpoint, as they run ahead of it
+                    offsets = PaymentOffsets.resume(offsetsFile, resumeAt.sequence());
+                    canonical = CanonicalFile.resume(canonicalFile, offsets.end());
+                } catch (IOException e) {
+                    // the retry landed on a worker without our working files, so the payments recorded so far are lost
+                    logger.info("Working files for file {} are unusable, transforming from the start: {}", fileId, e.getMessage());
+                    if (offsets != null) {
+                        offsets.close();
+                    }
+                    resumeAt = null;
+                    committed = null;
+                }
+            }
+            if (resumeAt == null) {
+                offsets = PaymentOffsets.create(offsetsFile);
+                canonical = CanonicalFile.create(canonicalFile);
+                batches = rules.newGrouping();
+                totals = new BatchAggregates();
+            } else {
+                var saved = payments.findBatches(fileId, resumeAt.sequence());
+                batches = rules.newGrouping(saved.stream().map(TransformedBatch::exemplar).toList());
+                totals = BatchAggregates.restore(saved.stream().map(TransformedBatch::totals).toList());
+                saved.forEach(batch -> batchIds.add(batch.totals().getBatchId()));
+                logger.info("Resuming transformation of file {} after payment {} ({})",
+                        fileId, resumeAt.sequence(), resumeAt.lastEndToEndId());
+            }
+
+            // stream the file one payment at a time so heap use stays flat regardless of file size; the same pass
+            // writes the canonical pain.001 form and notes where each payment lands so the payment index can
+            // point straight at it. Payments are committed every commitInterval; the file only counts as
+            // persisted once the writer commits it
+            try (var reader = openReader(file, resumeAt, canonical);
+                 var writer = payments.open(fileId, resumeAt == null ? 0 : resumeAt.sequence())) {
+                long chunkStart = resumeAt == null ? 0 : resumeAt.sequence();
+                try {
+                    while (reader.hasNext()) {
+                        var payment = reader.next();
+                        // executeBusinessRules on the payment object, which computes the BatchKey
+                        int batch = batches.assign(payment);
+                        totals.add(batch, payment);
+                        if (batch == batchIds.size()) {
+                            // batches are numbered in the order they first appear in the file, so ids are stable across retries
+                            batchIds.add(String.format("%s-%06d", fileId, batch + 1));
+                        }
+                        // pathological files are rejected as soon as they cross a limit rather than after a full persist,
+                        // discarding the chunks committed so far and the canonical file written with them
+                        if (batches.size() > cmd.getMaxBatchCount()) {
+                            discard(writer, canonical, offsets, offsetsFile, indexFile);
+                            return reject(res, fileId, Errors.INVALID_BATCH_COUNT,
+                                    "Batch count exceeds allowed count of " + cmd.getMaxBatchCount(), reader.getCount());
+                        }
+                        if (cmd.getMaxPaymentCount() > 0 && reader.getCount() > cmd.getMaxPaymentCount()) {
+                            discard(writer, canonical, offsets, offsetsFile, indexFile);
+                            return reject(res, fileId, Errors.INVALID_PAYMENT_COUNT,
+                                    "Payment count exceeds allowed count of " + cmd.getMaxPaymentCount(), reader.getCount());
+                        }
+                        writer.write(batchIds.get(batch), payment);
+                        offsets.append(reader.canonicalOffset(), reader.canonicalLength(), batch);
+                        if (commitInterval > 0 && reader.getCount() % commitInterval == 0) {
+                            // the working files are on disk before the chunk commits, so a retry can resume from it
+                            canonical.force();
+                            offsets.force();
+                            writer.checkpoint(reader.getCount(), transformedBatches(batches, totals, batchIds, chunkStart));
+                            chunkStart = reader.getCount();
+                            committed = reader.position();
+                            ctx.heartbeat(committed);
+                        } else if (reader.getCount() % HEARTBEAT_INTERVAL == 0) {
+                            // the details always carry the last committed checkpoint, as that is all a retry can resume from
+                            ctx.heartbeat(committed);
+                        }
+                    }
+                } catch (Pain001ParseException e) {
+                    discard(writer, canonical, offsets, offsetsFile, indexFile);
+                    throw e;
+                }
+                // every check has passed, so the file claims its content; a copy that got this far at the same
+                // time loses to whichever registered first
+                var original = cmd.getContentHash() == null
+                        ? Optional.<FileHashIndex.Entry>empty()
+                        : hashIndex.register(cmd.getSenderId(), cmd.getContentHash(), fileId);
+                if (original.isPresent()) {
+                    discard(writer, canonical, offsets, offsetsFile, indexFile);
+                    return reject(res, fileId, Errors.DUPLICATE_FILE,
+                            "File content duplicates file " + original.get().fileId(), reader.getCount());
+                }
+                var result = canonical.commit();
+                res.setCanonicalFilePath(canonicalFile.toString());
+                res.setCanonicalContentHash(result.contentHash());
+                res.setCanonicalSizeBytes(result.sizeBytes());
+                offsets.close();
+                // the index is in place before the file counts as persisted, so every committed file has one
+                var keys = new ArrayList<String>(batches.size());
+                for (int batch = 0; batch < batches.size(); batch++) {
+                    keys.add(batches.key(batch));
+                }
+                try (var table = PaymentOffsets.open(offsetsFile)) {
+                    PaymentIndex.write(indexFile, canonicalFile, table, batchIds, keys);
+                }
+                writer.commit(reader.getCount(), transformedBatches(batches, totals, batchIds, 0));
+                res.setPaymentCount(reader.getCount());
+                logger.info("Transformed {} payments into {} batches for file {}",
+                        reader.getCount(), batches.size(), fileId);
+            }
+            Files.deleteIfExists(offsetsFile);
+            res.setPaymentIndexPath(indexFile.toString());
+        } catch (Pain001ParseException e) {
+            throw ApplicationFailure.newNonRetryableFailure(e.getMessage(), Errors.BAD_REQUEST.name());
+        } catch (IOException | SQLException e) {
+            throw Activity.wrap(e);
+        } catch (UncheckedIOException e) {
+            throw Activity.wrap(e.getCause());
+        } finally {
+            // anything still open is kept for a retry to resume from
+            closeQuietly(fileId, canonical, offsets);
+        }
+        res.setBatchCount(batchIds.size());
+        return res;
+    }
+
+    /**
+     * Opens the file at the start or at the checkpoint. Parsing runs on several threads unless
+     * parse-parallelism is 1; either way payments come back in document order.
+     */
+    private PaymentReader openReader(Path file, Pain001Reader.Position resumeAt, CanonicalFile canonical) throws IOException {
+        if (parseParallelism == 1) {
+            return resumeAt == null ? Pain001Reader.open(file, canonical) : Pain001Reader.resume(file, resumeAt, canonical);
+        }
+        return resumeAt == null
+                ? ParallelPain001Reader.open(file, canonical, parseParallelism, parseChunkSize)
+                : ParallelPain001Reader.resume(file, resumeAt, canonical, parseParallelism, parseChunkSize);
+    }
+
+    /**
+     * Throws away everything a rejected file left behind: its payments and batches, its canonical
+     * file and the offsets table, so nothing of it can be resumed or read later.
+     */
+    private static void discard(PaymentWriter writer,
+                                CanonicalFile canonical,
+                                PaymentOffsets.Appender offsets,
+                                Path offsetsFile,
+                                Path indexFile) throws SQLException, IOException {
+        writer.discard();
+        canonical.discard();
+        offsets.close();
+        Files.deleteIfExists(offsetsFile);
+        Files.deleteIfExists(indexFile);
+    }
+
+    private void closeQuietly(String fileId, AutoCloseable... resources) {
+        for (var resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.warn("Unable to close working file of file {}", fileId, e);
+            }
+        }
+    }
 
+    /**
+     * @return The batches with a payment at or after {@code fromSequence}, in ordinal order
+     */
+    private static List<TransformedBatch> transformedBatches(BatchGrouping batches,
+                                                             BatchAggregates totals,
+                                                             List<String> batchIds,
+                                                             long fromSequence) {
+        var changed = new ArrayList<TransformedBatch>();
+        for (int batch = 0; batch < batches.size(); batch++) {
+            if (totals.hasPaymentsFrom(batch, fromSequence)) {
+                changed.add(new TransformedBatch(batch,
+                        totals.summary(batch, batchIds.get(batch), batches.key(batch)), batches.exemplar(batch)));
+            }
+        }
+        return changed;
+    }
+
+    private PersistTransformedFileResponse reject(PersistTransformedFileResponse res,
+                                                  String fileId,
+                                                  Errors rejection,
+                                                  String message,
+                                                  long paymentsRead) {
+        logger.warn("Rejected file {} after {} payments: {}", fileId, paymentsRead, message);
+        res.setRejection(rejection);
+        res.setRejectionMessage(message);
         return res;
     }
 
@@ -103,11 +517,65 @@ public class FileActivitiesImpl implements
 
     @Override
     public FileCheckResponse checkFile(FileCheckRequest cmd) {
-        return null;
+        var res = new FileCheckResponse();
+        var fileInfo = cmd.getFileInfo();
+        // hash the bytes as the parser reads them so both checks share a single pass over the file
+        try (var in = new DigestInputStream(MappedFileInputStream.open(Path.of(fileInfo.getFilePath())), newContentDigest())) {
+            // Control Sum Check: one streaming pass, no tree
+            try {
+                var controlSums = ControlSumVerifier.verify(in);
+                res.setTransactionCount(controlSums.transactionCount());
+                res.setControlSum(controlSums.controlSum());
+                res.setControlSumMismatches(controlSums.mismatches());
+                controlSums.mismatches().forEach(m -> res.getErrors().add(m.toString()));
+            } catch (Pain001ParseException e) {
+                // a file we cannot read is a failed check, not a reason to retry
+                res.getErrors().add(e.getMessage());
+            }
+
+            // File Dupe Check: based on the contents of the file, not a simple identifier
+            in.transferTo(OutputStream.nullOutputStream());
+            var contentHash = HexFormat.of().formatHex(in.getMessageDigest().digest());
+            res.setContentHash(contentHash);
+            if (fileInfo.getContentHash() != null && !fileInfo.getContentHash().equals(contentHash)) {
+                res.getErrors().add("File content changed after it was received, hash " + fileInfo.getContentHash());
+            }
+            // the hash is only claimed once the file has passed every check, entitlements included, and been
+            // transformed (see persistTransformedFile), so a rejected file does not block its corrected resend
+            var original = hashIndex.find(cmd.getSenderId(), contentHash).filter(e -> !e.fileId().equals(fileInfo.getFileId()));
+            original.ifPresent(entry -> {
+                res.setDuplicate(true);
+                res.setDuplicateOfFileId(entry.fileId());
+                res.getErrors().add("File content duplicates file " + entry.fileId());
+            });
+        } catch (IOException | SQLException e) {
+            throw Activity.wrap(e);
+        }
+        res.setFailed(!res.getErrors().isEmpty());
+        return res;
     }
 
     @Override
     public GetInitiateFileExecutionOptionsResponse getOptions(GetInitiateFileExecutionOptionsRequest request) {
         return null;
     }
+
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every JVM", e);
+        }
+    }
+
+    private static <T> List<T> concat(Collection<T> first, Collection<T> second) {
+        var all = new ArrayList<T>(first.size() + second.size());
+        all.addAll(first);
+        all.addAll(second);
+        return all;
+    }
+
+    private static long millisSince(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos).toMillis();
+    }
 }
@@ -2,7 +2,9 @@ package com.temporal.initiations.workflows.files.activities;
 
 import com.temporal.initiations.messages.domain.workflows.SendLevel1Request;
 import com.temporal.initiations.messages.domain.workflows.SendLevel1Response;
+import io.temporal.activity.ActivityInterface;
 
+@ActivityInterface
 public interface PaymentStatusReportActivities {
     SendLevel1Response sendLevel1(SendLevel1Request cmd);
 
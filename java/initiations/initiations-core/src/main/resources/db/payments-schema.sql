@@ -0,0 +1,68 @@
+-- Payments of transformed files, one row per CdtTrfTxInf.
+-- Written by JdbcPaymentRepository, possibly in several committed chunks; a file is only complete
+-- once it has a row in transformed_file.
+-- File ids are as long as the API accepts (128); batch ids add a '-' and a zero-padded batch number.
+CREATE TABLE IF NOT EXISTS payment (
+    file_id                  VARCHAR(128)   NOT NULL,
+    sequence                 BIGINT         NOT NULL,
+    batch_id                 VARCHAR(140)   NOT NULL,
+    payment_information_id   VARCHAR(35),
+    end_to_end_id            VARCHAR(35),
+    instructed_amount        DECIMAL(18, 5) NOT NULL,
+    currency                 CHAR(3),
+    requested_execution_date VARCHAR(10),
+    debtor_account           VARCHAR(34),
+    creditor_name            VARCHAR(140),
+    creditor_account         VARCHAR(34),
+    remittance_information   VARCHAR(140),
+    PRIMARY KEY (file_id, sequence)
+);
+
+CREATE INDEX IF NOT EXISTS payment_batch_id ON payment (batch_id);
+
+-- Commit marker per file, written in the same transaction as the file's last payments.
+CREATE TABLE IF NOT EXISTS transformed_file (
+    file_id       VARCHAR(128) PRIMARY KEY,
+    payment_count BIGINT       NOT NULL,
+    batch_count   INT          NOT NULL,
+    committed_at  TIMESTAMP    NOT NULL
+);
+
+-- Running totals of a file's batches, written in the same transaction as each chunk of payments.
+-- A checkpoint adds a row for every batch its chunk changed, so the state as of any committed chunk
+-- is the latest row per batch up to that chunk. The commit replaces them all with the final totals.
+CREATE TABLE IF NOT EXISTS transformed_batch (
+    file_id                  VARCHAR(128)   NOT NULL,
+    batch_ordinal            INT            NOT NULL,
+    -- every payment before this sequence is counted
+    as_of_sequence           BIGINT         NOT NULL,
+    batch_id                 VARCHAR(140)   NOT NULL,
+    batch_key                VARCHAR(256)   NOT NULL,
+    payment_count            BIGINT         NOT NULL,
+    control_sum              DECIMAL(31, 5) NOT NULL,
+    min_execution_date       VARCHAR(10),
+    max_execution_date       VARCHAR(10),
+    first_sequence           BIGINT         NOT NULL,
+    last_sequence            BIGINT         NOT NULL,
+    first_end_to_end_id      VARCHAR(35),
+    last_end_to_end_id       VARCHAR(35),
+    -- BatchKey fields of the batch's first payment
+    payment_method           VARCHAR(4),
+    debtor_account           VARCHAR(34),
+    requested_execution_date VARCHAR(10),
+    currency                 CHAR(3),
+    instructed_amount        DECIMAL(18, 5) NOT NULL,
+    PRIMARY KEY (file_id, batch_ordinal, as_of_sequence)
+);
+
+-- Content hashes of checked files for the File Dupe Check, one row per sender and hash.
+-- Written by FileHashIndex; the primary key decides between workers registering the same content at once.
+CREATE TABLE IF NOT EXISTS file_hash (
+    sender_id            VARCHAR(128) NOT NULL,
+    content_hash         CHAR(64)     NOT NULL,
+    file_id              VARCHAR(128) NOT NULL,
+    registered_at_millis BIGINT       NOT NULL,
+    PRIMARY KEY (sender_id, content_hash)
+);
+
+CREATE INDEX IF NOT EXISTS file_hash_registered_at ON file_hash (registered_at_millis);
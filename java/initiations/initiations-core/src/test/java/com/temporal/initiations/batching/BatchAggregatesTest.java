@@ -0,0 +1,85 @@
+package com.temporal.initiations.batching;
+
+import com.temporal.initiations.messages.domain.payments.PaymentInformation;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.temporal.initiations.batching.BatchKeyRulesTest.block;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchAggregatesTest {
+
+    private static final PaymentInformation OCT_19 = block("TRF", "DE1", "2026-10-19");
+    private static final PaymentInformation OCT_21 = block("TRF", "DE1", "2026-10-21");
+    private static final PaymentInformation OCT_20 = block("TRF", "DE1", "2026-10-20");
+
+    @Test
+    void totalsAreKeptPerBatch() {
+        var totals = new BatchAggregates();
+        totals.add(0, payment(OCT_21, 1, "E2E-1", "10.50"));
+        totals.add(1, payment(OCT_20, 2, "E2E-2", "7.00"));
+        totals.add(0, payment(OCT_19, 3, "E2E-3", "0.25"));
+        totals.add(0, payment(OCT_20, 4, "E2E-4", "100.00"));
+
+        var first = totals.summary(0, "f1-000001", "KEY-A");
+        var second = totals.summary(1, "f1-000002", "KEY-B");
+
+        assertThat(totals.size()).isEqualTo(2);
+        assertThat(first.getBatchId()).isEqualTo("f1-000001");
+        assertThat(first.getBatchKey()).isEqualTo("KEY-A");
+        assertThat(first.getPaymentCount()).isEqualTo(3);
+        assertThat(first.getControlSum()).isEqualByComparingTo("110.75");
+        assertThat(first.getMinExecutionDate()).isEqualTo("2026-10-19");
+        assertThat(first.getMaxExecutionDate()).isEqualTo("2026-10-21");
+        assertThat(first.getFirstSequence()).isEqualTo(1);
+        assertThat(first.getLastSequence()).isEqualTo(4);
+        assertThat(first.getFirstEndToEndId()).isEqualTo("E2E-1");
+        assertThat(first.getLastEndToEndId()).isEqualTo("E2E-4");
+        assertThat(second.getPaymentCount()).isEqualTo(1);
+        assertThat(second.getControlSum()).isEqualByComparingTo("7.00");
+        assertThat(second.getMinExecutionDate()).isEqualTo("2026-10-20");
+        assertThat(second.getMaxExecutionDate()).isEqualTo("2026-10-20");
+    }
+
+    @Test
+    void batchesBeyondTheInitialCapacityAreCounted() {
+        var totals = new BatchAggregates();
+        for (int batch = 0; batch < 100; batch++) {
+            totals.add(batch, payment(OCT_19, batch, "E2E-" + batch, "1.00"));
+            totals.add(batch, payment(OCT_19, 100 + batch, "E2E-" + (100 + batch), String.valueOf(batch)));
+        }
+
+        assertThat(totals.size()).isEqualTo(100);
+        assertThat(totals.summary(99, "f1-000100", "KEY").getPaymentCount()).isEqualTo(2);
+        assertThat(totals.summary(99, "f1-000100", "KEY").getControlSum()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void restoredTotalsCarryOnWhereTheSummariesLeftOff() {
+        var before = new BatchAggregates();
+        before.add(0, payment(OCT_20, 1, "E2E-1", "1.00"));
+        before.add(1, payment(OCT_20, 2, "E2E-2", "2.00"));
+
+        var restored = BatchAggregates.restore(List.of(
+                before.summary(0, "f1-000001", "KEY-A"), before.summary(1, "f1-000002", "KEY-B")));
+        restored.add(0, payment(OCT_19, 3, "E2E-3", "3.00"));
+
+        var first = restored.summary(0, "f1-000001", "KEY-A");
+        assertThat(first.getPaymentCount()).isEqualTo(2);
+        assertThat(first.getControlSum()).isEqualByComparingTo("4.00");
+        assertThat(first.getMinExecutionDate()).isEqualTo("2026-10-19");
+        assertThat(first.getMaxExecutionDate()).isEqualTo("2026-10-20");
+        assertThat(first.getFirstEndToEndId()).isEqualTo("E2E-1");
+        assertThat(first.getLastEndToEndId()).isEqualTo("E2E-3");
+        // only the batch that took a payment since the summaries has changed
+        assertThat(restored.hasPaymentsFrom(0, 3)).isTrue();
+        assertThat(restored.hasPaymentsFrom(1, 3)).isFalse();
+    }
+
+    private static PaymentRecord payment(PaymentInformation block, long sequence, String endToEndId, String amount) {
+        return new PaymentRecord(block, sequence, endToEndId, new BigDecimal(amount), "EUR", "Creditor", null, null);
+    }
+}
@@ -0,0 +1,111 @@
+package com.temporal.initiations.batching;
+
+import com.temporal.initiations.messages.domain.payments.PaymentInformation;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import com.temporal.initiations.messages.domain.workflows.BatchingCriterion;
+import com.temporal.initiations.messages.domain.workflows.BatchingProfile;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.temporal.initiations.batching.BatchKeyRulesTest.block;
+import static com.temporal.initiations.batching.BatchKeyRulesTest.payment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchGroupingTest {
+
+    private static final BatchingProfile PROFILE = new BatchingProfile(
+            List.of(BatchingCriterion.DEBTOR_ACCOUNT, BatchingCriterion.CURRENCY, BatchingCriterion.VALUE_BAND),
+            List.of(new BigDecimal("1000")));
+
+    @Test
+    void sameFileAndProfileGiveTheSameBatchesInTheSameOrder() {
+        var payments = payments(5_000);
+
+        var first = group(payments, new BatchingProfile(PROFILE.criteria(), PROFILE.valueBandUpperBounds()));
+        var second = group(payments, new BatchingProfile(PROFILE.criteria(), PROFILE.valueBandUpperBounds()));
+
+        assertThat(second).isEqualTo(first);
+        // enough batches for the table to have grown several times
+        assertThat(first.keys()).hasSizeGreaterThan(200).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void batchesAreNumberedInTheOrderTheirFirstPaymentAppears() {
+        var block = block("TRF", "DE1", "2026-10-19");
+        var grouping = BatchKeyRules.forProfile(new BatchingProfile(List.of(BatchingCriterion.CURRENCY), List.of())).newGrouping();
+
+        var ordinals = List.of(
+                grouping.assign(payment(block, "USD", "1.00")),
+                grouping.assign(payment(block, "EUR", "1.00")),
+                grouping.assign(payment(block, "USD", "2.00")),
+                grouping.assign(payment(block, "GBP", "1.00")),
+                grouping.assign(payment(block, "EUR", "2.00")));
+
+        assertThat(ordinals).containsExactly(0, 1, 0, 2, 1);
+        assertThat(grouping.size()).isEqualTo(3);
+        assertThat(grouping.key(0)).isEqualTo("USD");
+        assertThat(grouping.exemplar(1).instructedAmount()).isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void groupingRebuiltFromExemplarsCarriesOnWithTheSameOrdinals() {
+        var payments = payments(2_000);
+        var whole = group(payments, PROFILE);
+        var rules = BatchKeyRules.forProfile(PROFILE);
+        var before = rules.newGrouping();
+        for (var payment : payments.subList(0, 1_000)) {
+            before.assign(payment);
+        }
+        var exemplars = new ArrayList<PaymentRecord>();
+        for (int batch = 0; batch < before.size(); batch++) {
+            exemplars.add(before.exemplar(batch));
+        }
+
+        var resumed = rules.newGrouping(exemplars);
+        var ordinals = new ArrayList<>(whole.ordinals().subList(0, 1_000));
+        for (var payment : payments.subList(1_000, payments.size())) {
+            ordinals.add(resumed.assign(payment));
+        }
+
+        assertThat(ordinals).isEqualTo(whole.ordinals());
+        assertThat(resumed.size()).isEqualTo(whole.keys().size());
+    }
+
+    private record Grouped(List<Integer> ordinals, List<String> keys) {
+    }
+
+    private static Grouped group(List<PaymentRecord> payments, BatchingProfile profile) {
+        var grouping = BatchKeyRules.forProfile(profile).newGrouping();
+        var ordinals = new ArrayList<Integer>();
+        for (var payment : payments) {
+            ordinals.add(grouping.assign(payment));
+        }
+        var keys = new ArrayList<String>();
+        for (int batch = 0; batch < grouping.size(); batch++) {
+            keys.add(grouping.key(batch));
+        }
+        return new Grouped(ordinals, keys);
+    }
+
+    /**
+     * @return Payments in blocks of ten, spread over 100 debtors, three currencies and two value bands
+     */
+    private static List<PaymentRecord> payments(int count) {
+        var random = new Random(17);
+        var currencies = List.of("EUR", "USD", "GBP");
+        var payments = new ArrayList<PaymentRecord>(count);
+        PaymentInformation block = null;
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 0) {
+                block = block("TRF", "DE" + random.nextInt(100), "2026-10-19");
+            }
+            payments.add(payment(block, currencies.get(random.nextInt(currencies.size())),
+                    random.nextBoolean() ? "10.00" : "5000.00"));
+        }
+        return payments;
+    }
+}
@@ -0,0 +1,110 @@
+package com.temporal.initiations.batching;
+
+import com.temporal.initiations.messages.domain.payments.PaymentInformation;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import com.temporal.initiations.messages.domain.workflows.BatchingCriterion;
+import com.temporal.initiations.messages.domain.workflows.BatchingProfile;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchKeyRulesTest {
+
+    private static final PaymentInformation BLOCK = block("TRF", "DE89370400440532013000", "2026-10-19");
+
+    @Test
+    void currencySplitsBatches() {
+        assertSplits(BatchingCriterion.CURRENCY,
+                payment(BLOCK, "EUR", "10.00"), payment(BLOCK, "USD", "10.00"));
+    }
+
+    @Test
+    void debtorAccountSplitsBatches() {
+        assertSplits(BatchingCriterion.DEBTOR_ACCOUNT,
+                payment(BLOCK, "EUR", "10.00"),
+                payment(block("TRF", "GB29NWBK60161331926819", "2026-10-19"), "EUR", "10.00"));
+    }
+
+    @Test
+    void executionDateSplitsBatches() {
+        assertSplits(BatchingCriterion.EXECUTION_DATE,
+                payment(BLOCK, "EUR", "10.00"),
+                payment(block("TRF", "DE89370400440532013000", "2026-10-20"), "EUR", "10.00"));
+    }
+
+    @Test
+    void paymentMethodSplitsBatches() {
+        assertSplits(BatchingCriterion.PAYMENT_METHOD,
+                payment(BLOCK, "EUR", "10.00"),
+                payment(block("CHK", "DE89370400440532013000", "2026-10-19"), "EUR", "10.00"));
+    }
+
+    @Test
+    void valueBandSplitsBatchesAtItsUpperBounds() {
+        var rules = BatchKeyRules.forProfile(new BatchingProfile(List.of(BatchingCriterion.VALUE_BAND),
+                List.of(new BigDecimal("10000"), new BigDecimal("100"))));
+        var grouping = rules.newGrouping();
+
+        // bounds are exclusive and given in any order
+        int low = grouping.assign(payment(BLOCK, "EUR", "99.99"));
+        int middle = grouping.assign(payment(BLOCK, "EUR", "100.00"));
+        int alsoMiddle = grouping.assign(payment(BLOCK, "EUR", "9999.99"));
+        int top = grouping.assign(payment(BLOCK, "EUR", "10000.00"));
+
+        assertThat(List.of(low, middle, alsoMiddle, top)).containsExactly(0, 1, 1, 2);
+        assertThat(grouping.key(0)).isEqualTo("V0");
+        assertThat(grouping.key(2)).isEqualTo("V2");
+    }
+
+    @Test
+    void defaultCriteriaMakeAReadableKey() {
+        var rules = BatchKeyRules.forProfile(null);
+
+        assertThat(rules.describe(payment(BLOCK, "EUR", "10.00"))).isEqualTo("TRF|DE89370400440532013000|2026-10-19|EUR");
+        assertThat(BatchKeyRules.forProfile(new BatchingProfile())).isSameAs(rules);
+    }
+
+    @Test
+    void equalProfilesShareTheirCompiledRules() {
+        var criteria = new ArrayList<>(List.of(BatchingCriterion.CURRENCY));
+        var profile = new BatchingProfile(criteria, null);
+        var rules = BatchKeyRules.forProfile(profile);
+        // changing the caller's list afterwards must not change the cached profile's key
+        criteria.add(BatchingCriterion.VALUE_BAND);
+
+        assertThat(profile.criteria()).containsExactly(BatchingCriterion.CURRENCY);
+        assertThat(profile.valueBandUpperBounds()).isEmpty();
+        assertThat(BatchKeyRules.forProfile(new BatchingProfile(List.of(BatchingCriterion.CURRENCY), List.of())))
+                .isSameAs(rules);
+        assertThatThrownBy(() -> profile.criteria().add(BatchingCriterion.DEBTOR_ACCOUNT))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    /**
+     * Checks that the two payments share a batch under every other criterion and are split by {@code criterion}.
+     */
+    private static void assertSplits(BatchingCriterion criterion, PaymentRecord a, PaymentRecord b) {
+        var others = new ArrayList<>(List.of(BatchingCriterion.values()));
+        others.remove(criterion);
+        var without = BatchKeyRules.forProfile(new BatchingProfile(others, List.of())).newGrouping();
+        var with = BatchKeyRules.forProfile(new BatchingProfile(List.of(criterion), List.of())).newGrouping();
+
+        assertThat(without.assign(a)).isEqualTo(without.assign(b));
+        assertThat(with.assign(a)).isNotEqualTo(with.assign(b));
+        assertThat(with.key(0)).isNotEqualTo(with.key(1));
+    }
+
+    static PaymentInformation block(String method, String debtorAccount, String executionDate) {
+        return new PaymentInformation("PMT-" + method + debtorAccount + executionDate, method, null, null,
+                executionDate, "Debtor", debtorAccount);
+    }
+
+    static PaymentRecord payment(PaymentInformation block, String currency, String amount) {
+        return new PaymentRecord(block, 0, "E2E", new BigDecimal(amount), currency, "Creditor", null, null);
+    }
+}
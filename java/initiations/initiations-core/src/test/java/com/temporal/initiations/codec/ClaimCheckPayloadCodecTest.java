@@ -0,0 +1,214 @@
+package com.temporal.initiations.codec;
+
+import com.google.protobuf.ByteString;
+import com.temporal.initiations.storage.BlobStore;
+import com.temporal.initiations.storage.FileSystemBlobStore;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import io.temporal.payload.codec.PayloadCodecException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClaimCheckPayloadCodecTest {
+
+    private static final int THRESHOLD = 1024;
+    private static final Duration RETENTION = Duration.ofDays(90);
+
+    @TempDir
+    Path blobs;
+
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger reads = new AtomicInteger();
+    private BlobStore store;
+
+    @BeforeEach
+    void openStore() throws IOException {
+        var files = new FileSystemBlobStore(blobs, clock);
+        store = new BlobStore() {
+            @Override
+            public void put(String key, byte[] content) throws IOException {
+                files.put(key, content);
+            }
+
+            @Override
+            public Optional<byte[]> get(String key) throws IOException {
+                reads.incrementAndGet();
+                return files.get(key);
+            }
+
+            @Override
+            public int deleteStoredBefore(Instant cutoff) throws IOException {
+                return files.deleteStoredBefore(cutoff);
+            }
+        };
+    }
+
+    @Test
+    void largePayloadIsReplacedByAReferenceAnotherClientCanResolve() {
+        var payload = json("[\"" + "file-000001\",\"".repeat(500) + "\"]");
+
+        var reference = codec(64 * 1024).encode(List.of(payload)).getFirst();
+
+        assertThat(reference.getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8())
+                .isEqualTo(ClaimCheckPayloadCodec.ENCODING);
+        assertThat(reference.getSerializedSize()).isLessThan(200);
+        // a codec with a cold cache stands for the API or another worker reading the same history
+        assertThat(codec(64 * 1024).decode(List.of(reference))).containsExactly(payload);
+        assertThat(reads).hasValue(1);
+    }
+
+    @Test
+    void smallPayloadPassesThroughWithoutTouchingTheStore() throws IOException {
+        var payload = json("{\"fileId\":\"f1\"}");
+        var codec = codec(64 * 1024);
+
+        assertThat(codec.encode(List.of(payload))).containsExactly(payload);
+        assertThat(codec.decode(List.of(payload))).containsExactly(payload);
+        assertThat(blobFiles()).isEmpty();
+        assertThat(reads).hasValue(0);
+    }
+
+    @Test
+    void referenceIsResolvedFromTheStoreOnceEvictedFromTheCache() {
+        // a few payloads' worth, split across the cache's segments
+        var codec = codec(THRESHOLD * 16);
+        var first = json("[\"" + "a".repeat(2 * THRESHOLD) + "\"]");
+        var reference = codec.encode(List.of(first)).getFirst();
+        // far more than the cache holds, so the first payload is evicted
+        for (int i = 0; i < 50; i++) {
+            codec.encode(List.of(json("[\"" + i + "b".repeat(2 * THRESHOLD) + "\"]")));
+        }
+
+        assertThat(codec.decode(List.of(reference))).containsExactly(first);
+        assertThat(reads).hasValue(1);
+        assertThat(codec.decode(List.of(reference))).containsExactly(first);
+        assertThat(reads).hasValue(1);
+    }
+
+    @Test
+    void missingBlobFailsTheDecode() throws IOException {
+        var codec = codec(64 * 1024);
+        var reference = codec.encode(List.of(json("[\"" + "a".repeat(2 * THRESHOLD) + "\"]"))).getFirst();
+        for (var blob : blobFiles()) {
+            Files.delete(blob);
+        }
+
+        assertThatThrownBy(() -> codec(64 * 1024).decode(List.of(reference)))
+                .isInstanceOf(PayloadCodecException.class)
+                .hasMessageContaining("is not in the blob store");
+    }
+
+    @Test
+    void unreadableBlobFailsTheDecode() throws IOException {
+        var reference = codec(64 * 1024).encode(List.of(json("[\"" + "a".repeat(2 * THRESHOLD) + "\"]"))).getFirst();
+        Files.write(blobFiles().getFirst(), "not deflated".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> codec(64 * 1024).decode(List.of(reference)))
+                .isInstanceOf(PayloadCodecException.class)
+                .hasMessageContaining("Unable to read");
+    }
+
+    @Test
+    void blobWithOtherContentFailsTheDecode() throws IOException {
+        var reference = codec(64 * 1024).encode(List.of(json("[\"" + "a".repeat(2 * THRESHOLD) + "\"]"))).getFirst();
+        Files.write(blobFiles().getFirst(), deflate(json("[\"" + "b".repeat(2 * THRESHOLD) + "\"]").toByteArray()));
+
+        assertThatThrownBy(() -> codec(64 * 1024).decode(List.of(reference)))
+                .isInstanceOf(PayloadCodecException.class)
+                .hasMessageContaining("does not match its hash");
+    }
+
+    @Test
+    void blobsNotStoredAgainWithinTheRetentionAreDeleted() throws IOException {
+        var codec = codec(64 * 1024);
+        var reused = json("[\"" + "a".repeat(2 * THRESHOLD) + "\"]");
+        var abandoned = json("[\"" + "b".repeat(2 * THRESHOLD) + "\"]");
+        var references = codec.encode(List.of(reused, abandoned));
+        clock.advance(RETENTION.minusDays(1));
+        codec.encode(List.of(reused));
+        clock.advance(Duration.ofDays(2));
+
+        assertThat(codec.evictExpired()).isEqualTo(1);
+        var reader = codec(64 * 1024);
+        assertThat(reader.decode(List.of(references.get(0)))).containsExactly(reused);
+        assertThatThrownBy(() -> reader.decode(List.of(references.get(1)))).isInstanceOf(PayloadCodecException.class);
+    }
+
+    @Test
+    void encodingSweepsOnceTheIntervalIsUp() throws IOException {
+        var codec = codec(64 * 1024);
+        codec.encode(List.of(json("[\"" + "a".repeat(2 * THRESHOLD) + "\"]")));
+        clock.advance(RETENTION.plusDays(1));
+
+        codec.encode(List.of(json("[\"" + "b".repeat(2 * THRESHOLD) + "\"]")));
+
+        assertThat(blobFiles()).hasSize(1);
+    }
+
+    private ClaimCheckPayloadCodec codec(long cacheBytes) {
+        return new ClaimCheckPayloadCodec(store, THRESHOLD, cacheBytes, RETENTION, clock);
+    }
+
+    private List<Path> blobFiles() throws IOException {
+        try (var files = Files.find(blobs, 3, (path, attributes) -> attributes.isRegularFile())) {
+            return files.toList();
+        }
+    }
+
+    private static byte[] deflate(byte[] bytes) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var deflating = new DeflaterOutputStream(out)) {
+            deflating.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static Payload json(String json) {
+        return Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("json/plain"))
+                .setData(ByteString.copyFrom(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.temporal.initiations.codec;
+
+import com.temporal.initiations.messages.domain.workflows.BatchFileResponse;
+import com.temporal.initiations.messages.domain.workflows.BatchStartFailure;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DefaultDataConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes saved and CPU spent by {@link ZstdPayloadCodec} on the payload that still grows with a file:
+ * the failure list of a batch fan-out, which names every batch when none could be started.
+ * <p>
+ * Not part of the normal build; run it with
+ * {@code mvn test -pl initiations/initiations-core -Dtest=ZstdPayloadCodecBenchmark -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ZstdPayloadCodecBenchmark {
+
+    private static final int[] BATCH_COUNTS = {200, 2_000, 20_000};
+    private static final int[] LEVELS = {1, 3, 6, 9};
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    private static long sink;
+
+    @Test
+    void batchStartFailures() {
+        System.out.printf("%8s %6s %10s %10s %7s %11s %11s%n",
+                "batches", "level", "bytes", "zstd", "saved", "encode us", "decode us");
+        for (int batchCount : BATCH_COUNTS) {
+            var payload = DefaultDataConverter.STANDARD_INSTANCE.toPayload(failedBatchStarts(batchCount)).orElseThrow();
+            for (int level : LEVELS) {
+                var codec = new ZstdPayloadCodec(4096, level);
+                var encoded = codec.encode(List.of(payload));
+                assertThat(codec.decode(encoded)).containsExactly(payload);
+
+                double encodeMicros = measure(() -> codec.encode(List.of(payload)));
+                double decodeMicros = measure(() -> codec.decode(encoded));
+                int size = payload.getSerializedSize();
+                int compressed = encoded.getFirst().getSerializedSize();
+                System.out.printf("%8d %6d %10d %10d %6.1f%% %11.1f %11.1f%n", batchCount, level, size, compressed,
+                        100.0 * (size - compressed) / size, encodeMicros, decodeMicros);
+            }
+        }
+    }
+
+    private static BatchFileResponse failedBatchStarts(int batchCount) {
+        var failures = new ArrayList<BatchStartFailure>(batchCount);
+        for (int batch = 1; batch <= batchCount; batch++) {
+            var batchId = String.format("PAIN001-20261017-000042-%06d", batch);
+            failures.add(new BatchStartFailure(batchId, "UNAVAILABLE: io exception starting " + batchId));
+        }
+        return new BatchFileResponse(batchCount, 0, 0, failures);
+    }
+
+    /**
+     * @return Mean microseconds per call, after a warmup
+     */
+    private static double measure(Supplier<List<Payload>> call) {
+        run(call, WARMUP_NANOS);
+        long started = System.nanoTime();
+        long calls = run(call, MEASURE_NANOS);
+        return (System.nanoTime() - started) / 1_000.0 / calls;
+    }
+
+    private static long run(Supplier<List<Payload>> call, long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long calls = 0;
+        while (System.nanoTime() < deadline) {
+            // using the result keeps the JIT from dropping the call
+            sink += call.get().getFirst().getSerializedSize();
+            calls++;
+        }
+        return calls;
+    }
+}
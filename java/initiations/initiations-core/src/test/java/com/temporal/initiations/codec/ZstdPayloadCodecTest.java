@@ -0,0 +1,61 @@
+package com.temporal.initiations.codec;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ZstdPayloadCodecTest {
+
+    private final ZstdPayloadCodec codec = new ZstdPayloadCodec(1024, 3);
+
+    @Test
+    void compressesLargePayloadsAndRestoresThemExactly() {
+        var payload = json("[\"" + "file-000001\",\"".repeat(500) + "\"]");
+
+        var encoded = codec.encode(List.of(payload)).getFirst();
+
+        assertThat(encoded.getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toStringUtf8()).isEqualTo(ZstdPayloadCodec.ENCODING);
+        assertThat(encoded.getSerializedSize()).isLessThan(payload.getSerializedSize() / 10);
+        assertThat(codec.decode(List.of(encoded))).containsExactly(payload);
+    }
+
+    @Test
+    void leavesPayloadsBelowTheThresholdAlone() {
+        var payload = json("{\"fileId\":\"f1\"}");
+
+        assertThat(codec.encode(List.of(payload))).containsExactly(payload);
+    }
+
+    @Test
+    void leavesPayloadsThatDoNotShrinkAlone() {
+        var random = new byte[4096];
+        new Random(7).nextBytes(random);
+        var payload = Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("binary/plain"))
+                .setData(ByteString.copyFrom(random))
+                .build();
+
+        assertThat(codec.encode(List.of(payload))).containsExactly(payload);
+    }
+
+    @Test
+    void decodesPayloadsWrittenBeforeCompressionWasEnabled() {
+        var payload = json("[\"" + "x".repeat(4096) + "\"]");
+
+        assertThat(codec.decode(List.of(payload))).containsExactly(payload);
+    }
+
+    private static Payload json(String json) {
+        return Payload.newBuilder()
+                .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8("json/plain"))
+                .setData(ByteString.copyFrom(json, StandardCharsets.UTF_8))
+                .build();
+    }
+}
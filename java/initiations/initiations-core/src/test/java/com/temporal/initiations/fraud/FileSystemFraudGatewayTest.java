@@ -0,0 +1,79 @@
+package com.temporal.initiations.fraud;
+
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSystemFraudGatewayTest {
+
+    private static final FileInfo FILE = new FileInfo("f1", "/data/incoming/f1.xml");
+
+    @TempDir
+    Path root;
+
+    @Test
+    void retriedSubmissionDoesNotSendBatchesAgain() throws IOException {
+        var gateway = new FileSystemFraudGateway(root.toString());
+
+        var first = gateway.submit(FILE, List.of("f1-000002", "f1-000001"));
+        var retry = gateway.submit(FILE, List.of("f1-000001", "f1-000002"));
+
+        assertThat(retry).containsExactlyInAnyOrderElementsOf(first);
+        assertThat(checkFiles()).hasSize(1);
+    }
+
+    @Test
+    void batchRetriedAloneIsNotSentAgain() throws IOException {
+        var gateway = new FileSystemFraudGateway(root.toString());
+        gateway.submit(FILE, List.of("f1-000001", "f1-000002"));
+
+        var retry = gateway.submit(FILE, List.of("f1-000002", "f1-000003"));
+
+        assertThat(retry).containsExactly(
+                root.resolve("inbound/f1/f1-000002.result").toString(),
+                root.resolve("inbound/f1/f1-000003.result").toString());
+        var files = checkFiles();
+        assertThat(files).hasSize(2);
+        assertThat(files.stream().map(FileSystemFraudGatewayTest::read))
+                .containsExactlyInAnyOrder(
+                        "f1-000001\t/data/incoming/f1.xml\nf1-000002\t/data/incoming/f1.xml\n",
+                        "f1-000003\t/data/incoming/f1.xml\n");
+    }
+
+    @Test
+    void checkFileWrittenBeforeAFailedRetryIsNotWrittenAgain() throws IOException {
+        var gateway = new FileSystemFraudGateway(root.toString());
+        gateway.submit(FILE, List.of("f1-000001"));
+        // as if the attempt had stopped after writing the check file
+        Files.delete(root.resolve("submitted/f1/f1-000001"));
+        var written = checkFiles().getFirst();
+        var modified = Files.getLastModifiedTime(written);
+
+        gateway.submit(FILE, List.of("f1-000001"));
+
+        assertThat(checkFiles()).containsExactly(written);
+        assertThat(Files.getLastModifiedTime(written)).isEqualTo(modified);
+    }
+
+    private List<Path> checkFiles() throws IOException {
+        try (Stream<Path> files = Files.list(root.resolve("outbound"))) {
+            return files.filter(file -> file.toString().endsWith(".gfd")).toList();
+        }
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
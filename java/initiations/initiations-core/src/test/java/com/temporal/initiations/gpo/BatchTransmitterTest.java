@@ -0,0 +1,109 @@
+package com.temporal.initiations.gpo;
+
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import com.temporal.initiations.messages.domain.workflows.TransmitBatchRequest;
+import com.temporal.initiations.pain.CanonicalFile;
+import com.temporal.initiations.pain.Pain001Fixtures;
+import com.temporal.initiations.pain.Pain001Reader;
+import com.temporal.initiations.storage.PaymentIndex;
+import com.temporal.initiations.storage.PaymentOffsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchTransmitterTest {
+
+    @TempDir
+    Path directory;
+
+    private Path canonicalDirectory;
+    private Path outbound;
+
+    /**
+     * Indexes seven payments in three batches of file f1.
+     */
+    @BeforeEach
+    void writeIndex() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", Pain001Fixtures.document(3, 4));
+        canonicalDirectory = Files.createDirectories(directory.resolve("canonical"));
+        outbound = directory.resolve("gpo").resolve("outbound");
+        var canonicalFile = canonicalDirectory.resolve("f1.xml");
+        var offsetsFile = canonicalDirectory.resolve("f1.offsets");
+        var canonical = CanonicalFile.create(canonicalFile);
+        try (var reader = Pain001Reader.open(source, canonical);
+             var offsets = PaymentOffsets.create(offsetsFile)) {
+            while (reader.hasNext()) {
+                var payment = reader.next();
+                offsets.append(reader.canonicalOffset(), reader.canonicalLength(), (int) (payment.sequence() % 3));
+            }
+        }
+        canonical.commit();
+        try (var offsets = PaymentOffsets.open(offsetsFile)) {
+            PaymentIndex.write(canonicalDirectory.resolve("f1.idx"), canonicalFile, offsets,
+                    List.of("f1-000001", "f1-000002", "f1-000003"), List.of("KEY-A", "KEY-B", "KEY-C"));
+        }
+    }
+
+    @Test
+    void batchMissingFromTheIndexFailsAloneBeforeJoiningTheGroup() throws Exception {
+        try (var transmitter = transmitter()) {
+            var first = transmitter.submit(request("f1-000001"));
+            assertThatThrownBy(() -> transmitter.submit(request("f1-000009")))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("f1-000009");
+            var second = transmitter.submit(request("f1-000002"));
+
+            var res = first.get(10, TimeUnit.SECONDS);
+            assertThat(res.getBatchCount()).isEqualTo(2);
+            assertThat(second.get(10, TimeUnit.SECONDS).getTransmissionId()).isEqualTo(res.getTransmissionId());
+        }
+    }
+
+    @Test
+    void retriedBatchResumesTheTransmissionThatClaimedItInsteadOfJoiningANewOne() throws Exception {
+        // an earlier attempt grouped two batches and was lost before completing
+        var claimed = new TransmissionClaims.Claim("f1-earlier", List.of("f1-000001", "f1-000002"));
+        try (var locked = new TransmissionClaims(canonicalDirectory).lock("f1")) {
+            locked.claim(claimed);
+        }
+        try (var transmitter = transmitter()) {
+            // the retry of one of them lands in a window with a batch that was never grouped
+            var retried = transmitter.submit(request("f1-000001"));
+            var fresh = transmitter.submit(request("f1-000003"));
+
+            var res = retried.get(10, TimeUnit.SECONDS);
+            assertThat(res.getTransmissionId()).isEqualTo("f1-earlier");
+            assertThat(res.getBatchCount()).isEqualTo(2);
+            assertThat(fresh.get(10, TimeUnit.SECONDS).getTransmissionId()).isEqualTo("f1-000003");
+
+            // the other batch of the earlier group went with it and is not sent again
+            var other = transmitter.submit(request("f1-000002")).get(10, TimeUnit.SECONDS);
+            assertThat(other.getTransmissionId()).isNull();
+            assertThat(other.getReference()).isEqualTo(res.getReference());
+        }
+        try (var files = Files.list(outbound)) {
+            assertThat(files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(".xml")))
+                    .containsExactlyInAnyOrder("f1-earlier.xml", "f1-000003.xml");
+        }
+    }
+
+    private BatchTransmitter transmitter() {
+        return new BatchTransmitter(new FileSystemGpoGateway(directory.resolve("gpo").toString()),
+                canonicalDirectory.toString(), DataSize.ofKilobytes(1), true, Duration.ofMillis(200), 10);
+    }
+
+    private static TransmitBatchRequest request(String batchId) {
+        return new TransmitBatchRequest(new FileInfo("f1", "source.xml"), batchId);
+    }
+}
@@ -0,0 +1,144 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CanonicalPain001WriterTest {
+
+    private static final String DOCUMENT = Pain001Fixtures.document(3, 0, 4);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void transformWritesTheCanonicalForm() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+
+        var result = CanonicalPain001Writer.transform(source, directory.resolve("canonical.xml"));
+
+        var canonical = Files.readString(directory.resolve("canonical.xml"));
+        assertThat(canonical).startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Document xmlns=\""
+                + Pain001Fixtures.NAMESPACE + "\"><CstmrCdtTrfInitn><GrpHdr><MsgId>MSG-1</MsgId>");
+        assertThat(canonical).contains("<Nm>Initiator &amp; Co</Nm>");
+        assertThat(canonical).contains("</PmtInf><PmtInf><PmtInfId>PMT-2</PmtInfId>");
+        assertThat(canonical).contains(Pain001Fixtures.canonicalPayment(7) + "</PmtInf></CstmrCdtTrfInitn></Document>\n");
+        assertThat(canonical).doesNotContain("<!--", "CDATA", "p:");
+        assertThat(result.sizeBytes()).isEqualTo(canonical.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(Files.exists(directory.resolve("canonical.xml.tmp"))).isFalse();
+    }
+
+    @Test
+    void readerWritesTheCanonicalFileAsItParses() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+        var expected = CanonicalPain001Writer.transform(source, directory.resolve("expected.xml"));
+        var target = directory.resolve("canonical.xml");
+
+        var canonical = CanonicalFile.create(target);
+        List<Written> written;
+        try (var reader = Pain001Reader.open(source, canonical)) {
+            written = readAll(reader);
+        }
+        var result = canonical.commit();
+
+        assertThat(result).isEqualTo(expected);
+        assertPaymentsLocated(target, written, 7);
+    }
+
+    @Test
+    void parallelReaderWritesTheSameCanonicalFile() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+        var expected = CanonicalPain001Writer.transform(source, directory.resolve("expected.xml"));
+        var target = directory.resolve("canonical.xml");
+
+        var canonical = CanonicalFile.create(target);
+        List<Written> written;
+        // chunks of two split the PmtInf blocks, so chunks and the bytes between them are both exercised
+        try (var reader = ParallelPain001Reader.open(source, canonical, 2, 2)) {
+            written = readAll(reader);
+        }
+        var result = canonical.commit();
+
+        assertThat(result).isEqualTo(expected);
+        assertPaymentsLocated(target, written, 7);
+    }
+
+    @Test
+    void resumedReadersContinueTheCanonicalFile() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+        var expected = CanonicalPain001Writer.transform(source, directory.resolve("expected.xml"));
+
+        for (boolean isParallel : new boolean[]{false, true}) {
+            var target = directory.resolve("canonical-" + isParallel + ".xml");
+            var canonical = CanonicalFile.create(target);
+            Pain001Reader.Position position;
+            long end;
+            try (var reader = Pain001Reader.open(source, canonical)) {
+                for (int i = 0; i < 4; i++) {
+                    reader.next();
+                }
+                position = reader.position();
+                end = reader.canonicalOffset() + reader.canonicalLength();
+                canonical.force();
+                // the attempt carries on past its checkpoint before it dies
+                reader.next();
+            }
+            canonical.close();
+
+            var resumed = CanonicalFile.resume(target, end);
+            try (PaymentReader reader = isParallel
+                    ? ParallelPain001Reader.resume(source, position, resumed, 2, 2)
+                    : Pain001Reader.resume(source, position, resumed)) {
+                assertThat(readAll(reader)).extracting(w -> w.payment().endToEndId())
+                        .containsExactly("E2E-5", "E2E-6", "E2E-7");
+            }
+
+            assertThat(resumed.commit()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void discardRemovesTheTemporaryAndCompleteFiles() throws IOException {
+        var target = directory.resolve("canonical.xml");
+        Files.writeString(target, "earlier");
+        var canonical = CanonicalFile.create(target);
+        canonical.write(StandardCharsets.UTF_8.encode("part"));
+        canonical.force();
+
+        canonical.discard();
+
+        assertThat(Files.exists(target)).isFalse();
+        assertThat(Files.exists(directory.resolve("canonical.xml.tmp"))).isFalse();
+    }
+
+    record Written(PaymentRecord payment, long offset, int length) {
+    }
+
+    private static List<Written> readAll(PaymentReader reader) {
+        var written = new ArrayList<Written>();
+        while (reader.hasNext()) {
+            var payment = reader.next();
+            written.add(new Written(payment, reader.canonicalOffset(), reader.canonicalLength()));
+        }
+        return written;
+    }
+
+    private static void assertPaymentsLocated(Path canonical, List<Written> written, int count) throws IOException {
+        var bytes = Files.readAllBytes(canonical);
+        assertThat(written).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            var w = written.get(i);
+            assertThat(new String(bytes, (int) w.offset(), w.length(), StandardCharsets.UTF_8))
+                    .isEqualTo(Pain001Fixtures.canonicalPayment(i + 1));
+        }
+    }
+}
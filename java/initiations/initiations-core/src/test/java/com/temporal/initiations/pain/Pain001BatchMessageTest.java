@@ -0,0 +1,119 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import com.temporal.initiations.storage.PaymentIndex;
+import com.temporal.initiations.storage.PaymentOffsets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Pain001BatchMessageTest {
+
+    @TempDir
+    Path directory;
+
+    private Path canonicalFile;
+    private Path indexFile;
+    private final List<PaymentRecord> source = new ArrayList<>();
+
+    /**
+     * Transforms seven payments in two PmtInf blocks, alternating between two batches so each
+     * batch has payments from both blocks.
+     */
+    @BeforeEach
+    void transform() throws IOException {
+        var file = Pain001Fixtures.write(directory, "source.xml", Pain001Fixtures.document(3, 0, 4));
+        canonicalFile = directory.resolve("f1.xml");
+        var offsetsFile = directory.resolve("f1.offsets");
+        indexFile = directory.resolve("f1.idx");
+        var canonical = CanonicalFile.create(canonicalFile);
+        try (var reader = Pain001Reader.open(file, canonical);
+             var offsets = PaymentOffsets.create(offsetsFile)) {
+            while (reader.hasNext()) {
+                var payment = reader.next();
+                source.add(payment);
+                offsets.append(reader.canonicalOffset(), reader.canonicalLength(), (int) (payment.sequence() % 2));
+            }
+        }
+        canonical.commit();
+        try (var offsets = PaymentOffsets.open(offsetsFile)) {
+            PaymentIndex.write(indexFile, canonicalFile, offsets, List.of("f1-000001", "f1-000002"), List.of("KEY-A", "KEY-B"));
+        }
+    }
+
+    @Test
+    void batchMessageCarriesThePaymentsOfItsSourceBatch() throws IOException {
+        try (var index = PaymentIndex.open(indexFile, canonicalFile);
+             var message = Pain001BatchMessage.open(index, index.find("f1-000002"))) {
+            var bytes = readAll(message);
+
+            assertThat(bytes).hasSize((int) message.size());
+            assertThat(message.paymentCount()).isEqualTo(3);
+            try (var reader = new Pain001Reader(new ByteArrayInputStream(bytes))) {
+                var payments = readAll(reader);
+                assertThat(reader.getGroupHeader().messageId()).isEqualTo("f1-000002");
+                assertThat(reader.getGroupHeader().numberOfTransactions()).isEqualTo(3);
+                assertThat(reader.getGroupHeader().controlSum()).isNull();
+                // sequences count from the start of the message, everything else is the source payment
+                assertThat(payments)
+                        .usingRecursiveFieldByFieldElementComparatorIgnoringFields("sequence")
+                        .containsExactly(source.get(1), source.get(3), source.get(5));
+            }
+        }
+    }
+
+    @Test
+    void messageOfSeveralBatchesMergesTheirPaymentsBackIntoFileOrder() throws IOException {
+        try (var index = PaymentIndex.open(indexFile, canonicalFile);
+             var message = Pain001BatchMessage.open(index, "MSG-2", new int[]{1, 0})) {
+            var bytes = readAll(message);
+
+            try (var reader = new Pain001Reader(new ByteArrayInputStream(bytes))) {
+                var payments = readAll(reader);
+                assertThat(reader.getGroupHeader().messageId()).isEqualTo("MSG-2");
+                assertThat(payments)
+                        .usingRecursiveFieldByFieldElementComparatorIgnoringFields("sequence")
+                        .containsExactlyElementsOf(source);
+            }
+            // each source PmtInf appears once even though both batches have payments in it
+            var text = new String(bytes, StandardCharsets.UTF_8);
+            assertThat(text.split("<PmtInf>", -1)).hasSize(3);
+        }
+    }
+
+    @Test
+    void sameBatchAlwaysReadsAsTheSameBytes() throws IOException {
+        try (var index = PaymentIndex.open(indexFile, canonicalFile);
+             var first = Pain001BatchMessage.open(index, 0);
+             var second = Pain001BatchMessage.open(index, 0)) {
+            assertThat(readAll(first)).isEqualTo(readAll(second));
+        }
+    }
+
+    private static byte[] readAll(Pain001BatchMessage message) throws IOException {
+        // a small buffer makes reads straddle the segments of the message
+        var buffer = ByteBuffer.allocate(7);
+        var out = new ByteArrayOutputStream();
+        while (message.read(buffer.clear()) > 0) {
+            out.write(buffer.array(), 0, buffer.position());
+        }
+        return out.toByteArray();
+    }
+
+    private static List<PaymentRecord> readAll(PaymentReader reader) {
+        var payments = new ArrayList<PaymentRecord>();
+        reader.forEachRemaining(payments::add);
+        return payments;
+    }
+}
@@ -0,0 +1,81 @@
+package com.temporal.initiations.pain;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Small PAIN.001 documents with the quirks real files have: a namespace prefix, comments, CDATA,
+ * indentation and several {@code PmtInf} blocks.
+ */
+public final class Pain001Fixtures {
+
+    public static final String NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:pain.001.001.03";
+
+    private Pain001Fixtures() {
+    }
+
+    /**
+     * @param paymentsPerBlock The number of transactions in each {@code PmtInf}, which may be zero.
+     * Payments are numbered from 1 across the file, and payment n is for n.00 EUR.
+     */
+    public static String document(int... paymentsPerBlock) {
+        int total = 0;
+        for (int count : paymentsPerBlock) {
+            total += count;
+        }
+        var xml = new StringBuilder("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <!-- generated for tests -->
+                <p:Document xmlns:p="%s">
+                  <p:CstmrCdtTrfInitn>
+                    <p:GrpHdr>
+                      <p:MsgId>MSG-1</p:MsgId>
+                      <p:CreDtTm>2026-10-17T09:00:00</p:CreDtTm>
+                      <p:NbOfTxs>%d</p:NbOfTxs>
+                      <p:InitgPty><p:Nm>Initiator &amp; Co</p:Nm></p:InitgPty>
+                    </p:GrpHdr>
+                """.formatted(NAMESPACE, total));
+        int payment = 0;
+        for (int block = 0; block < paymentsPerBlock.length; block++) {
+            xml.append("""
+                        <p:PmtInf>
+                          <p:PmtInfId>PMT-%d</p:PmtInfId>
+                          <p:PmtMtd>TRF</p:PmtMtd>
+                          <p:ReqdExctnDt>2026-10-%d</p:ReqdExctnDt>
+                          <p:Dbtr><p:Nm>Debtor</p:Nm></p:Dbtr>
+                          <p:DbtrAcct><p:Id><p:IBAN>DE8937040044053201300%d</p:IBAN></p:Id></p:DbtrAcct>
+                    """.formatted(block + 1, 19 + block, block));
+            for (int i = 0; i < paymentsPerBlock[block]; i++) {
+                payment++;
+                xml.append("""
+                              <p:CdtTrfTxInf>
+                                <p:PmtId><p:EndToEndId>E2E-%d</p:EndToEndId></p:PmtId>
+                                <p:Amt><p:InstdAmt Ccy="EUR">%d.00</p:InstdAmt></p:Amt>
+                                <p:Cdtr><p:Nm>Creditor %d</p:Nm></p:Cdtr>
+                                <!-- no account -->
+                                <p:RmtInf><p:Ustrd><![CDATA[invoice <%d>]]></p:Ustrd></p:RmtInf>
+                              </p:CdtTrfTxInf>
+                        """.formatted(payment, payment, payment, payment));
+            }
+            xml.append("    </p:PmtInf>\n");
+        }
+        return xml.append("  </p:CstmrCdtTrfInitn>\n</p:Document>\n").toString();
+    }
+
+    /**
+     * @return The canonical form of payment {@code n} of {@link #document}
+     */
+    public static String canonicalPayment(int n) {
+        return ("<CdtTrfTxInf><PmtId><EndToEndId>E2E-%d</EndToEndId></PmtId>"
+                + "<Amt><InstdAmt Ccy=\"EUR\">%d.00</InstdAmt></Amt><Cdtr><Nm>Creditor %d</Nm></Cdtr>"
+                + "<RmtInf><Ustrd>invoice &lt;%d&gt;</Ustrd></RmtInf></CdtTrfTxInf>").formatted(n, n, n, n);
+    }
+
+    public static Path write(Path directory, String name, String document) throws IOException {
+        var file = directory.resolve(name);
+        Files.writeString(file, document, StandardCharsets.UTF_8);
+        return file;
+    }
+}
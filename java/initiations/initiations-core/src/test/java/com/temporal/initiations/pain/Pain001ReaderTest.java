@@ -0,0 +1,186 @@
+package com.temporal.initiations.pain;
+
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Pain001ReaderTest {
+
+    private static final String DOCUMENT = Pain001Fixtures.document(3, 0, 4);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsEveryPaymentOfANamespacePrefixedFile() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+
+        List<PaymentRecord> payments;
+        try (var reader = Pain001Reader.open(source, CanonicalFile.create(directory.resolve("canonical.xml")))) {
+            payments = readAll(reader);
+            assertThat(reader.getGroupHeader().messageId()).isEqualTo("MSG-1");
+            assertThat(reader.getGroupHeader().numberOfTransactions()).isEqualTo(7);
+        }
+
+        assertThat(payments).extracting(PaymentRecord::endToEndId)
+                .containsExactly("E2E-1", "E2E-2", "E2E-3", "E2E-4", "E2E-5", "E2E-6", "E2E-7");
+        assertThat(payments).extracting(PaymentRecord::sequence).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(payments).extracting(p -> p.paymentInformation().paymentInformationId())
+                .containsExactly("PMT-1", "PMT-1", "PMT-1", "PMT-3", "PMT-3", "PMT-3", "PMT-3");
+        var payment = payments.get(4);
+        assertThat(payment.instructedAmount()).isEqualByComparingTo("5.00");
+        assertThat(payment.currency()).isEqualTo("EUR");
+        assertThat(payment.creditorName()).isEqualTo("Creditor 5");
+        assertThat(payment.remittanceInformation()).isEqualTo("invoice <5>");
+        assertThat(payment.paymentInformation().debtorAccount()).isEqualTo("DE89370400440532013002");
+    }
+
+    @Test
+    void resumesInsideAPmtInf() throws IOException {
+        assertResumesAfter(2);
+    }
+
+    @Test
+    void resumesAtTheEndOfAPmtInfBeforeAnEmptyOne() throws IOException {
+        assertResumesAfter(3);
+    }
+
+    @Test
+    void positionCarriesThePrefixedStartTagsOpenAtTheOffset() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+
+        try (var reader = Pain001Reader.open(source, CanonicalFile.create(directory.resolve("canonical.xml")))) {
+            reader.next();
+            var position = reader.position();
+
+            assertThat(position.openingTags()).isEqualTo(
+                    "<p:Document xmlns:p=\"" + Pain001Fixtures.NAMESPACE + "\"><p:CstmrCdtTrfInitn><p:PmtInf>");
+            var end = "</p:CdtTrfTxInf>";
+            assertThat(DOCUMENT.substring(0, (int) position.byteOffset())).endsWith(end);
+            assertThat(DOCUMENT.indexOf(end)).isEqualTo(position.byteOffset() - end.length());
+        }
+    }
+
+    @Test
+    void checkBoundaryOnlyAcceptsTheEndOfATransaction() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT.replaceFirst("</p:CdtTrfTxInf>", "</p:CdtTrfTxInf \n>"));
+        var text = Files.readString(source);
+        long afterPrefixed = text.indexOf("</p:CdtTrfTxInf \n>") + "</p:CdtTrfTxInf \n>".length();
+        long afterSecond = text.indexOf("</p:CdtTrfTxInf>") + "</p:CdtTrfTxInf>".length();
+
+        try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            Pain001Reader.checkBoundary(channel, afterPrefixed);
+            Pain001Reader.checkBoundary(channel, afterSecond);
+            for (long offset : new long[]{0, afterSecond - 1, afterSecond + 1, text.indexOf("</p:GrpHdr>") + "</p:GrpHdr>".length()}) {
+                assertThatThrownBy(() -> Pain001Reader.checkBoundary(channel, offset))
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
+    @Test
+    void resumeRejectsAPositionThatIsNotATransactionEnd() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+        Pain001Reader.Position position;
+        try (var reader = Pain001Reader.open(source, CanonicalFile.create(directory.resolve("canonical.xml")))) {
+            reader.next();
+            position = reader.position();
+        }
+        var shifted = new Pain001Reader.Position(position.byteOffset() - 3, position.sequence(), position.lastEndToEndId(),
+                position.groupHeader(), position.paymentInformation(), position.openingTags());
+        var canonical = CanonicalFile.create(directory.resolve("resumed.xml"));
+
+        assertThatThrownBy(() -> Pain001Reader.resume(source, shifted, canonical))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ParallelPain001Reader.resume(source, shifted, canonical, 2, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void valueWiderThanItsColumnFailsTheRead() throws IOException {
+        assertReadFails(DOCUMENT.replace("E2E-5<", "E".repeat(36) + "<"), "EndToEndId is longer than 35 characters");
+        assertReadFails(DOCUMENT.replace("Creditor 5", "C".repeat(141)), "Cdtr/Nm is longer than 140 characters");
+        assertReadFails(DOCUMENT.replace("DE89370400440532013002", "DE" + "8".repeat(33)), "DbtrAcct/Id is longer than 34 characters");
+        assertReadFails(DOCUMENT.replace(">TRF<", ">TRFER<"), "PmtMtd is longer than 4 characters");
+        assertReadFails(DOCUMENT.replace("Ccy=\"EUR\">5.00", "Ccy=\"EURO\">5.00"), "@Ccy is longer than 3 characters");
+        assertReadFails(DOCUMENT.replace(">5.00<", ">12345678901234.00<"), "InstdAmt has more than 13 integer");
+        assertReadFails(DOCUMENT.replace(">5.00<", ">5.000001<"), "InstdAmt has more than 13 integer or 5 fraction digits");
+    }
+
+    @Test
+    void valuesAsWideAsTheirColumnsAreRead() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT
+                .replace("E2E-5<", "E".repeat(35) + "<")
+                .replace("Creditor 5", "C".repeat(140))
+                .replace(">5.00<", ">1234567890123.12345<"));
+
+        try (var reader = Pain001Reader.open(source, CanonicalFile.create(directory.resolve("canonical.xml")))) {
+            var payment = readAll(reader).get(4);
+            assertThat(payment.endToEndId()).hasSize(35);
+            assertThat(payment.creditorName()).hasSize(140);
+            assertThat(payment.instructedAmount()).isEqualByComparingTo("1234567890123.12345");
+        }
+    }
+
+    /**
+     * Reads {@code document} with both readers and checks each fails on the same value.
+     */
+    private void assertReadFails(String document, String message) throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", document);
+        try (var reader = Pain001Reader.open(source, CanonicalFile.create(directory.resolve("sequential.xml")))) {
+            assertThatThrownBy(() -> readAll(reader)).isInstanceOf(Pain001ParseException.class).hasMessageContaining(message);
+        }
+        try (var reader = ParallelPain001Reader.open(source, CanonicalFile.create(directory.resolve("parallel.xml")), 2, 2)) {
+            assertThatThrownBy(() -> readAll(reader)).isInstanceOf(Pain001ParseException.class).hasMessageContaining(message);
+        }
+    }
+
+    /**
+     * Resumes after {@code read} payments with both readers, in chunks that do not line up with
+     * the position, and checks they carry on exactly where an uninterrupted read would.
+     */
+    private void assertResumesAfter(int read) throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", DOCUMENT);
+        List<PaymentRecord> all;
+        Pain001Reader.Position position;
+        try (var reader = Pain001Reader.open(source, CanonicalFile.create(directory.resolve("all.xml")))) {
+            all = readAll(reader);
+        }
+        try (var reader = Pain001Reader.open(source, CanonicalFile.create(directory.resolve("first.xml")))) {
+            for (int i = 0; i < read; i++) {
+                reader.next();
+            }
+            position = reader.position();
+        }
+        assertThat(position.sequence()).isEqualTo(read);
+        assertThat(position.lastEndToEndId()).isEqualTo("E2E-" + read);
+
+        var rest = all.subList(read, all.size());
+        try (var reader = Pain001Reader.resume(source, position, CanonicalFile.create(directory.resolve("sequential.xml")))) {
+            assertThat(readAll(reader)).containsExactlyElementsOf(rest);
+            assertThat(reader.getCount()).isEqualTo(all.size());
+        }
+        try (var reader = ParallelPain001Reader.resume(source, position,
+                CanonicalFile.create(directory.resolve("parallel.xml")), 2, 2)) {
+            assertThat(readAll(reader)).containsExactlyElementsOf(rest);
+            assertThat(reader.getCount()).isEqualTo(all.size());
+        }
+    }
+
+    private static List<PaymentRecord> readAll(PaymentReader reader) {
+        var payments = new ArrayList<PaymentRecord>();
+        reader.forEachRemaining(payments::add);
+        return payments;
+    }
+}
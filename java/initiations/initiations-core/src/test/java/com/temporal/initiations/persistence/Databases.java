@@ -0,0 +1,56 @@
+package com.temporal.initiations.persistence;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+/**
+ * Databases with the workers' schema: in-memory H2, in the PostgreSQL mode the workers run H2 in,
+ * or an existing PostgreSQL database.
+ */
+public final class Databases {
+
+    private Databases() {
+    }
+
+    public static JdbcDataSource h2(String name) throws SQLException {
+        var dataSource = new JdbcDataSource();
+        // kept open between connections until the JVM exits
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:db/payments-schema.sql'");
+        }
+        return dataSource;
+    }
+
+    public static PGSimpleDataSource postgres(String url, String user, String password) throws SQLException {
+        var dataSource = new PGSimpleDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser(user);
+        dataSource.setPassword(password);
+        // the schema only has CREATE ... IF NOT EXISTS statements, so it can run against a used database
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement()) {
+            for (var sql : schema().split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+        return dataSource;
+    }
+
+    private static String schema() {
+        try (InputStream in = Databases.class.getResourceAsStream("/db/payments-schema.sql")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replaceAll("(?m)--.*$", "");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.temporal.initiations.persistence;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileHashIndexTest {
+
+    private static final Duration RETENTION = Duration.ofDays(90);
+
+    private final MutableClock clock = new MutableClock();
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void createSchema() throws SQLException {
+        dataSource = Databases.h2("hash-" + UUID.randomUUID());
+    }
+
+    @Test
+    void reportsTheFirstFileForRepeatedContent() throws SQLException {
+        var index = new FileHashIndex(dataSource, 100, RETENTION, clock);
+
+        assertThat(index.register("sender", "hash", "f1")).isEmpty();
+        assertThat(index.register("sender", "hash", "f2")).get().extracting(FileHashIndex.Entry::fileId).isEqualTo("f1");
+        assertThat(index.register("other-sender", "hash", "f3")).isEmpty();
+    }
+
+    @Test
+    void retriedCheckOfTheSameFileIsNotADuplicate() throws SQLException {
+        var index = new FileHashIndex(dataSource, 100, RETENTION, clock);
+
+        index.register("sender", "hash", "f1");
+
+        assertThat(index.register("sender", "hash", "f1")).isEmpty();
+    }
+
+    @Test
+    void duplicateCheckedOnAnotherWorkerIsDetected() throws SQLException {
+        var first = new FileHashIndex(dataSource, 100, RETENTION, clock);
+        var second = new FileHashIndex(dataSource, 100, RETENTION, clock);
+
+        first.register("sender", "hash", "f1");
+
+        assertThat(second.find("sender", "hash")).get().extracting(FileHashIndex.Entry::fileId).isEqualTo("f1");
+        assertThat(second.register("sender", "hash", "f2")).get().extracting(FileHashIndex.Entry::fileId).isEqualTo("f1");
+    }
+
+    @Test
+    void expiredContentCanBeRegisteredAgain() throws SQLException {
+        var first = new FileHashIndex(dataSource, 100, RETENTION, clock);
+        var second = new FileHashIndex(dataSource, 100, RETENTION, clock);
+        first.register("sender", "hash", "f1");
+
+        clock.advance(RETENTION);
+
+        assertThat(first.find("sender", "hash")).isEmpty();
+        assertThat(second.register("sender", "hash", "f2")).isEmpty();
+        // the first worker's cached copy has expired, so it looks again rather than trusting it
+        assertThat(first.register("sender", "hash", "f3")).get().extracting(FileHashIndex.Entry::fileId).isEqualTo("f2");
+    }
+
+    @Test
+    void evictsEntriesOlderThanTheRetention() throws SQLException {
+        var index = new FileHashIndex(dataSource, 100, RETENTION, clock);
+        index.register("sender", "old", "f1");
+        clock.advance(RETENTION.minusDays(1));
+        index.register("sender", "new", "f2");
+        clock.advance(Duration.ofDays(2));
+
+        assertThat(index.evictExpired()).isEqualTo(1);
+        assertThat(index.find("sender", "new")).isPresent();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
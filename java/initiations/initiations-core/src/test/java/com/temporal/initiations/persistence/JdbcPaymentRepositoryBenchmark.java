@@ -0,0 +1,84 @@
+package com.temporal.initiations.persistence;
+
+import com.temporal.initiations.messages.domain.payments.PaymentInformation;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows per second {@link JdbcPaymentRepository} writes through each of its paths: batched inserts
+ * on H2 and, when a PostgreSQL database is named, batched inserts and COPY on PostgreSQL.
+ * <p>
+ * Each run writes {@code benchmarks.payments} (default 200000) payments of one file, committing a
+ * chunk every {@code benchmarks.commit-interval} (default 10000) as the transformation does, after
+ * a warmup run of the same size.
+ * <p>
+ * Not part of the normal build; run it with
+ * {@code mvn test -pl initiations/initiations-core -Dtest=JdbcPaymentRepositoryBenchmark -Dbenchmarks=true},
+ * adding {@code -Dpostgres.url=jdbc:postgresql://localhost:5432/initiations -Dpostgres.user=... -Dpostgres.password=...}
+ * for the PostgreSQL paths.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class JdbcPaymentRepositoryBenchmark {
+
+    private static final int PAYMENTS = Integer.getInteger("benchmarks.payments", 200_000);
+    private static final int COMMIT_INTERVAL = Integer.getInteger("benchmarks.commit-interval", 10_000);
+    private static final int[] BATCH_SIZES = {100, 1_000, 5_000};
+    private static final PaymentInformation BLOCK = new PaymentInformation("PMT-1", "TRF", null, null,
+            "2026-10-19", "Debtor", "DE89370400440532013000");
+
+    @Test
+    void batchedInsertsAndCopy() throws SQLException {
+        System.out.printf("%d payments, a commit every %d%n", PAYMENTS, COMMIT_INTERVAL);
+        System.out.printf("%-10s %-8s %10s %9s %11s%n", "database", "path", "batch size", "seconds", "rows/s");
+        var h2 = Databases.h2("benchmark-" + UUID.randomUUID());
+        for (int batchSize : BATCH_SIZES) {
+            run("h2", "insert", h2, batchSize, false);
+        }
+        var url = System.getProperty("postgres.url", "");
+        if (url.isEmpty()) {
+            System.out.println("postgresql skipped, set postgres.url to include it");
+            return;
+        }
+        var postgres = Databases.postgres(url,
+                System.getProperty("postgres.user", "postgres"), System.getProperty("postgres.password", ""));
+        for (int batchSize : BATCH_SIZES) {
+            run("postgresql", "insert", postgres, batchSize, false);
+        }
+        run("postgresql", "copy", postgres, 0, true);
+    }
+
+    private static void run(String database, String path, DataSource dataSource, int batchSize, boolean isCopyEnabled)
+            throws SQLException {
+        var repository = new JdbcPaymentRepository(dataSource, batchSize, isCopyEnabled);
+        write(repository, "warmup-" + UUID.randomUUID());
+        var fileId = "benchmark-" + UUID.randomUUID();
+        long started = System.nanoTime();
+        write(repository, fileId);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        assertThat(repository.isCommitted(fileId)).isTrue();
+        System.out.printf("%-10s %-8s %10s %9.2f %11.0f%n", database, path, isCopyEnabled ? "-" : batchSize,
+                seconds, PAYMENTS / seconds);
+    }
+
+    private static void write(JdbcPaymentRepository repository, String fileId) throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            for (int i = 0; i < PAYMENTS; i++) {
+                writer.write(fileId + "-000001", new PaymentRecord(BLOCK, i, "E2E-" + i, BigDecimal.valueOf(i, 2),
+                        "EUR", "Creditor " + i, "DE44500105175407324931", "invoice " + i));
+                if ((i + 1) % COMMIT_INTERVAL == 0) {
+                    writer.checkpoint(i + 1, List.of());
+                }
+            }
+            writer.commit(PAYMENTS, List.of());
+        }
+    }
+}
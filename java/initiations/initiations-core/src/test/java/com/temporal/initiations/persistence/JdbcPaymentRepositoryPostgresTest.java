@@ -0,0 +1,33 @@
+package com.temporal.initiations.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The repository tests against a real PostgreSQL, where payments are streamed with COPY.
+ * <p>
+ * Needs a database to create the schema in, so only runs when one is named:
+ * {@code mvn test -Dpostgres.url=jdbc:postgresql://localhost:5432/initiations -Dpostgres.user=... -Dpostgres.password=...}
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+class JdbcPaymentRepositoryPostgresTest extends JdbcPaymentRepositoryTest {
+
+    @Override
+    protected DataSource dataSource() throws SQLException {
+        return Databases.postgres(System.getProperty("postgres.url"),
+                System.getProperty("postgres.user", "postgres"), System.getProperty("postgres.password", ""));
+    }
+
+    @Test
+    void takesTheCopyPath() throws SQLException {
+        try (var connection = dataSource.getConnection()) {
+            assertThat(connection.isWrapperFor(PGConnection.class)).isTrue();
+        }
+    }
+}
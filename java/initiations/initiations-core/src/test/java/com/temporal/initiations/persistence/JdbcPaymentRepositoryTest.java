@@ -0,0 +1,258 @@
+package com.temporal.initiations.persistence;
+
+import com.temporal.initiations.messages.domain.payments.PaymentInformation;
+import com.temporal.initiations.messages.domain.payments.PaymentRecord;
+import com.temporal.initiations.messages.domain.workflows.BatchSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against embedded H2, which takes the batched INSERT path. {@link JdbcPaymentRepositoryPostgresTest}
+ * runs the same tests against PostgreSQL, where rows go through COPY.
+ */
+class JdbcPaymentRepositoryTest {
+
+    private static final PaymentInformation HEADER =
+            new PaymentInformation("PMT-1", "TRF", null, null, "2026-10-19", "Debtor", "DE89370400440532013000");
+
+    record Row(long sequence, String batchId, String endToEndId, BigDecimal amount, String remittance) {
+    }
+
+    protected DataSource dataSource;
+    protected JdbcPaymentRepository repository;
+    protected String fileId;
+
+    @BeforeEach
+    void createRepository() throws SQLException {
+        dataSource = dataSource();
+        // a batch size that does not divide the payment counts below, so partial batches are flushed too
+        repository = new JdbcPaymentRepository(dataSource, 3, true);
+        fileId = "file-" + UUID.randomUUID();
+    }
+
+    protected DataSource dataSource() throws SQLException {
+        return Databases.h2("payments-" + UUID.randomUUID());
+    }
+
+    @Test
+    void writesAndCommitsPaymentsInBatches() throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 10);
+            writer.commit(10, List.of(batch(0, "B1", 10)));
+        }
+
+        assertThat(repository.isCommitted(fileId)).isTrue();
+        assertThat(rows(fileId)).extracting(Row::sequence).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L);
+        var row = rows(fileId).get(7);
+        assertThat(row.batchId()).isEqualTo("B1");
+        assertThat(row.endToEndId()).isEqualTo("E2E-7");
+        assertThat(row.amount()).isEqualByComparingTo("107.25");
+        assertThat(row.remittance()).isNull();
+    }
+
+    @Test
+    void checkpointedPaymentsSurviveAWriterClosedWithoutCommit() throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 5);
+            writer.checkpoint(5, List.of());
+            write(writer, "B1", 5, 8);
+        }
+
+        assertThat(repository.isCommitted(fileId)).isFalse();
+        assertThat(rows(fileId)).extracting(Row::sequence).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void resumeReplacesPaymentsFromTheResumedSequence() throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 10);
+            writer.checkpoint(10, List.of());
+        }
+
+        // rows 6 to 9 are written again, which only succeeds once the earlier ones are gone
+        try (var writer = repository.open(fileId, 6)) {
+            write(writer, "B2", 6, 10);
+            writer.commit(10, List.of(batch(0, "B1", 6), batch(1, "B2", 4)));
+        }
+
+        assertThat(repository.isCommitted(fileId)).isTrue();
+        assertThat(rows(fileId)).extracting(Row::batchId)
+                .containsExactly("B1", "B1", "B1", "B1", "B1", "B1", "B2", "B2", "B2", "B2");
+    }
+
+    @Test
+    void resumingACommittedFileRemovesItsCommitMarker() throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 4);
+            writer.commit(4, List.of(batch(0, "B1", 4)));
+        }
+
+        try (var writer = repository.open(fileId, 2)) {
+            writer.checkpoint(2, List.of());
+        }
+
+        assertThat(repository.isCommitted(fileId)).isFalse();
+        assertThat(rows(fileId)).extracting(Row::sequence).containsExactly(0L, 1L);
+    }
+
+    @Test
+    void discardRemovesEveryPaymentOfTheFileOnly() throws SQLException {
+        var otherFileId = fileId + "-other";
+        try (var writer = repository.open(otherFileId)) {
+            write(writer, "B1", 0, 2);
+            writer.commit(2, List.of(batch(0, "B1", 2)));
+        }
+
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 5);
+            writer.checkpoint(5, List.of(batch(0, "B1", 5)));
+            write(writer, "B1", 5, 7);
+            writer.discard();
+        }
+
+        assertThat(rows(fileId)).isEmpty();
+        assertThat(repository.findBatches(fileId)).isEmpty();
+        assertThat(repository.isCommitted(fileId)).isFalse();
+        assertThat(rows(otherFileId)).hasSize(2);
+        assertThat(repository.isCommitted(otherFileId)).isTrue();
+    }
+
+    @Test
+    void storesValuesThatNeedEscapingUnchanged() throws SQLException {
+        var remittance = "tab\there\nnew line\r\\back\\slash \\N café";
+        try (var writer = repository.open(fileId)) {
+            writer.write("B1", new PaymentRecord(HEADER, 0, "E2E\t0", new BigDecimal("0.01"), "EUR",
+                    "Ünïcödé \"Name\"", "GB29NWBK60161331926819", remittance));
+            writer.commit(1, List.of(batch(0, "B1", 1)));
+        }
+
+        var row = rows(fileId).get(0);
+        assertThat(row.endToEndId()).isEqualTo("E2E\t0");
+        assertThat(row.remittance()).isEqualTo(remittance);
+    }
+
+    @Test
+    void acceptsTheLongestFileIdTheApiAllows() throws SQLException {
+        var longFileId = (fileId + "x".repeat(128)).substring(0, 128);
+        var batchId = String.format("%s-%06d", longFileId, 1);
+        try (var writer = repository.open(longFileId)) {
+            write(writer, batchId, 0, 2);
+            writer.commit(2, List.of(batch(0, batchId, 2)));
+        }
+
+        assertThat(repository.isCommitted(longFileId)).isTrue();
+        assertThat(rows(longFileId)).extracting(Row::batchId).containsOnly(batchId);
+    }
+
+    @Test
+    void storesTheBatchesOfEachChunkWithIt() throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 4);
+            writer.checkpoint(4, List.of(batch(0, "B1", 4)));
+            write(writer, "B2", 4, 6);
+            writer.checkpoint(6, List.of(batch(1, "B2", 2)));
+            write(writer, "B1", 6, 7);
+            writer.checkpoint(7, List.of(batch(0, "B1", 5)));
+        }
+
+        assertThat(repository.findBatches(fileId, 4)).extracting(b -> b.totals().getPaymentCount()).containsExactly(4L);
+        assertThat(repository.findBatches(fileId, 6)).extracting(b -> b.totals().getPaymentCount()).containsExactly(4L, 2L);
+        var batches = repository.findBatches(fileId, 7);
+        assertThat(batches).extracting(b -> b.totals().getPaymentCount()).containsExactly(5L, 2L);
+        assertThat(batches).extracting(b -> b.totals().getBatchId()).containsExactly("B1", "B2");
+        var exemplar = batches.get(1).exemplar();
+        assertThat(exemplar.currency()).isEqualTo("EUR");
+        assertThat(exemplar.paymentInformation().paymentMethod()).isEqualTo("TRF");
+        assertThat(exemplar.paymentInformation().debtorAccount()).isEqualTo(HEADER.debtorAccount());
+        assertThat(exemplar.paymentInformation().requestedExecutionDate()).isEqualTo(HEADER.requestedExecutionDate());
+        assertThat(exemplar.instructedAmount()).isEqualByComparingTo("101.25");
+    }
+
+    @Test
+    void resumeDropsBatchTotalsOfLaterChunks() throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 4);
+            writer.checkpoint(4, List.of(batch(0, "B1", 4)));
+            write(writer, "B1", 4, 8);
+            writer.checkpoint(8, List.of(batch(0, "B1", 8)));
+        }
+
+        // the retry only knows about the first chunk, as the heartbeat of the second was lost
+        try (var writer = repository.open(fileId, 4)) {
+            writer.checkpoint(4, List.of());
+        }
+
+        assertThat(repository.findBatches(fileId)).extracting(b -> b.totals().getPaymentCount()).containsExactly(4L);
+    }
+
+    @Test
+    void commitReplacesCheckpointedBatchesWithTheFinalOnes() throws SQLException {
+        try (var writer = repository.open(fileId)) {
+            write(writer, "B1", 0, 4);
+            writer.checkpoint(4, List.of(batch(0, "B1", 4)));
+            write(writer, "B2", 4, 6);
+            // a checkpoint on the last payment leaves rows as of the final count too
+            writer.checkpoint(6, List.of(batch(1, "B2", 2)));
+            writer.commit(6, List.of(batch(0, "B1", 4), batch(1, "B2", 2)));
+        }
+
+        try (var connection = dataSource.getConnection();
+             var count = connection.prepareStatement("SELECT COUNT(*) FROM transformed_batch WHERE file_id = ?")) {
+            count.setString(1, fileId);
+            try (var result = count.executeQuery()) {
+                result.next();
+                assertThat(result.getLong(1)).isEqualTo(2);
+            }
+        }
+        assertThat(repository.findBatches(fileId)).extracting(b -> b.totals().getBatchId()).containsExactly("B1", "B2");
+    }
+
+    /**
+     * @return A batch holding {@code paymentCount} payments from {@link #write}, for the totals only
+     */
+    private static TransformedBatch batch(int ordinal, String batchId, long paymentCount) {
+        var totals = new BatchSummary();
+        totals.setBatchId(batchId);
+        totals.setBatchKey("TRF|" + HEADER.debtorAccount() + "|" + HEADER.requestedExecutionDate() + "|EUR");
+        totals.setPaymentCount(paymentCount);
+        totals.setControlSum(new BigDecimal("100.25").multiply(BigDecimal.valueOf(paymentCount)));
+        totals.setMinExecutionDate(HEADER.requestedExecutionDate());
+        totals.setMaxExecutionDate(HEADER.requestedExecutionDate());
+        var exemplar = new PaymentRecord(HEADER, ordinal, "E2E-" + ordinal,
+                new BigDecimal("100.25").add(BigDecimal.valueOf(ordinal)), "EUR", null, null, null);
+        return new TransformedBatch(ordinal, totals, exemplar);
+    }
+
+    private static void write(PaymentWriter writer, String batchId, int from, int to) throws SQLException {
+        for (int sequence = from; sequence < to; sequence++) {
+            writer.write(batchId, new PaymentRecord(HEADER, sequence, "E2E-" + sequence,
+                    new BigDecimal("100.25").add(BigDecimal.valueOf(sequence)), "EUR",
+                    "Creditor " + sequence, "GB29NWBK60161331926819", null));
+        }
+    }
+
+    private List<Row> rows(String fileId) throws SQLException {
+        try (var connection = dataSource.getConnection();
+             var select = connection.prepareStatement("SELECT sequence, batch_id, end_to_end_id, instructed_amount, "
+                     + "remittance_information FROM payment WHERE file_id = ? ORDER BY sequence")) {
+            select.setString(1, fileId);
+            var rows = new ArrayList<Row>();
+            try (var result = select.executeQuery()) {
+                while (result.next()) {
+                    rows.add(new Row(result.getLong(1), result.getString(2), result.getString(3),
+                            result.getBigDecimal(4), result.getString(5)));
+                }
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.temporal.initiations.storage;
+
+import com.temporal.initiations.pain.CanonicalFile;
+import com.temporal.initiations.pain.Pain001Fixtures;
+import com.temporal.initiations.pain.Pain001Reader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private Path canonicalFile;
+    private Path indexFile;
+
+    /**
+     * Indexes seven payments in two PmtInf blocks, alternating between two batches so each batch
+     * has payments from both blocks.
+     */
+    @BeforeEach
+    void writeIndex() throws IOException {
+        var source = Pain001Fixtures.write(directory, "source.xml", Pain001Fixtures.document(3, 0, 4));
+        canonicalFile = directory.resolve("f1.xml");
+        var offsetsFile = directory.resolve("f1.offsets");
+        indexFile = directory.resolve("f1.idx");
+        var canonical = CanonicalFile.create(canonicalFile);
+        try (var reader = Pain001Reader.open(source, canonical);
+             var offsets = PaymentOffsets.create(offsetsFile)) {
+            while (reader.hasNext()) {
+                var payment = reader.next();
+                offsets.append(reader.canonicalOffset(), reader.canonicalLength(), (int) (payment.sequence() % 2));
+            }
+        }
+        canonical.commit();
+        try (var offsets = PaymentOffsets.open(offsetsFile)) {
+            PaymentIndex.write(indexFile, canonicalFile, offsets, List.of("f1-000001", "f1-000002"), List.of("KEY-A", "KEY-B"));
+        }
+    }
+
+    @Test
+    void findsEachBatchWithItsPaymentsInFileOrder() throws IOException {
+        try (var index = PaymentIndex.open(indexFile, canonicalFile)) {
+            assertThat(index.batchCount()).isEqualTo(2);
+            int batch = index.find("f1-000002");
+            assertThat(batch).isEqualTo(1);
+            assertThat(index.findByKey("KEY-B")).isEqualTo(batch);
+            assertThat(index.batchKey(batch)).isEqualTo("KEY-B");
+            assertThat(index.paymentCount(batch)).isEqualTo(3);
+            assertThat(utf8(index.payment(batch, 0))).isEqualTo(Pain001Fixtures.canonicalPayment(2));
+            assertThat(utf8(index.payment(batch, 2))).isEqualTo(Pain001Fixtures.canonicalPayment(6));
+            assertThat(index.paymentInformation(batch, 0)).isZero();
+            assertThat(index.paymentInformation(batch, 1)).isEqualTo(1);
+            assertThat(utf8(index.paymentInformationHeader(1))).startsWith("<PmtInf><PmtInfId>PMT-3</PmtInfId>");
+            assertThat(utf8(index.groupHeader())).startsWith("<GrpHdr><MsgId>MSG-1</MsgId>").endsWith("</GrpHdr>");
+        }
+    }
+
+    @Test
+    void missingBatchIsNotFoundAndCannotBeRead() throws IOException {
+        try (var index = PaymentIndex.open(indexFile, canonicalFile)) {
+            assertThat(index.find("f1-000003")).isEqualTo(-1);
+            assertThat(index.find("f2-000001")).isEqualTo(-1);
+            assertThat(index.findByKey("KEY-C")).isEqualTo(-1);
+
+            int missing = index.find("f1-000003");
+            assertThatThrownBy(() -> index.paymentCount(missing)).isInstanceOf(IndexOutOfBoundsException.class);
+            assertThatThrownBy(() -> index.batchId(missing)).isInstanceOf(IndexOutOfBoundsException.class);
+            assertThatThrownBy(() -> index.payment(missing, 0)).isInstanceOf(IndexOutOfBoundsException.class);
+            assertThatThrownBy(() -> index.payment(index.batchCount(), 0)).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    private static String utf8(ByteBuffer bytes) {
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+}
@@ -0,0 +1,126 @@
+package com.temporal.initiations.workflows.files;
+
+import com.temporal.initiations.messages.domain.workflows.*;
+import com.temporal.initiations.workflows.files.activities.FraudActivities;
+import com.temporal.initiations.workflows.files.activities.TransmissionActivities;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.testing.WorkflowReplayer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class BatchImplTest {
+
+    private static final String TASK_QUEUE = "batches";
+    private static final String BATCH_ID = "f1-000001";
+
+    private TestWorkflowEnvironment environment;
+    private FraudActivities fraud;
+    private TransmissionActivities transmission;
+
+    @BeforeEach
+    void startEnvironment() {
+        environment = TestWorkflowEnvironment.newInstance();
+        var worker = environment.newWorker(TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(BatchImpl.class);
+        fraud = mock(FraudActivities.class, withSettings().withoutAnnotations());
+        transmission = mock(TransmissionActivities.class, withSettings().withoutAnnotations());
+        var started = new StartFraudCheckResponse();
+        started.setFraudCheckFilePath("/gfd/inbound/f1/" + BATCH_ID + ".result");
+        when(fraud.startFraudCheck(any())).thenReturn(started);
+        when(fraud.completeFraudCheck(any())).thenReturn(new CompleteFraudCheckResponse(BATCH_ID, false, null));
+        when(transmission.transmitBatch(any())).thenReturn(new TransmitBatchResponse());
+        worker.registerActivitiesImplementations(fraud, transmission);
+        environment.start();
+    }
+
+    @AfterEach
+    void stopEnvironment() {
+        environment.close();
+    }
+
+    @Test
+    void batchThatPassesTheFraudCheckIsTransmittedOnceApproved() {
+        var batch = start();
+
+        batch.fraudCheckCompleted(new CompleteFraudCheckResponse(BATCH_ID, true, CompleteFraudCheckResponse.PASSED));
+        batch.approveBatch(new ApproveBatchRequest(BATCH_ID));
+        WorkflowStub.fromTyped(batch).getResult(Void.class);
+
+        verify(transmission).transmitBatch(any());
+        assertThat(batch.getState().getRejection()).isNull();
+        assertThat(batch.getState().getTransmission()).isNotNull();
+    }
+
+    @Test
+    void batchThatFailsTheFraudCheckEndsRejectedWithoutTransmitting() {
+        var batch = start();
+
+        batch.fraudCheckCompleted(new CompleteFraudCheckResponse(BATCH_ID, true, "FAIL"));
+        // an approval that arrives anyway must not send it
+        batch.approveBatch(new ApproveBatchRequest(BATCH_ID));
+        WorkflowStub.fromTyped(batch).getResult(Void.class);
+
+        verify(transmission, never()).transmitBatch(any());
+        var state = batch.getState();
+        assertThat(state.getRejection()).isEqualTo(Errors.FRAUD_CHECK_FAILED);
+        assertThat(state.getRejectionMessage()).contains(BATCH_ID, "FAIL");
+        assertThat(state.getTransmission()).isNull();
+    }
+
+    @Test
+    void batchWithoutAVerdictIsNotTransmitted() {
+        var batch = start();
+
+        batch.fraudCheckCompleted(new CompleteFraudCheckResponse(BATCH_ID, true, null));
+        WorkflowStub.fromTyped(batch).getResult(Void.class);
+
+        verify(transmission, never()).transmitBatch(any());
+        assertThat(batch.getState().getRejection()).isEqualTo(Errors.FRAUD_CHECK_FAILED);
+    }
+
+    @Test
+    void failedPollsDoNotFailTheBatch() throws Exception {
+        // two whole polls of three attempts each fail, as during a GFD outage, before one finds the verdict
+        when(fraud.completeFraudCheck(any()))
+                .thenThrow(new IllegalStateException("GFD unreachable"))
+                .thenThrow(new IllegalStateException("GFD unreachable"))
+                .thenThrow(new IllegalStateException("GFD unreachable"))
+                .thenThrow(new IllegalStateException("GFD unreachable"))
+                .thenThrow(new IllegalStateException("GFD unreachable"))
+                .thenThrow(new IllegalStateException("GFD unreachable"))
+                .thenReturn(new CompleteFraudCheckResponse(BATCH_ID, true, CompleteFraudCheckResponse.PASSED));
+        var batch = start();
+
+        batch.approveBatch(new ApproveBatchRequest(BATCH_ID));
+        WorkflowStub.fromTyped(batch).getResult(Void.class);
+
+        verify(fraud, times(7)).completeFraudCheck(any());
+        verify(transmission).transmitBatch(any());
+        assertThat(batch.getState().getRejection()).isNull();
+        // the failed polls and the version marker guarding their handling replay the same way
+        WorkflowReplayer.replayWorkflowExecution(environment.getWorkflowClient().fetchHistory(BATCH_ID), BatchImpl.class);
+    }
+
+    private Batch start() {
+        var batch = environment.getWorkflowClient().newWorkflowStub(Batch.class,
+                WorkflowOptions.newBuilder().setWorkflowId(BATCH_ID).setTaskQueue(TASK_QUEUE).build());
+        WorkflowClient.start(batch::execute,
+                new ProcessBatchRequest(Instant.EPOCH, BATCH_ID, new FileInfo("f1", "/data/incoming/f1.xml"), null, null));
+        return batch;
+    }
+}
@@ -0,0 +1,142 @@
+package com.temporal.initiations.workflows.files;
+
+import com.temporal.initiations.messages.domain.workflows.*;
+import com.temporal.initiations.workflows.files.activities.EntitlementActivities;
+import com.temporal.initiations.workflows.files.activities.FileCheckActivities;
+import com.temporal.initiations.workflows.files.activities.InitiateFileActivities;
+import com.temporal.initiations.workflows.files.activities.PaymentStatusReportActivities;
+import com.temporal.initiations.workflows.files.activities.PreferencesActivities;
+import com.temporal.initiations.workflows.files.activities.ProcessingActivities;
+import com.temporal.initiations.workflows.files.activities.TransformationActivities;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.TestWorkflowEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class FileImplTest {
+
+    private static final String TASK_QUEUE = "initiations";
+    private static final String FILE_ID = "f1";
+
+    private TestWorkflowEnvironment environment;
+    private TransformationActivities transformations;
+    private ProcessingActivities processing;
+
+    @BeforeEach
+    void startEnvironment() {
+        environment = TestWorkflowEnvironment.newInstance();
+        var worker = environment.newWorker(TASK_QUEUE);
+        worker.registerWorkflowImplementationTypes(FileImpl.class, BatchStarterImpl.class);
+
+        var initiations = mock(InitiateFileActivities.class, withSettings().withoutAnnotations());
+        var entitlements = mock(EntitlementActivities.class, withSettings().withoutAnnotations());
+        var files = mock(FileCheckActivities.class, withSettings().withoutAnnotations());
+        var preferences = mock(PreferencesActivities.class, withSettings().withoutAnnotations());
+        var psr = mock(PaymentStatusReportActivities.class, withSettings().withoutAnnotations());
+        transformations = mock(TransformationActivities.class, withSettings().withoutAnnotations());
+        processing = mock(ProcessingActivities.class, withSettings().withoutAnnotations());
+        when(initiations.getOptions(any())).thenAnswer(invocation -> {
+            GetInitiateFileExecutionOptionsRequest request = invocation.getArgument(0);
+            var options = new GetInitiateFileExecutionOptionsResponse();
+            options.setOptions(request.getOptions());
+            return options;
+        });
+        when(entitlements.verifyEntitlements(any())).thenReturn(new VerifyEntitlementsResponse());
+        var check = new FileCheckResponse();
+        check.setTransactionCount(7);
+        check.setContentHash("hash");
+        when(files.checkFile(any())).thenReturn(check);
+        when(preferences.getCustomerPreferences(any())).thenReturn(new GetCustomerPreferencesResponse());
+        worker.registerActivitiesImplementations(initiations, entitlements, files, preferences, psr, transformations, processing);
+        environment.start();
+    }
+
+    @AfterEach
+    void stopEnvironment() {
+        environment.close();
+    }
+
+    @Test
+    void rejectedTransformationEndsTheFileRejectedWithoutBatches() {
+        var rejected = new PersistTransformedFileResponse();
+        rejected.setRejection(Errors.INVALID_PAYMENT_COUNT);
+        rejected.setRejectionMessage("Payment count exceeds allowed count of 5");
+        when(transformations.persistTransformedFile(any())).thenReturn(rejected);
+
+        var file = start();
+        WorkflowStub.fromTyped(file).getResult(Void.class);
+
+        verify(processing, never()).batchFile(any());
+        var status = file.getStatus();
+        assertThat(status.getFileId()).isEqualTo(FILE_ID);
+        assertThat(status.getPhase()).isEqualTo(FilePhase.REJECTED);
+        assertThat(status.getTransactionCount()).isEqualTo(7);
+        assertThat(status.getBatchCount()).isZero();
+        assertThat(status.getBatchesStarted()).isZero();
+        assertThat(status.getErrorCount()).isEqualTo(1);
+        assertThat(status.getErrors()).containsExactly("Payment count exceeds allowed count of 5");
+    }
+
+    @Test
+    void largeFileIsPagedToBatchStartersAsRangesOfBatches() {
+        var transformed = new PersistTransformedFileResponse();
+        transformed.setBatchCount(5);
+        transformed.setPaymentCount(9);
+        when(transformations.persistTransformedFile(any())).thenReturn(transformed);
+        when(processing.batchFile(any())).thenAnswer(invocation -> {
+            BatchFileRequest request = invocation.getArgument(0);
+            int count = request.getToBatch() - request.getFromBatch();
+            return new BatchFileResponse(count, count, 0, new ArrayList<>());
+        });
+        var options = executionOptions();
+        options.setBatchStarterPageSize(2);
+
+        var file = start(options);
+        WorkflowStub.fromTyped(file).getResult(Void.class);
+
+        var requests = ArgumentCaptor.forClass(BatchFileRequest.class);
+        verify(processing, times(3)).batchFile(requests.capture());
+        assertThat(requests.getAllValues()).extracting(BatchFileRequest::getFromBatch, BatchFileRequest::getToBatch)
+                .containsExactlyInAnyOrder(tuple(0, 2), tuple(2, 4), tuple(4, 5));
+        var status = file.getStatus();
+        assertThat(status.getBatchCount()).isEqualTo(5);
+        assertThat(status.getBatchesStarted()).isEqualTo(5);
+        assertThat(status.getPaymentCount()).isEqualTo(9);
+    }
+
+    private static InitiateFileRequestExecutionOptions executionOptions() {
+        var options = new InitiateFileRequestExecutionOptions();
+        options.setTtlSeconds(3600);
+        options.setMaxBatchCount(100);
+        return options;
+    }
+
+    private File start() {
+        return start(executionOptions());
+    }
+
+    private File start(InitiateFileRequestExecutionOptions options) {
+        var file = environment.getWorkflowClient().newWorkflowStub(File.class,
+                WorkflowOptions.newBuilder().setWorkflowId(FILE_ID).setTaskQueue(TASK_QUEUE).build());
+        WorkflowClient.start(file::execute,
+                new InitiateFileRequest(Instant.EPOCH, new FileInfo(FILE_ID, "/data/incoming/f1.xml"), "s1", options));
+        return file;
+    }
+}
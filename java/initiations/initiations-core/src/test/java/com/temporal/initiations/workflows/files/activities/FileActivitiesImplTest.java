@@ -0,0 +1,355 @@
+package com.temporal.initiations.workflows.files.activities;
+
+import com.temporal.initiations.messages.domain.workflows.ApproveBatchesRequest;
+import com.temporal.initiations.messages.domain.workflows.BatchApprovalOutcome;
+import com.temporal.initiations.messages.domain.workflows.BatchFileRequest;
+import com.temporal.initiations.messages.domain.workflows.BatchStartFailure;
+import com.temporal.initiations.messages.domain.workflows.Errors;
+import com.temporal.initiations.messages.domain.workflows.FileCheckRequest;
+import com.temporal.initiations.messages.domain.workflows.FileInfo;
+import com.temporal.initiations.messages.domain.workflows.PersistTransformedFileRequest;
+import com.temporal.initiations.pain.Pain001Fixtures;
+import com.temporal.initiations.persistence.Databases;
+import com.temporal.initiations.persistence.FileHashIndex;
+import com.temporal.initiations.persistence.JdbcPaymentRepository;
+import io.temporal.activity.ActivityOptions;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.RetryOptions;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import io.temporal.failure.ActivityFailure;
+import io.temporal.failure.ApplicationFailure;
+import io.temporal.testing.TestActivityEnvironment;
+import io.temporal.testing.TestEnvironmentOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileActivitiesImplTest {
+
+    private static final String SENDER = "sender";
+    private static final ActivityOptions OPTIONS = ActivityOptions.newBuilder()
+            .setStartToCloseTimeout(Duration.ofMinutes(1))
+            .setRetryOptions(RetryOptions.newBuilder().setMaximumAttempts(1).build())
+            .build();
+
+    @TempDir
+    Path directory;
+
+    private Path canonicalDirectory;
+    private DataSource dataSource;
+    private JdbcPaymentRepository payments;
+    private final Batches batches = new Batches();
+    private TestActivityEnvironment environment;
+    private FileCheckActivities checks;
+    private TransformationActivities transformations;
+    private ProcessingActivities processing;
+
+    /**
+     * Stands in for the Batch workflows behind the activities' workflow client: every start takes a
+     * little while, so calls overlap, and the batches in {@code failing} can be neither started nor signalled.
+     */
+    private static final class Batches extends WorkflowClientInterceptorBase {
+        final Set<String> failing = ConcurrentHashMap.newKeySet();
+        final List<String> started = Collections.synchronizedList(new ArrayList<>());
+        final List<String> signalled = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        int maxInFlight() {
+            return maxInFlight.get();
+        }
+
+        @Override
+        public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(WorkflowClientCallsInterceptor next) {
+            return new WorkflowClientCallsInterceptorBase(next) {
+                @Override
+                public WorkflowStartOutput start(WorkflowStartInput input) {
+                    var batchId = input.getWorkflowId();
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        if (failing.contains(batchId)) {
+                            throw new IllegalStateException("Unable to start " + batchId);
+                        }
+                        started.add(batchId);
+                        return new WorkflowStartOutput(WorkflowExecution.newBuilder().setWorkflowId(batchId).build());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                }
+
+                @Override
+                public WorkflowSignalOutput signal(WorkflowSignalInput input) {
+                    var batchId = input.getWorkflowExecution().getWorkflowId();
+                    if (failing.contains(batchId)) {
+                        throw new IllegalStateException("Unable to signal " + batchId);
+                    }
+                    signalled.add(batchId);
+                    return new WorkflowSignalOutput();
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void startEnvironment() throws SQLException {
+        dataSource = Databases.h2("activities-" + UUID.randomUUID());
+        payments = new JdbcPaymentRepository(dataSource, 100, true);
+        canonicalDirectory = directory.resolve("canonical");
+        var activities = new FileActivitiesImpl(new FileHashIndex(dataSource, 100, Duration.ofDays(90)),
+                payments, 4, 4, 2, 1, 16, canonicalDirectory.toString());
+        environment = TestActivityEnvironment.newInstance(TestEnvironmentOptions.newBuilder()
+                .setWorkflowClientOptions(WorkflowClientOptions.newBuilder().setInterceptors(batches).build())
+                .build());
+        environment.registerActivitiesImplementations(activities);
+        checks = environment.newActivityStub(FileCheckActivities.class, OPTIONS);
+        transformations = environment.newActivityStub(TransformationActivities.class, OPTIONS);
+        processing = environment.newActivityStub(ProcessingActivities.class, OPTIONS);
+    }
+
+    @AfterEach
+    void stopEnvironment() {
+        environment.close();
+    }
+
+    @Test
+    void fileCheckDoesNotClaimTheContentOfAFileThatMayStillBeRejected() throws IOException {
+        var file = file("f1.xml", Pain001Fixtures.document(2, 1));
+
+        var first = checks.checkFile(new FileCheckRequest(new FileInfo("f1", file.toString()), SENDER));
+        // e.g. f1 was turned away by the entitlements check, and its sender fixed that and sent it again
+        var resend = checks.checkFile(new FileCheckRequest(new FileInfo("f2", file.toString()), SENDER));
+
+        assertThat(first.isFailed()).isFalse();
+        assertThat(resend.isFailed()).isFalse();
+        assertThat(resend.isDuplicate()).isFalse();
+        assertThat(resend.getContentHash()).isEqualTo(first.getContentHash());
+    }
+
+    @Test
+    void transformedFileClaimsItsContentForLaterChecks() throws Exception {
+        var file = file("f1.xml", Pain001Fixtures.document(2, 1));
+        var check = checks.checkFile(new FileCheckRequest(new FileInfo("f1", file.toString()), SENDER));
+
+        var transformed = transformations.persistTransformedFile(persist("f1", file, check.getContentHash()));
+        var resend = checks.checkFile(new FileCheckRequest(new FileInfo("f2", file.toString()), SENDER));
+
+        assertThat(transformed.getRejection()).isNull();
+        assertThat(resend.isDuplicate()).isTrue();
+        assertThat(resend.getDuplicateOfFileId()).isEqualTo("f1");
+    }
+
+    @Test
+    void batchTotalsAreKeptWithThePaymentsRatherThanInTheResult() throws Exception {
+        // two blocks, so two batches under the default criteria; payment n is for n.00 EUR
+        var file = file("f1.xml", Pain001Fixtures.document(2, 1));
+
+        var transformed = transformations.persistTransformedFile(persist("f1", file, null));
+        var batches = payments.findBatches("f1");
+
+        assertThat(transformed.getBatchCount()).isEqualTo(2);
+        assertThat(transformed.getPaymentCount()).isEqualTo(3);
+        assertThat(batches).extracting(batch -> batch.totals().getBatchId()).containsExactly("f1-000001", "f1-000002");
+        var first = batches.get(0).totals();
+        assertThat(first.getPaymentCount()).isEqualTo(2);
+        assertThat(first.getControlSum()).isEqualByComparingTo("3.00");
+        assertThat(first.getMinExecutionDate()).isEqualTo("2026-10-19");
+        assertThat(first.getMaxExecutionDate()).isEqualTo("2026-10-19");
+        var second = batches.get(1).totals();
+        assertThat(second.getPaymentCount()).isEqualTo(1);
+        assertThat(second.getControlSum()).isEqualByComparingTo("3.00");
+        assertThat(second.getMinExecutionDate()).isEqualTo("2026-10-20");
+    }
+
+    @Test
+    void copyTransformedAlongsideTheFirstIsRejectedAsADuplicate() throws Exception {
+        var file = file("f1.xml", Pain001Fixtures.document(2, 1));
+        var hash = checks.checkFile(new FileCheckRequest(new FileInfo("f1", file.toString()), SENDER)).getContentHash();
+        // both passed their checks before either was transformed
+        checks.checkFile(new FileCheckRequest(new FileInfo("f2", file.toString()), SENDER));
+
+        transformations.persistTransformedFile(persist("f1", file, hash));
+        var copy = transformations.persistTransformedFile(persist("f2", file, hash));
+
+        assertThat(copy.getRejection()).isEqualTo(Errors.DUPLICATE_FILE);
+        assertThat(copy.getRejectionMessage()).contains("f1");
+        assertThat(payments.isCommitted("f2")).isFalse();
+        assertThat(canonicalDirectory.resolve("f2.xml")).doesNotExist();
+        assertThat(canonicalDirectory.resolve("f2.idx")).doesNotExist();
+    }
+
+    @Test
+    void fileOverThePaymentLimitIsRejectedPartwayAndLeavesNothingBehind() throws Exception {
+        // seven payments, so the chunks of payments 1-2 and 3-4 are committed before the sixth crosses the limit
+        var file = file("f1.xml", Pain001Fixtures.document(3, 4));
+        var request = persist("f1", file, null);
+        request.setMaxPaymentCount(5);
+
+        var res = transformations.persistTransformedFile(request);
+
+        assertThat(res.getRejection()).isEqualTo(Errors.INVALID_PAYMENT_COUNT);
+        assertThat(res.getRejectionMessage()).contains("5");
+        assertNothingPersisted("f1");
+    }
+
+    @Test
+    void fileOverTheBatchLimitIsRejectedPartwayAndLeavesNothingBehind() throws Exception {
+        // every PmtInf block is a batch of its own, and the third only starts after three chunks were committed
+        var file = file("f1.xml", Pain001Fixtures.document(3, 4, 2));
+        var request = persist("f1", file, null);
+        request.setMaxBatchCount(2);
+
+        var res = transformations.persistTransformedFile(request);
+
+        assertThat(res.getRejection()).isEqualTo(Errors.INVALID_BATCH_COUNT);
+        assertThat(res.getRejectionMessage()).contains("2");
+        assertNothingPersisted("f1");
+    }
+
+    @Test
+    void valueTooWideToStoreFailsTheFileWithoutRetryAndLeavesNothingBehind() throws Exception {
+        // the sixth payment comes after two committed chunks
+        var file = file("f1.xml", Pain001Fixtures.document(3, 4).replace("Creditor 6", "C".repeat(141)));
+
+        assertThatThrownBy(() -> transformations.persistTransformedFile(persist("f1", file, null)))
+                .isInstanceOf(ActivityFailure.class)
+                .cause()
+                .isInstanceOfSatisfying(ApplicationFailure.class, failure -> {
+                    assertThat(failure.isNonRetryable()).isTrue();
+                    assertThat(failure.getType()).isEqualTo(Errors.BAD_REQUEST.name());
+                    assertThat(failure.getOriginalMessage()).contains("Cdtr/Nm is longer than 140 characters");
+                });
+        assertNothingPersisted("f1");
+    }
+
+    @Test
+    void batchStartsAreBoundedByTheConfiguredConcurrency() throws Exception {
+        transform(20);
+        batches.failing.add("f1-000007");
+        var watermarks = new ArrayList<Integer>();
+        environment.setActivityHeartbeatListener(FileActivitiesImpl.BatchFileCheckpoint.class,
+                checkpoint -> watermarks.add(checkpoint.nextIndex()));
+
+        var res = processing.batchFile(new BatchFileRequest(new FileInfo("f1", "f1.xml"), 0, 20, null));
+
+        assertThat(batches.maxInFlight()).isEqualTo(4);
+        assertThat(batches.started).hasSize(19).doesNotContain("f1-000007");
+        assertThat(res.getRequestedCount()).isEqualTo(20);
+        assertThat(res.getStartedCount()).isEqualTo(19);
+        assertThat(res.getResumedFromIndex()).isZero();
+        assertThat(res.getFailures()).extracting(BatchStartFailure::getBatchId).containsExactly("f1-000007");
+        // heartbeats are throttled, so only some watermarks get through, always in order
+        assertThat(watermarks).isNotEmpty().isSorted().allMatch(index -> index > 0 && index <= 20);
+    }
+
+    @Test
+    void batchStartsCoverOnlyTheRequestedRangeOfTheIndex() throws Exception {
+        transform(10);
+
+        var res = processing.batchFile(new BatchFileRequest(new FileInfo("f1", "f1.xml"), 5, 8, null));
+
+        assertThat(batches.started).containsExactlyInAnyOrder("f1-000006", "f1-000007", "f1-000008");
+        assertThat(res.getRequestedCount()).isEqualTo(3);
+        assertThat(res.getStartedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void retriedBatchStartResumesFromTheHeartbeatedIndex() throws Exception {
+        transform(10);
+        var batchIds = batchIds(10);
+        // the earlier attempt got through the first six, one of which it could not start
+        environment.setHeartbeatDetails(new FileActivitiesImpl.BatchFileCheckpoint(6,
+                List.of(new BatchStartFailure("f1-000002", "Unable to start f1-000002"))));
+
+        var res = processing.batchFile(new BatchFileRequest(new FileInfo("f1", "f1.xml"), 0, 10, null));
+
+        assertThat(batches.started).containsExactlyInAnyOrderElementsOf(batchIds.subList(6, 10));
+        assertThat(res.getResumedFromIndex()).isEqualTo(6);
+        assertThat(res.getStartedCount()).isEqualTo(9);
+        assertThat(res.getFailures()).extracting(BatchStartFailure::getBatchId).containsExactly("f1-000002");
+    }
+
+    @Test
+    void retriedApprovalResumesFromTheHeartbeatedIndexAndReportsOnlyFailures() throws Exception {
+        transform(10);
+        batches.failing.add("f1-000008");
+        // the earlier attempt signalled three of the first five, found one completed and could not reach one
+        environment.setHeartbeatDetails(new FileActivitiesImpl.ApproveBatchesCheckpoint(5, 3, 1, List.of(
+                new BatchApprovalOutcome("f1-000004", BatchApprovalOutcome.Status.FAILED, 1, "Batch was never started"))));
+
+        var res = processing.approveBatches(new ApproveBatchesRequest(new FileInfo("f1", "f1.xml")));
+
+        assertThat(batches.signalled).containsExactlyInAnyOrder("f1-000006", "f1-000007", "f1-000009", "f1-000010");
+        assertThat(res.resumedFromIndex()).isEqualTo(5);
+        assertThat(res.signalledCount()).isEqualTo(7);
+        assertThat(res.alreadyCompletedCount()).isEqualTo(1);
+        assertThat(res.failedCount()).isEqualTo(2);
+        assertThat(res.failures()).extracting(BatchApprovalOutcome::batchId).containsExactly("f1-000004", "f1-000008");
+    }
+
+    private static List<String> batchIds(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(batch -> String.format("f1-%06d", batch)).toList();
+    }
+
+    /**
+     * Transforms a file f1 of {@code batchCount} batches, each a PmtInf block of one payment.
+     */
+    private void transform(int batchCount) throws IOException {
+        var file = file("f1.xml", Pain001Fixtures.document(IntStream.range(0, batchCount).map(block -> 1).toArray()));
+        assertThat(transformations.persistTransformedFile(persist("f1", file, null)).getBatchCount()).isEqualTo(batchCount);
+    }
+
+    private void assertNothingPersisted(String fileId) throws SQLException, IOException {
+        assertThat(payments.isCommitted(fileId)).isFalse();
+        assertThat(rows("payment", fileId)).isZero();
+        assertThat(rows("transformed_batch", fileId)).isZero();
+        try (var files = Files.list(canonicalDirectory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .noneMatch(name -> name.startsWith(fileId + "."));
+        }
+    }
+
+    private long rows(String table, String fileId) throws SQLException {
+        try (var connection = dataSource.getConnection();
+             var select = connection.prepareStatement("SELECT COUNT(*) FROM " + table + " WHERE file_id = ?")) {
+            select.setString(1, fileId);
+            try (var count = select.executeQuery()) {
+                count.next();
+                return count.getLong(1);
+            }
+        }
+    }
+
+    private static PersistTransformedFileRequest persist(String fileId, Path file, String contentHash) {
+        return new PersistTransformedFileRequest(new FileInfo(fileId, file.toString()), null, 100, 0, SENDER, contentHash);
+    }
+
+    private Path file(String name, String document) throws IOException {
+        return Pain001Fixtures.write(Files.createDirectories(directory.resolve("incoming")), name, document);
+    }
+}
@@ -1,7 +1,9 @@
 package com.temporal.initiations.workers;
 
+import com.temporal.initiations.codec.PayloadCodecConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
 
 /**
  * Main entry point for the Initiations Workers service.
@@ -17,6 +19,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * It connects to the Temporal server and listens on the "initiations" task queue.
  */
 @SpringBootApplication
+@Import(PayloadCodecConfiguration.class)
 public class Application {
 
     public static void main(String[] args) {